@@ -0,0 +1,46 @@
+/*Every answer of the connectivity index must agree with a BFS: CONNECTED means the BFS reaches
+  the destination, DISCONNECTED means it does not. UNKNOWN is always allowed, the search decides.
+ */
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class ConnectivityIndexTest {
+
+    @Test
+    void answersAgreeWithBfs() {
+        Random random = new Random(22);
+        int answered = 0;
+        for (int round = 0; round < 20; round++) {
+            int n = 50 + random.nextInt(300);
+            // sparse, so there are several components to tell apart
+            GraphEngine graph = RandomGraphs.build(random, n, n * (1 + random.nextInt(3)) / 2, random.nextBoolean());
+            ConnectivityIndex index = graph.connectivity();
+            BfsSearch bfs = new BfsSearch();
+            for (int edit = 0; edit < 50; edit++) {
+                List<Edge> edges = RandomGraphs.edges(graph);
+                List<Node> nodes = RandomGraphs.nodes(graph);
+                if (random.nextBoolean() && !edges.isEmpty()) {
+                    graph.removeEdge(edges.get(random.nextInt(edges.size())));
+                } else {
+                    Node from = nodes.get(random.nextInt(nodes.size()));
+                    Node to = nodes.get(random.nextInt(nodes.size()));
+                    if (from != to) graph.addEdge(new Edge(from, to, 1));
+                }
+                for (int query = 0; query < 10; query++) {
+                    int src = nodes.get(random.nextInt(nodes.size())).id;
+                    int dst = nodes.get(random.nextInt(nodes.size())).id;
+                    ConnectivityIndex.Answer answer = index.query(src, dst);
+                    if (answer == ConnectivityIndex.Answer.UNKNOWN) continue;
+                    answered++;
+                    assertEquals(answer == ConnectivityIndex.Answer.CONNECTED, bfs.run(graph.view(), src, dst, null),
+                            answer + " from " + src + " to " + dst);
+                }
+            }
+        }
+        assertTrue(answered > 0, "the index never answered");
+    }
+}
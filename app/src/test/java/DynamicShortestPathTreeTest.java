@@ -0,0 +1,49 @@
+/*The repaired tree must give the distances of a fresh Dijkstra after every edit: random edge
+  deletions, node deletions (which report their edges first) and edge insertions.
+ */
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class DynamicShortestPathTreeTest {
+
+    @Test
+    void matchesDijkstraAfterRandomEdits() {
+        Random random = new Random(8);
+        for (int round = 0; round < 10; round++) {
+            int n = 100 + random.nextInt(400);
+            GraphEngine graph = RandomGraphs.build(random, n, n * 3, random.nextBoolean());
+            DynamicShortestPathTree tree = graph.shortestPathTree();
+            int src = random.nextInt(n);
+            tree.setSource(src);
+            for (int edit = 0; edit < 200 && tree.hasSource(); edit++) {
+                List<Edge> edges = RandomGraphs.edges(graph);
+                List<Node> nodes = RandomGraphs.nodes(graph);
+                int kind = random.nextInt(10);
+                if (kind < 6 && !edges.isEmpty()) {
+                    graph.removeEdge(edges.get(random.nextInt(edges.size())));
+                } else if (kind < 7) {
+                    Node node = nodes.get(random.nextInt(nodes.size()));
+                    if (node.id != src) graph.removeNode(node);
+                } else {
+                    Node from = nodes.get(random.nextInt(nodes.size()));
+                    Node to = nodes.get(random.nextInt(nodes.size()));
+                    if (from != to) graph.addEdge(new Edge(from, to, 1 + random.nextInt(9)));
+                }
+                assertSameDistances(graph, tree, src);
+            }
+        }
+    }
+
+    private static void assertSameDistances(GraphEngine graph, DynamicShortestPathTree tree, int src) {
+        DijkstraSearch dijkstra = new DijkstraSearch();
+        dijkstra.run(graph.view(), src, -1, null);
+        for (int v = 0; v < graph.nodeCapacity(); v++) {
+            if (graph.node(v) == null) continue;
+            assertEquals(dijkstra.isReached(v), tree.isReached(v), "reached " + v);
+            if (dijkstra.isReached(v)) assertEquals(dijkstra.distanceTo(v), tree.distanceTo(v), "distance to " + v);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/*An edge list written out and imported again must give back the same edges, in line order,
+  with the file's node ids and the positions of the coordinates file.
+ */
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class EdgeListImporterTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void roundTrip() throws IOException {
+        Random random = new Random(15);
+        int m = 5000;
+        // sparse ids with gaps, as in SNAP files
+        long[] ids = random.longs(300, 0, Integer.MAX_VALUE - 64).distinct().toArray();
+        long[] from = new long[m], to = new long[m];
+        int[] weight = new int[m];
+        String[] separators = {" ", "\t", ",", ";"};
+        StringBuilder text = new StringBuilder("# comment\nsource,target,weight\n");
+        for (int i = 0; i < m; i++) {
+            from[i] = ids[random.nextInt(ids.length)];
+            do {
+                to[i] = ids[random.nextInt(ids.length)];
+            } while (to[i] == from[i]);
+            weight[i] = 1 + random.nextInt(100);
+            String separator = separators[random.nextInt(separators.length)];
+            text.append(from[i]).append(separator).append(to[i]).append(separator).append(weight[i]).append('\n');
+        }
+        text.append(ids[0]).append(' ').append(ids[0]).append(" 1\n"); // a self-loop is skipped
+        Path edgeFile = dir.resolve("edges.txt");
+        Files.writeString(edgeFile, text);
+
+        TreeMap<Long, int[]> positions = new TreeMap<>();
+        StringBuilder coordinates = new StringBuilder();
+        for (long id : ids) {
+            int[] p = {random.nextInt(5000), random.nextInt(5000)};
+            positions.put(id, p);
+            coordinates.append(id).append(' ').append(p[0]).append(' ').append(p[1]).append('\n');
+        }
+        Path coordinateFile = dir.resolve("coordinates.txt");
+        Files.writeString(coordinateFile, coordinates);
+
+        ImportedGraph graph = EdgeListImporter.read(edgeFile, coordinateFile);
+        assertEquals(2, graph.skippedLines);
+        assertTrue(graph.weighted);
+        long[] used = LongStream.concat(Arrays.stream(from), Arrays.stream(to)).distinct().sorted().toArray();
+        assertArrayEquals(used, graph.fileIds);
+        assertEquals(m, graph.out.edgeCount());
+
+        long[] seenFrom = new long[m], seenTo = new long[m];
+        int[] seenWeight = new int[m];
+        for (int v = 0; v < graph.nodeCount(); v++) {
+            assertEquals(positions.get(graph.fileIds[v])[0], graph.x[v]);
+            assertEquals(positions.get(graph.fileIds[v])[1], graph.y[v]);
+            for (int i = 0; i < graph.out.degree(v); i++) {
+                int e = graph.out.edgeId(v, i);
+                seenFrom[e] = graph.fileIds[v];
+                seenTo[e] = graph.fileIds[graph.out.neighbor(v, i)];
+                seenWeight[e] = graph.out.weight(v, i);
+            }
+        }
+        assertArrayEquals(from, seenFrom);
+        assertArrayEquals(to, seenTo);
+        assertArrayEquals(weight, seenWeight);
+    }
+}
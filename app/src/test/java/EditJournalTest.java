@@ -0,0 +1,86 @@
+/*Undoing every recorded edit must give back the graph the edits started from, and redoing all
+  of them the graph they ended with: nodes, positions, edges, weights and the direction mode.
+ */
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class EditJournalTest {
+
+    @Test
+    void undoAllAndRedoAllRestoreTheGraph() {
+        Random random = new Random(23);
+        GraphEngine graph = RandomGraphs.build(random, 100, 300, false);
+        EditJournal journal = new EditJournal(graph);
+        String before = RandomGraphs.describe(graph);
+        int added = 0;
+
+        for (int edit = 0; edit < 500; edit++) {
+            List<Node> nodes = RandomGraphs.nodes(graph);
+            List<Edge> edges = RandomGraphs.edges(graph);
+            Node node = nodes.get(random.nextInt(nodes.size()));
+            switch (random.nextInt(7)) {
+                case 0:
+                    Node created = new Node("N" + added++, random.nextInt(1000), random.nextInt(1000));
+                    graph.addNode(created);
+                    journal.nodeAdded(created);
+                    break;
+                case 1:
+                    if (nodes.size() > 10) journal.nodeRemoved(node, graph.removeNode(node));
+                    break;
+                case 2:
+                    Node to = nodes.get(random.nextInt(nodes.size()));
+                    if (to == node) break;
+                    Edge edge = new Edge(node, to, 1 + random.nextInt(9));
+                    graph.addEdge(edge);
+                    journal.edgeAdded(edge);
+                    break;
+                case 3:
+                    if (edges.isEmpty()) break;
+                    Edge e = edges.get(random.nextInt(edges.size()));
+                    List<Edge> removed = graph.removeEdge(e.from, e.to);
+                    if (!removed.isEmpty()) journal.edgesRemoved(removed);
+                    break;
+                case 4:
+                    if (edges.isEmpty()) break;
+                    Edge single = edges.get(random.nextInt(edges.size()));
+                    graph.removeEdge(single);
+                    journal.edgesRemoved(List.of(single));
+                    break;
+                case 5:
+                    int fromX = node.x, fromY = node.y;
+                    graph.moveNode(node, random.nextInt(1000), random.nextInt(1000));
+                    journal.nodeMoved(node, fromX, fromY);
+                    break;
+                default:
+                    if (random.nextInt(5) > 0) break;
+                    graph.setDirected(!graph.isDirected());
+                    journal.directedChanged(graph.isDirected());
+                    break;
+            }
+        }
+        String after = RandomGraphs.describe(graph);
+
+        while (journal.canUndo()) journal.undo();
+        assertEquals(before, RandomGraphs.describe(graph));
+        while (journal.canRedo()) journal.redo();
+        assertEquals(after, RandomGraphs.describe(graph));
+        assertFalse(journal.canRedo());
+    }
+
+    @Test
+    void stepLargerThanTheCapacityCanStillBeUndone() {
+        GraphEngine graph = RandomGraphs.build(new Random(2), 20, 200, false);
+        EditJournal journal = new EditJournal(graph, 5);
+        String before = RandomGraphs.describe(graph);
+        Node hub = RandomGraphs.nodes(graph).get(0);
+        journal.nodeRemoved(hub, graph.removeNode(hub));
+        assertTrue(journal.canUndo());
+        journal.undo();
+        assertEquals(before, RandomGraphs.describe(graph));
+    }
+}
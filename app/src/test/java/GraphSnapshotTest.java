@@ -0,0 +1,67 @@
+/*A snapshot written from the engine and opened again must hold the same graph: every node by
+  name with its position, and the same neighbours with the same weights in both directions.
+  Nodes and edges are deleted first, so the dense renumbering is exercised too.
+ */
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.function.IntFunction;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class GraphSnapshotTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void writeAndOpenRoundTrip() throws IOException {
+        Random random = new Random(16);
+        for (boolean directed : new boolean[] {true, false}) {
+            GraphEngine graph = RandomGraphs.build(random, 500, 2000, directed);
+            List<Node> nodes = RandomGraphs.nodes(graph);
+            for (int i = 0; i < 50; i++) {
+                Node n = nodes.get(random.nextInt(nodes.size()));
+                if (n.id >= 0) graph.removeNode(n);
+            }
+            List<Edge> edges = RandomGraphs.edges(graph);
+            for (int i = 0; i < 100; i++) {
+                Edge e = edges.get(random.nextInt(edges.size()));
+                if (e.id >= 0) graph.removeEdge(e);
+            }
+
+            Path file = dir.resolve("graph-" + directed + ".bfsg");
+            GraphSnapshot.write(file, graph);
+            assertTrue(GraphSnapshot.isSnapshot(file));
+            GraphSnapshot snapshot = GraphSnapshot.open(file);
+
+            assertEquals(directed, snapshot.isDirected());
+            assertEquals(graph.nodeCount(), snapshot.nodeCount());
+            assertEquals(RandomGraphs.edges(graph).size(), snapshot.edgeCount());
+            for (Node n : RandomGraphs.nodes(graph)) {
+                int v = snapshot.nodeId(n.name);
+                assertTrue(v >= 0, n.name + " is missing");
+                assertEquals(n.name, snapshot.label(v));
+                assertEquals(n.x, snapshot.x(v));
+                assertEquals(n.y, snapshot.y(v));
+                assertEquals(neighbours(graph.view(), n.id, id -> graph.node(id).name), neighbours(snapshot.view(), v, snapshot::label));
+                assertEquals(neighbours(graph.reverseView(), n.id, id -> graph.node(id).name),
+                        neighbours(snapshot.reverseView(), v, snapshot::label));
+            }
+        }
+    }
+
+    // "name weight" of every neighbour, sorted, since the two sides number nodes differently
+    private static List<String> neighbours(GraphView view, int v, IntFunction<String> name) {
+        List<String> result = new ArrayList<>();
+        for (int i = 0; i < view.degree(v); i++) result.add(name.apply(view.neighbor(v, i)) + " " + view.weight(v, i));
+        Collections.sort(result);
+        return result;
+    }
+}
@@ -0,0 +1,41 @@
+/*ParallelBfs must build exactly the parent tree of BfsSearch (see its tie-breaking rule), on a
+  pool with more workers than this machine may have cores, so frontiers really are split.
+ */
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+
+class ParallelBfsTest {
+
+    @Test
+    void sameParentTreeAsBfsSearch() {
+        Random random = new Random(4);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int round = 0; round < 20; round++) {
+                int n = 50 + random.nextInt(2000);
+                GraphEngine graph = RandomGraphs.build(random, n, n * (1 + random.nextInt(6)), random.nextBoolean());
+                GraphView view = graph.view();
+                BfsSearch bfs = new BfsSearch();
+                ParallelBfs parallel = new ParallelBfs(pool);
+                for (int query = 0; query < 5; query++) {
+                    int src = random.nextInt(n);
+                    int dst = random.nextInt(3) == 0 ? -1 : random.nextInt(n);
+                    assertEquals(bfs.run(view, src, dst, null), parallel.run(view, src, dst, null), "reached " + dst);
+                    // a full run leaves the whole tree behind
+                    bfs.run(view, src, -1, null);
+                    parallel.run(view, src, -1, null);
+                    for (int v = 0; v < n; v++) {
+                        if (!bfs.isVisited(v)) continue;
+                        assertEquals(bfs.parentOf(v), parallel.parentOf(v), "parent of " + v);
+                        assertEquals(bfs.parentEdgeOf(v), parallel.parentEdgeOf(v), "parent edge of " + v);
+                    }
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
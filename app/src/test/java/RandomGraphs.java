@@ -0,0 +1,55 @@
+/*Random graphs for the tests, built through GraphEngine like the canvas builds them.
+  A fixed seed gives the same graph every run, so a failure can be reproduced.
+ */
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+final class RandomGraphs {
+    private RandomGraphs() {
+    }
+
+    // n nodes on a 1000 x 1000 area and m edges between distinct random nodes, weights 1..9
+    static GraphEngine build(Random random, int n, int m, boolean directed) {
+        GraphEngine graph = new GraphEngine();
+        graph.setDirected(directed);
+        List<Node> nodes = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            Node node = new Node(GraphEngine.generatedLabel(i), random.nextInt(1000), random.nextInt(1000));
+            graph.addNode(node);
+            nodes.add(node);
+        }
+        for (int i = 0; i < m; i++) {
+            Node from = nodes.get(random.nextInt(n));
+            Node to = nodes.get(random.nextInt(n));
+            if (from != to) graph.addEdge(new Edge(from, to, 1 + random.nextInt(9)));
+        }
+        return graph;
+    }
+
+    static List<Node> nodes(GraphEngine graph) {
+        List<Node> nodes = new ArrayList<>();
+        for (int v = 0; v < graph.nodeCapacity(); v++) {
+            if (graph.node(v) != null) nodes.add(graph.node(v));
+        }
+        return nodes;
+    }
+
+    // every node with its position and every edge with its weight, sorted, so equal graphs give equal text
+    static String describe(GraphEngine graph) {
+        List<String> lines = new ArrayList<>();
+        for (Node n : nodes(graph)) lines.add("node " + n.name + " " + n.x + " " + n.y);
+        for (Edge e : edges(graph)) lines.add("edge " + e.from.name + " " + e.to.name + " " + e.weight);
+        Collections.sort(lines);
+        return (graph.isDirected() ? "directed\n" : "undirected\n") + String.join("\n", lines);
+    }
+
+    static List<Edge> edges(GraphEngine graph) {
+        List<Edge> edges = new ArrayList<>();
+        for (int e = 0; e < graph.edgeCapacity(); e++) {
+            if (graph.edge(e) != null) edges.add(graph.edge(e));
+        }
+        return edges;
+    }
+}
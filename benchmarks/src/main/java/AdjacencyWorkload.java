@@ -0,0 +1,98 @@
+/*Building and changing the adjacency: loading a whole graph edge by edge, freezing it into a
+  CsrGraph, deleting a node then undoing it through the EditJournal the way the Delete Node and
+  Undo buttons do, and replaying an edit script of edge removals and re-additions.
+  The variant is "directed" or "undirected".
+ */
+import benchmarks.Workload;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class AdjacencyWorkload implements Workload {
+    private static final int PICKS = 1024;
+    private static final int SCRIPT_EDGES = 256;
+    private static final int BUILD = 0, COMPACT = 1, DELETE_AND_UNDO = 2, REPLAY_EDITS = 3;
+
+    private boolean directed;
+    private Node[] nodes;
+    private Edge[] edges;
+    private GraphEngine graph;
+    private EditJournal journal;
+    private int[] picks;
+    private Path script;
+
+    public void setUp(int nodes, String variant) {
+        directed = variant.equals("directed");
+        this.nodes = BenchmarkGraphs.nodes(nodes);
+        edges = BenchmarkGraphs.edges(this.nodes);
+        graph = build();
+        journal = new EditJournal(graph);
+        picks = BenchmarkGraphs.randomInts(PICKS, nodes, 3);
+        script = writeScript(BenchmarkGraphs.randomInts(SCRIPT_EDGES, edges.length, 4));
+    }
+
+    // every edge is removed and added back, so replaying the script leaves the graph as it was
+    private Path writeScript(int[] picked) {
+        try {
+            Path file = Files.createTempFile("benchmark", ".edits");
+            file.toFile().deleteOnExit();
+            try (BufferedWriter out = Files.newBufferedWriter(file)) {
+                for (int k : picked) {
+                    Edge e = edges[k];
+                    out.write("remove-edge " + e.from.name + " " + e.to.name + " " + e.weight);
+                    out.newLine();
+                    out.write("add-edge " + e.from.name + " " + e.to.name + " " + e.weight);
+                    out.newLine();
+                }
+            }
+            return file;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public int operation(String name) {
+        switch (name) {
+            case "build":
+                return BUILD;
+            case "compact":
+                return COMPACT;
+            case "deleteAndUndo":
+                return DELETE_AND_UNDO;
+            case "replayEdits":
+                return REPLAY_EDITS;
+            default:
+                throw new IllegalArgumentException(name);
+        }
+    }
+
+    public Object run(int operation, int i) {
+        switch (operation) {
+            case BUILD:
+                return build();
+            case COMPACT:
+                return graph.compact();
+            case DELETE_AND_UNDO:
+                Node node = nodes[picks[i & (PICKS - 1)]];
+                journal.nodeRemoved(node, graph.removeNode(node));
+                return journal.undo();
+            default:
+                try {
+                    return EditJournal.replay(graph, script);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+        }
+    }
+
+    // the Node and Edge objects are reused, every engine assigns their ids again
+    private GraphEngine build() {
+        GraphEngine built = new GraphEngine();
+        built.setDirected(directed);
+        for (Node n : nodes) built.addNode(n);
+        for (Edge e : edges) built.addEdge(e);
+        return built;
+    }
+}
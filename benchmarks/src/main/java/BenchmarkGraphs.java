@@ -0,0 +1,60 @@
+/*This class generates the graphs the benchmarks run on: nodes on a jittered grid 120 apart (the
+  spacing the importer lays files out with), edges to the right and lower neighbours, and one
+  random long link per ten nodes so paths are short, like a small-world network. The same size
+  and seed always give the same graph.
+ */
+import java.util.Arrays;
+import java.util.Random;
+
+public class BenchmarkGraphs {
+    static final int SPACING = 120;
+    static final long SEED = 42;
+
+    public static GraphEngine engine(int nodes, boolean directed) {
+        GraphEngine graph = new GraphEngine();
+        graph.setDirected(directed);
+        Node[] created = nodes(nodes);
+        for (Node n : created) graph.addNode(n);
+        for (Edge e : edges(created)) graph.addEdge(e);
+        return graph;
+    }
+
+    static Node[] nodes(int count) {
+        Random random = new Random(SEED);
+        int side = side(count);
+        Node[] nodes = new Node[count];
+        for (int v = 0; v < count; v++) {
+            nodes[v] = new Node(GraphEngine.generatedLabel(v), (v % side) * SPACING + 40 + random.nextInt(40),
+                    (v / side) * SPACING + 40 + random.nextInt(40));
+        }
+        return nodes;
+    }
+
+    static Edge[] edges(Node[] nodes) {
+        Random random = new Random(SEED + 1);
+        int count = nodes.length, side = side(count);
+        Edge[] edges = new Edge[2 * count + count / 10];
+        int m = 0;
+        for (int v = 0; v < count; v++) {
+            if (v % side + 1 < side && v + 1 < count) edges[m++] = new Edge(nodes[v], nodes[v + 1], 1 + random.nextInt(9));
+            if (v + side < count) edges[m++] = new Edge(nodes[v], nodes[v + side], 1 + random.nextInt(9));
+        }
+        for (int k = 0; k < count / 10; k++) {
+            int a = random.nextInt(count), b = random.nextInt(count);
+            if (a != b) edges[m++] = new Edge(nodes[a], nodes[b], 1 + random.nextInt(9));
+        }
+        return Arrays.copyOf(edges, m);
+    }
+
+    static int side(int count) {
+        return Math.max(1, (int) Math.ceil(Math.sqrt(count)));
+    }
+
+    // n random values below bound, the inputs a workload cycles through
+    static int[] randomInts(int n, int bound, long seed) {
+        Random random = new Random(seed);
+        int[] values = new int[n];
+        for (int i = 0; i < n; i++) values[i] = random.nextInt(bound);
+        return values;
+    }
+}
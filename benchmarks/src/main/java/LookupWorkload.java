@@ -0,0 +1,43 @@
+/*The lookups behind the text fields and the mouse: a node by its name, and the node under a point
+  (hit-testing a click or a drag). Half of the points are near a node, half are anywhere.
+ */
+import benchmarks.Workload;
+
+public class LookupWorkload implements Workload {
+    private static final int INPUTS = 4096;
+    private static final int BY_NAME = 0, AT_POINT = 1;
+
+    private GraphEngine graph;
+    private final String[] names = new String[INPUTS];
+    private final int[] xs = new int[INPUTS], ys = new int[INPUTS];
+
+    public void setUp(int nodes, String variant) {
+        graph = BenchmarkGraphs.engine(nodes, false);
+        int[] picks = BenchmarkGraphs.randomInts(INPUTS, nodes, 4);
+        int[] jitter = BenchmarkGraphs.randomInts(2 * INPUTS, 31, 5);
+        int extent = BenchmarkGraphs.side(nodes) * BenchmarkGraphs.SPACING;
+        int[] anywhere = BenchmarkGraphs.randomInts(2 * INPUTS, extent, 6);
+        for (int k = 0; k < INPUTS; k++) {
+            names[k] = GraphEngine.generatedLabel(picks[k]);
+            Node near = graph.getNodeByName(names[k]);
+            xs[k] = k % 2 == 0 ? near.x + jitter[2 * k] - 15 : anywhere[2 * k];
+            ys[k] = k % 2 == 0 ? near.y + jitter[2 * k + 1] - 15 : anywhere[2 * k + 1];
+        }
+    }
+
+    public int operation(String name) {
+        switch (name) {
+            case "getNodeByName":
+                return BY_NAME;
+            case "getNodeAt":
+                return AT_POINT;
+            default:
+                throw new IllegalArgumentException(name);
+        }
+    }
+
+    public Object run(int operation, int i) {
+        int k = i & (INPUTS - 1);
+        return operation == BY_NAME ? graph.getNodeByName(names[k]) : graph.nodeAt(xs[k], ys[k]);
+    }
+}
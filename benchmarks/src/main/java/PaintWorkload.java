@@ -0,0 +1,59 @@
+/*GraphCanvas painted into an offscreen image, the same paint the panel gets from Swing. The graph
+  is loaded the way "Open Graph" does. The variant "overview" keeps the view fitted to the whole
+  graph (small nodes, no labels); "detail" zooms to 1:1 in the middle of it.
+ */
+import benchmarks.Workload;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class PaintWorkload implements Workload {
+    private static final int WIDTH = 1280, HEIGHT = 800;
+    private static final int CACHED_FRAME = 0, FULL_FRAME = 1;
+
+    private GraphCanvas canvas;
+    private BufferedImage image;
+
+    public void setUp(int nodes, String variant) {
+        canvas = new GraphCanvas();
+        canvas.setSize(WIDTH, HEIGHT);
+        try {
+            Path file = Files.createTempFile("benchmark", ".bfsg");
+            try {
+                GraphSnapshot.write(file, BenchmarkGraphs.engine(nodes, false));
+                canvas.openSnapshot(file);
+            } finally {
+                Files.delete(file);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (variant.equals("detail")) canvas.setZoom(1.0, WIDTH / 2, HEIGHT / 2);
+        canvas.setSource(GraphEngine.generatedLabel(0));
+        canvas.setDestination(GraphEngine.generatedLabel(nodes - 1));
+        image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+    }
+
+    public int operation(String name) {
+        switch (name) {
+            case "cachedFrame":
+                return CACHED_FRAME;
+            case "fullFrame":
+                return FULL_FRAME;
+            default:
+                throw new IllegalArgumentException(name);
+        }
+    }
+
+    // a full frame redraws the graph layer, as after an edit, a pan or a zoom
+    public Object run(int operation, int i) {
+        if (operation == FULL_FRAME) canvas.setZoom(canvas.getZoom(), 0, 0);
+        Graphics2D g = image.createGraphics();
+        canvas.paint(g);
+        g.dispose();
+        return image;
+    }
+}
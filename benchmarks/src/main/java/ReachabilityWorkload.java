@@ -0,0 +1,49 @@
+/*The queries behind "Within Hops" and a multi-source "Start BFS": the nodes within some hops of
+  three random nodes, and the path to a random node from the nearest of eight random sources. The
+  variant is the number of hops.
+ */
+import benchmarks.Workload;
+
+public class ReachabilityWorkload implements Workload {
+    private static final int QUERIES = 1024;
+    private static final int WITHIN_HOPS = 0, NEAREST_SOURCE = 1;
+
+    private GraphEngine graph;
+    private GraphVersion version;
+    private int hops;
+    private final int[][] sources = new int[QUERIES][];
+    private int[] destinations;
+
+    public void setUp(int nodes, String variant) {
+        graph = BenchmarkGraphs.engine(nodes, false);
+        version = graph.version();
+        hops = Integer.parseInt(variant);
+        int[] picks = BenchmarkGraphs.randomInts(QUERIES * 8, nodes, 7);
+        for (int q = 0; q < QUERIES; q++) {
+            sources[q] = new int[8];
+            for (int k = 0; k < 8; k++) sources[q][k] = version.idOf(graph.getNodeByName(GraphEngine.generatedLabel(picks[q * 8 + k])));
+        }
+        destinations = BenchmarkGraphs.randomInts(QUERIES, nodes, 8);
+        for (int q = 0; q < QUERIES; q++) destinations[q] = version.idOf(graph.getNodeByName(GraphEngine.generatedLabel(destinations[q])));
+    }
+
+    public int operation(String name) {
+        switch (name) {
+            case "withinHops":
+                return WITHIN_HOPS;
+            case "nearestSource":
+                return NEAREST_SOURCE;
+            default:
+                throw new IllegalArgumentException(name);
+        }
+    }
+
+    public Object run(int operation, int i) {
+        int q = i & (QUERIES - 1);
+        if (operation == WITHIN_HOPS) {
+            int[] three = {sources[q][0], sources[q][1], sources[q][2]};
+            return graph.reachable(version, three, hops);
+        }
+        return graph.nearestSource(version, sources[q], destinations[q]);
+    }
+}
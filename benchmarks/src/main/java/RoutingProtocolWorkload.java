@@ -0,0 +1,54 @@
+/*The routing protocol emulation behind "Emulate Routing". The variant is the protocol:
+  "distance-vector", "poisoned-reverse" (distance vector with poisoned reverse) or "link-state".
+  "converge" starts every router from an empty table; "failLink" converges and then fails one of
+  a fixed set of random links, cycling through them. Infinity is 16 hops of the largest cost (9).
+ */
+import benchmarks.Workload;
+
+public class RoutingProtocolWorkload implements Workload {
+    private static final int INFINITY = 16 * 9;
+
+    private GraphView view;
+    private String protocol;
+    private int[] failedEdges;
+
+    public void setUp(int nodes, String variant) {
+        GraphEngine graph = BenchmarkGraphs.engine(nodes, false);
+        view = graph.version().view();
+        protocol = variant;
+        int[] picks = BenchmarkGraphs.randomInts(64, nodes, 11);
+        failedEdges = new int[picks.length];
+        for (int k = 0; k < picks.length; k++) failedEdges[k] = view.degree(picks[k]) > 0 ? view.edgeId(picks[k], 0) : -1;
+    }
+
+    public int operation(String name) {
+        switch (name) {
+            case "converge":
+                return 0;
+            case "failLink":
+                return 1;
+            default:
+                throw new IllegalArgumentException(name);
+        }
+    }
+
+    // returns the report of the last phase, so the run cannot be optimised away
+    public Object run(int operation, int i) {
+        int failedEdge = operation == 1 ? failedEdges[i % failedEdges.length] : -1;
+        switch (protocol) {
+            case "distance-vector":
+            case "poisoned-reverse": {
+                DistanceVectorEmulator emulator = new DistanceVectorEmulator(view, INFINITY, protocol.equals("poisoned-reverse"));
+                emulator.run(failedEdge);
+                return failedEdge >= 0 ? emulator.afterFailure() : emulator.initial();
+            }
+            case "link-state": {
+                LinkStateEmulator emulator = new LinkStateEmulator(view, false);
+                emulator.run(failedEdge);
+                return failedEdge >= 0 ? emulator.afterFailure() : emulator.initial();
+            }
+            default:
+                throw new IllegalArgumentException(protocol);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+/*The search behind "Start BFS": GraphEngine.search between random node pairs of an undirected
+  generated graph, optionally recording the trace that the animation replays. The variant is the
+  SearchMode name.
+ */
+import benchmarks.Workload;
+
+public class SearchWorkload implements Workload {
+    private static final int QUERIES = 1024;
+    private static final int SEARCH = 0, SEARCH_WITH_TRACE = 1;
+
+    private GraphEngine graph;
+    private SearchMode mode;
+    private final Node[] sources = new Node[QUERIES];
+    private final Node[] destinations = new Node[QUERIES];
+
+    public void setUp(int nodes, String variant) {
+        graph = BenchmarkGraphs.engine(nodes, false);
+        mode = SearchMode.valueOf(variant);
+        int[] from = BenchmarkGraphs.randomInts(QUERIES, nodes, 1);
+        int[] to = BenchmarkGraphs.randomInts(QUERIES, nodes, 2);
+        for (int q = 0; q < QUERIES; q++) {
+            sources[q] = graph.getNodeByName(GraphEngine.generatedLabel(from[q]));
+            destinations[q] = graph.getNodeByName(GraphEngine.generatedLabel(to[q]));
+        }
+    }
+
+    public int operation(String name) {
+        switch (name) {
+            case "search":
+                return SEARCH;
+            case "searchWithTrace":
+                return SEARCH_WITH_TRACE;
+            default:
+                throw new IllegalArgumentException(name);
+        }
+    }
+
+    public Object run(int operation, int i) {
+        int q = i & (QUERIES - 1);
+        return graph.search(mode, sources[q], destinations[q], operation == SEARCH_WITH_TRACE ? new SearchTrace() : null);
+    }
+}
@@ -0,0 +1,36 @@
+/*The traffic simulation behind "Simulate Traffic": 256 flows between random nodes over 100 ms of
+  simulated time, on links of 10 packets per ms with queues of 64. The variant is the rate of every
+  flow in packets per ms, so "1" leaves most links idle and "8" overloads the shared ones. The
+  routes are computed once; an operation is one whole run with its own seed.
+ */
+import benchmarks.Workload;
+
+public class SimulationWorkload implements Workload {
+    private static final int FLOWS = 256;
+    private static final double DURATION_MS = 100;
+
+    private PacketSimulator simulator;
+
+    public void setUp(int nodes, String variant) {
+        GraphEngine graph = BenchmarkGraphs.engine(nodes, false);
+        GraphVersion version = graph.version();
+        simulator = new PacketSimulator(version.view(), 10, 64);
+        double rate = Double.parseDouble(variant);
+        int[] picks = BenchmarkGraphs.randomInts(2 * FLOWS, nodes, 9);
+        for (int f = 0; f < FLOWS; f++) {
+            int src = version.idOf(graph.getNodeByName(GraphEngine.generatedLabel(picks[2 * f])));
+            int dst = version.idOf(graph.getNodeByName(GraphEngine.generatedLabel(picks[2 * f + 1])));
+            simulator.addFlow(src, dst, rate);
+        }
+    }
+
+    public int operation(String name) {
+        if (name.equals("run")) return 0;
+        throw new IllegalArgumentException(name);
+    }
+
+    // returns the number of events, so the time per operation can be turned into events per second
+    public Object run(int operation, int i) {
+        return simulator.run(DURATION_MS, i);
+    }
+}
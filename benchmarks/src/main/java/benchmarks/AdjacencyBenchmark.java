@@ -0,0 +1,65 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/*Adjacency upkeep, which replaced the full rebuild of updateAdjacencyList: loading a whole graph,
+  freezing it into CSR form, a node delete followed by its undo, and replaying an edit script
+  (512 lines, per operation).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "-Djava.awt.headless=true"})
+public class AdjacencyBenchmark {
+    @Param({"1000", "100000"})
+    int nodes;
+
+    @Param({"undirected", "directed"})
+    String direction;
+
+    private Workload workload;
+    private int buildOperation, compactOperation, deleteAndUndoOperation, replayEditsOperation;
+    private int i;
+
+    @Setup
+    public void setUp() {
+        workload = Workload.load("AdjacencyWorkload", nodes, direction);
+        buildOperation = workload.operation("build");
+        compactOperation = workload.operation("compact");
+        deleteAndUndoOperation = workload.operation("deleteAndUndo");
+        replayEditsOperation = workload.operation("replayEdits");
+    }
+
+    @Benchmark
+    public Object build() {
+        return workload.run(buildOperation, i++);
+    }
+
+    @Benchmark
+    public Object compact() {
+        return workload.run(compactOperation, i++);
+    }
+
+    @Benchmark
+    public Object deleteAndUndo() {
+        return workload.run(deleteAndUndoOperation, i++);
+    }
+
+    @Benchmark
+    public Object replayEdits() {
+        return workload.run(replayEditsOperation, i++);
+    }
+}
@@ -0,0 +1,49 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/*getNodeByName (source and destination fields, deletion dialogs) and getNodeAt (every click and
+  drag), both of which should stay flat as the graph grows.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "-Djava.awt.headless=true"})
+public class LookupBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    int nodes;
+
+    private Workload workload;
+    private int byNameOperation, atPointOperation;
+    private int i;
+
+    @Setup
+    public void setUp() {
+        workload = Workload.load("LookupWorkload", nodes, "");
+        byNameOperation = workload.operation("getNodeByName");
+        atPointOperation = workload.operation("getNodeAt");
+    }
+
+    @Benchmark
+    public Object getNodeByName() {
+        return workload.run(byNameOperation, i++);
+    }
+
+    @Benchmark
+    public Object getNodeAt() {
+        return workload.run(atPointOperation, i++);
+    }
+}
@@ -0,0 +1,53 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/*GraphCanvas.paintComponent into an offscreen 1280x800 BufferedImage, headless. A cached frame
+  reuses the background and graph layers (a replay step); a full frame redraws the graph layer
+  first (after an edit, a pan or a zoom).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "-Djava.awt.headless=true"})
+public class PaintBenchmark {
+    @Param({"1000", "100000"})
+    int nodes;
+
+    @Param({"overview", "detail"})
+    String view;
+
+    private Workload workload;
+    private int cachedOperation, fullOperation;
+    private int i;
+
+    @Setup
+    public void setUp() {
+        workload = Workload.load("PaintWorkload", nodes, view);
+        cachedOperation = workload.operation("cachedFrame");
+        fullOperation = workload.operation("fullFrame");
+    }
+
+    @Benchmark
+    public Object cachedFrame() {
+        return workload.run(cachedOperation, i++);
+    }
+
+    @Benchmark
+    public Object fullFrame() {
+        return workload.run(fullOperation, i++);
+    }
+}
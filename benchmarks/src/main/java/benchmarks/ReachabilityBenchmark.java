@@ -0,0 +1,52 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/*k-hop neighbourhoods of a few nodes (blast radius) and the nearest of several sources. A small
+  neighbourhood should cost about the same on every graph size.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "-Djava.awt.headless=true"})
+public class ReachabilityBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    int nodes;
+
+    @Param({"3"})
+    String hops;
+
+    private Workload workload;
+    private int withinHopsOperation, nearestSourceOperation;
+    private int i;
+
+    @Setup
+    public void setUp() {
+        workload = Workload.load("ReachabilityWorkload", nodes, hops);
+        withinHopsOperation = workload.operation("withinHops");
+        nearestSourceOperation = workload.operation("nearestSource");
+    }
+
+    @Benchmark
+    public Object withinHops() {
+        return workload.run(withinHopsOperation, i++);
+    }
+
+    @Benchmark
+    public Object nearestSource() {
+        return workload.run(nearestSourceOperation, i++);
+    }
+}
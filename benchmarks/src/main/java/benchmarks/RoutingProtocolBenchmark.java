@@ -0,0 +1,53 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/*Distance-vector and link-state convergence from empty tables, and again after a link fails. Both
+  use every core; link state runs one SPF per router, so it grows faster with the graph.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "-Djava.awt.headless=true"})
+public class RoutingProtocolBenchmark {
+    @Param({"1000", "4000"})
+    int nodes;
+
+    @Param({"distance-vector", "poisoned-reverse", "link-state"})
+    String protocol;
+
+    private Workload workload;
+    private int convergeOperation;
+    private int failLinkOperation;
+    private int i;
+
+    @Setup
+    public void setUp() {
+        workload = Workload.load("RoutingProtocolWorkload", nodes, protocol);
+        convergeOperation = workload.operation("converge");
+        failLinkOperation = workload.operation("failLink");
+    }
+
+    @Benchmark
+    public Object converge() {
+        return workload.run(convergeOperation, i++);
+    }
+
+    @Benchmark
+    public Object failLink() {
+        return workload.run(failLinkOperation, i++);
+    }
+}
@@ -0,0 +1,53 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/*One query of every search mode (what launchBFS runs before the replay), between random pairs.
+  ROUTING_TABLE is left out of the defaults: it caches a table per destination, which on large
+  graphs needs more heap than the other modes; add it with -p mode=ROUTING_TABLE.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "-Djava.awt.headless=true"})
+public class SearchBenchmark {
+    @Param({"1000", "100000"})
+    int nodes;
+
+    @Param({"BFS", "DIRECTION_OPTIMIZING", "PARALLEL", "BIDIRECTIONAL", "DIJKSTRA"})
+    String mode;
+
+    private Workload workload;
+    private int searchOperation, searchWithTraceOperation;
+    private int i;
+
+    @Setup
+    public void setUp() {
+        workload = Workload.load("SearchWorkload", nodes, mode);
+        searchOperation = workload.operation("search");
+        searchWithTraceOperation = workload.operation("searchWithTrace");
+    }
+
+    @Benchmark
+    public Object search() {
+        return workload.run(searchOperation, i++);
+    }
+
+    @Benchmark
+    public Object searchWithTrace() {
+        return workload.run(searchWithTraceOperation, i++);
+    }
+}
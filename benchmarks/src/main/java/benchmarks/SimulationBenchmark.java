@@ -0,0 +1,46 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/*One packet simulation run of 256 flows over 100 ms, lightly loaded and overloaded. Bigger graphs
+  mean longer routes, so more events per packet; the run allocates nothing once its arrays have grown.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "-Djava.awt.headless=true"})
+public class SimulationBenchmark {
+    @Param({"1000", "100000"})
+    int nodes;
+
+    @Param({"1", "8"})
+    String rate;
+
+    private Workload workload;
+    private int runOperation;
+    private int i;
+
+    @Setup
+    public void setUp() {
+        workload = Workload.load("SimulationWorkload", nodes, rate);
+        runOperation = workload.operation("run");
+    }
+
+    @Benchmark
+    public Object run() {
+        return workload.run(runOperation, i++);
+    }
+}
@@ -0,0 +1,25 @@
+package benchmarks;
+
+/*The part of a benchmark that calls into the application. JMH does not accept benchmarks in the
+  unnamed package and named packages cannot import the application's classes, so each benchmark
+  loads its workload (an unnamed-package class) by name and calls it through this interface.
+ */
+public interface Workload {
+    void setUp(int nodes, String variant);
+
+    // the code that run() takes for the named operation, resolved once so run() only switches on an int
+    int operation(String name);
+
+    // one operation; i picks the input, so successive calls do not keep hitting the same data
+    Object run(int operation, int i);
+
+    static Workload load(String className, int nodes, String variant) {
+        try {
+            Workload workload = Class.forName(className).asSubclass(Workload.class).getDeclaredConstructor().newInstance();
+            workload.setUp(nodes, variant);
+            return workload;
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot create " + className, e);
+        }
+    }
+}
@@ -1,6 +1,8 @@
 //  A graphical interface that include text fields, buttons, and options to reset undo or change the view.
 
 import java.awt.*;
+import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.Objects;
 import javax.swing.*;
 
@@ -34,14 +36,52 @@ public class BFS_GUI extends JFrame {
         destLabel.setFont(new Font("Arial", Font.BOLD, 18));
 
         JButton BFSbtn = new JButton("Start BFS");
+        JComboBox<SearchMode> modeBox = new JComboBox<>(SearchMode.values());
+        modeBox.setToolTipText("Search used by Start BFS");
+        modeBox.setFont(new Font("Arial", Font.BOLD, 13));
         JButton BFSresetBtn = new JButton("Reset");
 //      7. button to delete the node and edges
         JButton nodeDltBtn = new JButton("Delete Node");
         JButton edgeDltBtn = new JButton("Delete Edge");
 
         JButton undoBtn = new JButton("Undo");
+        JButton redoBtn = new JButton("Redo");
+        JButton routingBtn = new JButton("Routing Tables");
+        JButton partitionsBtn = new JButton("Partitions");
+        partitionsBtn.setToolTipText("List the parts of the graph that cannot reach each other");
         JButton toggleViewBtn = new JButton("Paper View");
         JCheckBox directedCheckBox = new JCheckBox("Directed Graph", false);
+
+//      top bar: importing a topology file, and the replay controls (the search itself always runs
+//      at full speed, only its animation is paced)
+        JPanel topPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 15, 5));
+        topPanel.setBackground(new Color(40, 40, 70));
+        JButton importBtn = new JButton("Import Edge List");
+        JButton saveBtn = new JButton("Save Graph");
+        JButton openBtn = new JButton("Open Graph");
+        JButton exportEditsBtn = new JButton("Export Edits");
+        JButton replayEditsBtn = new JButton("Replay Edits");
+        JCheckBox animateCheckBox = new JCheckBox("Animate", true);
+        animateCheckBox.setToolTipText("Uncheck to show only the result, for big graphs");
+        animateCheckBox.setForeground(Color.BLACK);
+        JLabel speedLabel = new JLabel("Speed:");
+        speedLabel.setForeground(Color.WHITE);
+        speedLabel.setFont(new Font("Arial", Font.BOLD, 15));
+        // 10^(value/10) visited nodes per second, from 1 to 1000
+        JSlider speedSlider = new JSlider(0, 30, 5);
+        speedSlider.setOpaque(false);
+        speedSlider.setToolTipText("Visited nodes per second");
+        JButton pauseBtn = new JButton("Pause");
+        JButton stepBtn = new JButton("Step");
+        JButton skipBtn = new JButton("Skip to End");
+        JButton queriesBtn = new JButton("Run Queries");
+        queriesBtn.setToolTipText("Run many source/destination pairs at once with the selected search");
+        JButton dismissBtn = new JButton("Dismiss Queries");
+        JButton reachBtn = new JButton("Within Hops");
+        JButton trafficBtn = new JButton("Simulate Traffic");
+        JButton protocolsBtn = new JButton("Emulate Routing");
+        protocolsBtn.setToolTipText("Compare distance-vector and link-state convergence, optionally after a link fails");
+        reachBtn.setToolTipText("Shade every node within some hops of one or more nodes");
         directedCheckBox.setToolTipText("Toggle between directed and undirected edges");
         directedCheckBox.setForeground(Color.BLACK);
 
@@ -75,24 +115,141 @@ public class BFS_GUI extends JFrame {
         undoBtn.setFocusPainted(false);
         undoBtn.setBorder(BorderFactory.createLineBorder(new Color(80, 140, 200), 2));
 
+        redoBtn.setBackground(new Color(60, 120, 180));
+        redoBtn.setForeground(Color.WHITE);
+        redoBtn.setFont(new Font("Arial", Font.BOLD, 15));
+        redoBtn.setFocusPainted(false);
+        redoBtn.setBorder(BorderFactory.createLineBorder(new Color(80, 140, 200), 2));
+
+        routingBtn.setBackground(new Color(60, 120, 180));
+        routingBtn.setForeground(Color.WHITE);
+        routingBtn.setFont(new Font("Arial", Font.BOLD, 15));
+        routingBtn.setFocusPainted(false);
+        routingBtn.setBorder(BorderFactory.createLineBorder(new Color(80, 140, 200), 2));
+
+        partitionsBtn.setBackground(new Color(60, 120, 180));
+        partitionsBtn.setForeground(Color.WHITE);
+        partitionsBtn.setFont(new Font("Arial", Font.BOLD, 15));
+        partitionsBtn.setFocusPainted(false);
+        partitionsBtn.setBorder(BorderFactory.createLineBorder(new Color(80, 140, 200), 2));
+
         toggleViewBtn.setBackground(new Color(60, 120, 180));
         toggleViewBtn.setForeground(Color.WHITE);
         toggleViewBtn.setFont(new Font("Arial", Font.BOLD, 15));
         toggleViewBtn.setFocusPainted(false);
         toggleViewBtn.setBorder(BorderFactory.createLineBorder(new Color(80, 140, 200), 2));
+
+        importBtn.setBackground(new Color(60, 120, 180));
+        importBtn.setForeground(Color.WHITE);
+        importBtn.setFont(new Font("Arial", Font.BOLD, 15));
+        importBtn.setFocusPainted(false);
+        importBtn.setBorder(BorderFactory.createLineBorder(new Color(80, 140, 200), 2));
+
+        saveBtn.setBackground(new Color(60, 120, 180));
+        saveBtn.setForeground(Color.WHITE);
+        saveBtn.setFont(new Font("Arial", Font.BOLD, 15));
+        saveBtn.setFocusPainted(false);
+        saveBtn.setBorder(BorderFactory.createLineBorder(new Color(80, 140, 200), 2));
+
+        openBtn.setBackground(new Color(60, 120, 180));
+        openBtn.setForeground(Color.WHITE);
+        openBtn.setFont(new Font("Arial", Font.BOLD, 15));
+        openBtn.setFocusPainted(false);
+        openBtn.setBorder(BorderFactory.createLineBorder(new Color(80, 140, 200), 2));
+
+        exportEditsBtn.setBackground(new Color(60, 120, 180));
+        exportEditsBtn.setForeground(Color.WHITE);
+        exportEditsBtn.setFont(new Font("Arial", Font.BOLD, 15));
+        exportEditsBtn.setFocusPainted(false);
+        exportEditsBtn.setBorder(BorderFactory.createLineBorder(new Color(80, 140, 200), 2));
+
+        replayEditsBtn.setBackground(new Color(60, 120, 180));
+        replayEditsBtn.setForeground(Color.WHITE);
+        replayEditsBtn.setFont(new Font("Arial", Font.BOLD, 15));
+        replayEditsBtn.setFocusPainted(false);
+        replayEditsBtn.setBorder(BorderFactory.createLineBorder(new Color(80, 140, 200), 2));
+
+        pauseBtn.setBackground(new Color(60, 120, 180));
+        pauseBtn.setForeground(Color.WHITE);
+        pauseBtn.setFont(new Font("Arial", Font.BOLD, 15));
+        pauseBtn.setFocusPainted(false);
+        pauseBtn.setBorder(BorderFactory.createLineBorder(new Color(80, 140, 200), 2));
+
+        stepBtn.setBackground(new Color(60, 120, 180));
+        stepBtn.setForeground(Color.WHITE);
+        stepBtn.setFont(new Font("Arial", Font.BOLD, 15));
+        stepBtn.setFocusPainted(false);
+        stepBtn.setBorder(BorderFactory.createLineBorder(new Color(80, 140, 200), 2));
+
+        skipBtn.setBackground(new Color(60, 120, 180));
+        skipBtn.setForeground(Color.WHITE);
+        skipBtn.setFont(new Font("Arial", Font.BOLD, 15));
+        skipBtn.setFocusPainted(false);
+        skipBtn.setBorder(BorderFactory.createLineBorder(new Color(80, 140, 200), 2));
+
+        queriesBtn.setBackground(new Color(60, 120, 180));
+        queriesBtn.setForeground(Color.WHITE);
+        queriesBtn.setFont(new Font("Arial", Font.BOLD, 15));
+        queriesBtn.setFocusPainted(false);
+        queriesBtn.setBorder(BorderFactory.createLineBorder(new Color(80, 140, 200), 2));
+
+        dismissBtn.setBackground(new Color(60, 120, 180));
+        dismissBtn.setForeground(Color.WHITE);
+        dismissBtn.setFont(new Font("Arial", Font.BOLD, 15));
+        dismissBtn.setFocusPainted(false);
+        dismissBtn.setBorder(BorderFactory.createLineBorder(new Color(80, 140, 200), 2));
+
+        reachBtn.setBackground(new Color(60, 120, 180));
+        reachBtn.setForeground(Color.WHITE);
+        reachBtn.setFont(new Font("Arial", Font.BOLD, 15));
+        reachBtn.setFocusPainted(false);
+        reachBtn.setBorder(BorderFactory.createLineBorder(new Color(80, 140, 200), 2));
+
+        trafficBtn.setBackground(new Color(60, 120, 180));
+        trafficBtn.setForeground(Color.WHITE);
+        trafficBtn.setFont(new Font("Arial", Font.BOLD, 15));
+        trafficBtn.setFocusPainted(false);
+        trafficBtn.setBorder(BorderFactory.createLineBorder(new Color(80, 140, 200), 2));
+
+        protocolsBtn.setBackground(new Color(60, 120, 180));
+        protocolsBtn.setForeground(Color.WHITE);
+        protocolsBtn.setFont(new Font("Arial", Font.BOLD, 15));
+        protocolsBtn.setFocusPainted(false);
+        protocolsBtn.setBorder(BorderFactory.createLineBorder(new Color(80, 140, 200), 2));
 //      1. The panel whwere all the buttons and text field appear to simulate the BFS
         bottomPanel.add(srcLabel);
         bottomPanel.add(srcField);
         bottomPanel.add(destLabel);
         bottomPanel.add(destField);
+        bottomPanel.add(modeBox);
         bottomPanel.add(BFSbtn);
         bottomPanel.add(BFSresetBtn);
         bottomPanel.add(nodeDltBtn);
         bottomPanel.add(edgeDltBtn);
         bottomPanel.add(undoBtn);
+        bottomPanel.add(redoBtn);
+        bottomPanel.add(routingBtn);
+        bottomPanel.add(partitionsBtn);
         bottomPanel.add(toggleViewBtn);
         bottomPanel.add(directedCheckBox);
 
+        topPanel.add(importBtn);
+        topPanel.add(saveBtn);
+        topPanel.add(openBtn);
+        topPanel.add(exportEditsBtn);
+        topPanel.add(replayEditsBtn);
+        topPanel.add(animateCheckBox);
+        topPanel.add(speedLabel);
+        topPanel.add(speedSlider);
+        topPanel.add(pauseBtn);
+        topPanel.add(stepBtn);
+        topPanel.add(skipBtn);
+        topPanel.add(queriesBtn);
+        topPanel.add(dismissBtn);
+        topPanel.add(reachBtn);
+        topPanel.add(trafficBtn);
+        topPanel.add(protocolsBtn);
+
         BFSbtn.addActionListener(e -> {
             String src = srcField.getText().trim().toUpperCase();
             String dst = destField.getText().trim().toUpperCase();
@@ -103,7 +260,8 @@ public class BFS_GUI extends JFrame {
             }
             canvas.setSource(src);
             canvas.setDestination(dst);
-            new Thread(canvas::launchBFS).start();
+            canvas.setSearchMode((SearchMode) modeBox.getSelectedItem());
+            canvas.startSearch();
         });
 //      1. rest the whole graph
         BFSresetBtn.addActionListener(e -> {
@@ -132,7 +290,19 @@ public class BFS_GUI extends JFrame {
             }
         });
 
-        undoBtn.addActionListener(e -> canvas.undoDelete());
+//      undoing or redoing a directed toggle flips the checkbox too
+        undoBtn.addActionListener(e -> {
+            canvas.undo();
+            directedCheckBox.setSelected(canvas.isDirected());
+        });
+        redoBtn.addActionListener(e -> {
+            canvas.redo();
+            directedCheckBox.setSelected(canvas.isDirected());
+        });
+
+        routingBtn.addActionListener(e -> new Thread(canvas::buildRoutingTables).start());
+
+        partitionsBtn.addActionListener(e -> canvas.showPartitions());
 
         toggleViewBtn.addActionListener(e -> {
             canvas.switchBackgroundImage();
@@ -142,6 +312,146 @@ public class BFS_GUI extends JFrame {
 
         directedCheckBox.addActionListener(e -> canvas.setDirectedgraph(directedCheckBox.isSelected()));
 
+        animateCheckBox.addActionListener(e -> canvas.setAnimated(animateCheckBox.isSelected()));
+        speedSlider.addChangeListener(e -> canvas.setReplaySpeed(Math.pow(10, speedSlider.getValue() / 10.0)));
+        canvas.setReplaySpeed(Math.pow(10, speedSlider.getValue() / 10.0));
+        pauseBtn.addActionListener(e -> {
+            canvas.setReplayPaused(!canvas.isReplayPaused());
+            pauseBtn.setText(canvas.isReplayPaused() ? "Resume" : "Pause");
+        });
+        stepBtn.addActionListener(e -> {
+            canvas.stepReplay();
+            pauseBtn.setText("Resume");
+        });
+        skipBtn.addActionListener(e -> canvas.skipReplay());
+
+//      one "source destination" pair per line, all run at the same time and drawn in their own colours
+        queriesBtn.addActionListener(e -> {
+            JTextArea pairsArea = new JTextArea(10, 20);
+            int answer = JOptionPane.showConfirmDialog(this, new JScrollPane(pairsArea),
+                    "Source and destination per line (e.g. A D)", JOptionPane.OK_CANCEL_OPTION);
+            if (answer == JOptionPane.OK_OPTION) canvas.runQueries(pairsArea.getText(), (SearchMode) modeBox.getSelectedItem());
+        });
+
+//      blast radius: the nodes within k hops of some failed nodes; empty sources clear the shading
+        reachBtn.addActionListener(e -> {
+            String sources = JOptionPane.showInputDialog("Nodes to start from (e.g. A C F), empty to clear:");
+            if (sources == null) return;
+            if (sources.isBlank()) {
+                canvas.clearShading();
+                return;
+            }
+            String hops = JOptionPane.showInputDialog("Number of hops (empty for everything reachable):");
+            if (hops != null) canvas.shadeReachable(sources.toUpperCase(), hops);
+        });
+
+        dismissBtn.addActionListener(e -> {
+            String numbers = JOptionPane.showInputDialog("Query numbers to dismiss (empty for all):");
+            if (numbers != null) canvas.dismissQueries(numbers);
+        });
+
+//      flows and link settings in one dialog; no flows clears the load colours
+        trafficBtn.addActionListener(e -> {
+            JTextArea flowsArea = new JTextArea(10, 20);
+            JTextField durationField = new JTextField("1000", 6);
+            JTextField bandwidthField = new JTextField("1", 6);
+            JTextField queueField = new JTextField("64", 6);
+            JPanel settings = new JPanel(new GridLayout(3, 2, 5, 5));
+            settings.add(new JLabel("Duration (ms):"));
+            settings.add(durationField);
+            settings.add(new JLabel("Bandwidth (packets/ms):"));
+            settings.add(bandwidthField);
+            settings.add(new JLabel("Queue size (packets):"));
+            settings.add(queueField);
+            JPanel dialog = new JPanel(new BorderLayout(5, 5));
+            dialog.add(new JLabel("Source, destination and packets per ms per line (e.g. A D 0.5):"), BorderLayout.NORTH);
+            dialog.add(new JScrollPane(flowsArea), BorderLayout.CENTER);
+            dialog.add(settings, BorderLayout.SOUTH);
+            int answer = JOptionPane.showConfirmDialog(this, dialog, "Simulate Traffic", JOptionPane.OK_CANCEL_OPTION);
+            if (answer != JOptionPane.OK_OPTION) return;
+            if (flowsArea.getText().isBlank()) {
+                canvas.clearTraffic();
+                return;
+            }
+            try {
+                double duration = Double.parseDouble(durationField.getText().trim());
+                double bandwidth = Double.parseDouble(bandwidthField.getText().trim());
+                int queue = Integer.parseInt(queueField.getText().trim());
+                if (duration <= 0 || bandwidth <= 0 || queue < 0) throw new NumberFormatException();
+                canvas.simulateTraffic(flowsArea.getText(), duration, bandwidth, queue);
+            } catch (NumberFormatException ex) {
+                JOptionPane.showMessageDialog(this, "Duration and bandwidth must be positive numbers, the queue size a whole number.",
+                        "Error", JOptionPane.ERROR_MESSAGE);
+            }
+        });
+
+//      the link to fail is optional; without it only the convergence from empty tables is shown
+        protocolsBtn.addActionListener(e -> {
+            JTextField linkField = new JTextField(8);
+            JTextField infinityField = new JTextField("16", 8);
+            JCheckBox poisonedBox = new JCheckBox("Poisoned reverse");
+            JPanel dialog = new JPanel(new GridLayout(3, 2, 5, 5));
+            dialog.add(new JLabel("Link to fail (e.g. A B):"));
+            dialog.add(linkField);
+            dialog.add(new JLabel("Infinity (hops of the largest cost):"));
+            dialog.add(infinityField);
+            dialog.add(poisonedBox);
+            int answer = JOptionPane.showConfirmDialog(this, dialog, "Emulate Routing", JOptionPane.OK_CANCEL_OPTION);
+            if (answer != JOptionPane.OK_OPTION) return;
+            try {
+                int infinity = Integer.parseInt(infinityField.getText().trim());
+                if (infinity <= 0) throw new NumberFormatException();
+                canvas.emulateRouting(linkField.getText(), infinity, poisonedBox.isSelected());
+            } catch (NumberFormatException ex) {
+                JOptionPane.showMessageDialog(this, "Infinity must be a positive whole number.", "Error", JOptionPane.ERROR_MESSAGE);
+            }
+        });
+
+//      edge list first, then optionally a file of node positions
+        importBtn.addActionListener(e -> {
+            JFileChooser chooser = new JFileChooser();
+            chooser.setDialogTitle("Edge list (from to [weight] per line)");
+            if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) return;
+            Path edgeFile = chooser.getSelectedFile().toPath();
+            Path coordinateFile = null;
+            int answer = JOptionPane.showConfirmDialog(this, "Load node positions (id x y per line) from another file?",
+                    "Import", JOptionPane.YES_NO_OPTION);
+            if (answer == JOptionPane.YES_OPTION) {
+                chooser.setDialogTitle("Node positions");
+                if (chooser.showOpenDialog(this) == JFileChooser.APPROVE_OPTION) coordinateFile = chooser.getSelectedFile().toPath();
+            }
+            Path positions = coordinateFile;
+            new Thread(() -> canvas.importGraph(edgeFile, positions)).start();
+        });
+
+        saveBtn.addActionListener(e -> {
+            JFileChooser chooser = new JFileChooser();
+            chooser.setDialogTitle("Save graph snapshot");
+            if (chooser.showSaveDialog(this) == JFileChooser.APPROVE_OPTION) canvas.saveSnapshot(chooser.getSelectedFile().toPath());
+        });
+
+        openBtn.addActionListener(e -> {
+            JFileChooser chooser = new JFileChooser();
+            chooser.setDialogTitle("Open graph snapshot");
+            if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) return;
+            canvas.openSnapshot(chooser.getSelectedFile().toPath());
+            directedCheckBox.setSelected(canvas.isDirected());
+        });
+
+        exportEditsBtn.addActionListener(e -> {
+            JFileChooser chooser = new JFileChooser();
+            chooser.setDialogTitle("Export edits as a script");
+            if (chooser.showSaveDialog(this) == JFileChooser.APPROVE_OPTION) canvas.exportEdits(chooser.getSelectedFile().toPath());
+        });
+
+        replayEditsBtn.addActionListener(e -> {
+            JFileChooser chooser = new JFileChooser();
+            chooser.setDialogTitle("Replay an edit script");
+            if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) return;
+            canvas.replayEdits(chooser.getSelectedFile().toPath());
+            directedCheckBox.setSelected(canvas.isDirected());
+        });
+
 
         Color lightSkyBlue = new Color(88, 187, 211);
         logPanel.setBackground(lightSkyBlue);
@@ -152,7 +462,11 @@ public class BFS_GUI extends JFrame {
         rightScrollMsg.setBorder(BorderFactory.createEmptyBorder());
 
         canvas.setOutputPanel(logPanel);
+//      -Dconsole.log=<file> keeps the full log in a file, the panel only shows the latest lines
+        String logFile = System.getProperty("console.log");
+        if (logFile != null) logPanel.setSpillFile(Path.of(logFile));
 
+        add(topPanel, BorderLayout.NORTH);
         add(bottomPanel, BorderLayout.SOUTH);
         add(rightScrollMsg, BorderLayout.EAST);
         add(canvas, BorderLayout.CENTER);
@@ -168,6 +482,11 @@ public class BFS_GUI extends JFrame {
     }
 
     public static void main(String[] args) {
+//      --batch <graph> <pairs> <results> ... answers queries from a file without opening a window
+        if (args.length > 0 && args[0].equals("--batch")) {
+            BatchQueryRunner.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
         SwingUtilities.invokeLater(() -> new BFS_GUI().setVisible(true));
     }
 }
\ No newline at end of file
@@ -0,0 +1,293 @@
+/*This class answers a file of source/destination pairs without the GUI:
+    java -jar BFS_GUI.jar --batch <graph> <pairs> <results> [--mode M] [--threads N] [--directed | --undirected]
+  The graph is a snapshot saved by the GUI or an edge list as accepted by "Import Edge List". The
+  pairs file has one "source destination" pair of node names per line ('#' starts a comment).
+  Every result line is "source destination hops cost path", in the order of the pairs file.
+
+  The pairs are read in batches that run on a fixed pool, one worker per core by default. Every
+  thread keeps its own search objects, so a query allocates only its path. Finished batches are
+  written in order while later ones run, so memory stays bounded however long the pairs file is.
+ */
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntFunction;
+import java.util.function.ToIntFunction;
+
+public class BatchQueryRunner {
+    private static final int BATCH_SIZE = 4096;
+
+    private final GraphView out, in;
+    private final ToIntFunction<String> nodeId;
+    private final IntFunction<String> label;
+    private final SearchMode mode;
+    private final ThreadLocal<Worker> workers = ThreadLocal.withInitial(this::newWorker);
+    private final List<Worker> allWorkers = new ArrayList<>();
+
+    BatchQueryRunner(GraphView out, GraphView in, ToIntFunction<String> nodeId, IntFunction<String> label, SearchMode mode) {
+        this.out = out;
+        this.in = in;
+        this.nodeId = nodeId;
+        this.label = label;
+        this.mode = mode;
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 3) usage();
+        SearchMode mode = SearchMode.BFS;
+        int threads = Runtime.getRuntime().availableProcessors();
+        Boolean directed = null;
+        for (int i = 3; i < args.length; i++) {
+            switch (args[i]) {
+                case "--mode":
+                    if (++i == args.length) usage();
+                    mode = parseMode(args[i]);
+                    if (mode == SearchMode.ROUTING_TABLE) {
+                        System.err.println("Routing tables need the GUI's graph; use --mode dijkstra for lowest-cost routes.");
+                        System.exit(2);
+                    }
+                    break;
+                case "--threads":
+                    if (++i == args.length) usage();
+                    threads = parseThreads(args[i]);
+                    break;
+                case "--directed":
+                    directed = true;
+                    break;
+                case "--undirected":
+                    directed = false;
+                    break;
+                default:
+                    usage();
+            }
+        }
+        try {
+            run(Path.of(args[0]), Path.of(args[1]), Path.of(args[2]), mode, threads, directed);
+        } catch (IOException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    private static SearchMode parseMode(String name) {
+        try {
+            return SearchMode.valueOf(name.toUpperCase(Locale.ROOT).replace('-', '_'));
+        } catch (IllegalArgumentException e) {
+            usage();
+            return null;
+        }
+    }
+
+    private static int parseThreads(String count) {
+        try {
+            int threads = Integer.parseInt(count);
+            if (threads > 0) return threads;
+        } catch (NumberFormatException e) {
+            // fall through to the usage message
+        }
+        usage();
+        return 0;
+    }
+
+    private static void usage() {
+        System.err.println("usage: --batch <graph> <pairs> <results> [--mode bfs|direction-optimizing|parallel|bidirectional|dijkstra]"
+                + " [--threads N] [--directed | --undirected]");
+        System.exit(2);
+    }
+
+    // directed is null to use the snapshot's own mode (edge lists default to undirected, like the GUI)
+    static void run(Path graphFile, Path pairsFile, Path resultsFile, SearchMode mode, int threads, Boolean directed) throws IOException {
+        long start = System.nanoTime();
+        BatchQueryRunner runner;
+        String description;
+        if (GraphSnapshot.isSnapshot(graphFile)) {
+            GraphSnapshot snapshot = GraphSnapshot.open(graphFile);
+            boolean d = directed != null ? directed : snapshot.isDirected();
+            runner = new BatchQueryRunner(snapshot.view(d), snapshot.reverseView(d), snapshot::nodeId, snapshot::label, mode);
+            description = snapshot.nodeCount() + " nodes, " + snapshot.edgeCount() + " edges";
+        } else {
+            ImportedGraph imported = EdgeListImporter.read(graphFile, null);
+            boolean d = directed != null && directed;
+            runner = new BatchQueryRunner(imported.view(d), imported.reverseView(d), name -> fileNodeId(imported, name),
+                    v -> Long.toString(imported.fileIds[v]), mode);
+            description = imported.nodeCount() + " nodes, " + imported.edgeCount() + " edges";
+        }
+        System.out.println("Loaded " + graphFile.getFileName() + " (" + description + ") in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try (BufferedReader reader = Files.newBufferedReader(pairsFile, StandardCharsets.UTF_8);
+             BufferedWriter writer = Files.newBufferedWriter(resultsFile, StandardCharsets.UTF_8)) {
+            writer.write("# source destination hops cost path (" + mode + ")\n");
+            long queryStart = System.nanoTime();
+            ArrayDeque<Future<String>> pending = new ArrayDeque<>();
+            long queries = 0;
+            String[] batch;
+            while ((batch = readBatch(reader)) != null) {
+                String[] pairs = batch;
+                queries += pairs.length / 2;
+                pending.add(pool.submit(() -> runner.answer(pairs)));
+                // a few batches per thread in flight keeps every core busy without reading ahead too far
+                if (pending.size() >= threads * 4) writer.write(result(pending.poll()));
+            }
+            while (!pending.isEmpty()) writer.write(result(pending.poll()));
+            long nanos = System.nanoTime() - queryStart;
+            runner.report(queries, nanos, threads);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static String result(Future<String> batch) throws IOException {
+        try {
+            return batch.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted");
+        } catch (ExecutionException e) {
+            throw new IOException("Query failed: " + e.getCause(), e.getCause());
+        }
+    }
+
+    // the next BATCH_SIZE pairs as source, destination, source, ...; null at the end of the file
+    private static String[] readBatch(BufferedReader reader) throws IOException {
+        List<String> pairs = new ArrayList<>();
+        String line;
+        while (pairs.size() < 2 * BATCH_SIZE && (line = reader.readLine()) != null) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            String[] parts = line.split("[\\s,;]+");
+            if (parts.length < 2) throw new IOException("Expected \"source destination\": " + line);
+            pairs.add(parts[0]);
+            pairs.add(parts[1]);
+        }
+        return pairs.isEmpty() ? null : pairs.toArray(new String[0]);
+    }
+
+    private static int fileNodeId(ImportedGraph imported, String name) {
+        try {
+            return imported.nodeId(Long.parseLong(name));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private Worker newWorker() {
+        Worker worker = new Worker();
+        synchronized (allWorkers) {
+            allWorkers.add(worker);
+        }
+        return worker;
+    }
+
+    // the result lines of one batch
+    String answer(String[] pairs) {
+        Worker worker = workers.get();
+        StringBuilder lines = new StringBuilder(pairs.length * 16);
+        for (int i = 0; i < pairs.length; i += 2) {
+            long start = System.nanoTime();
+            worker.answer(pairs[i], pairs[i + 1], lines);
+            worker.latencies.record(System.nanoTime() - start);
+        }
+        return lines.toString();
+    }
+
+    private void report(long queries, long nanos, int threads) {
+        LatencyHistogram latencies = new LatencyHistogram();
+        long found = 0, unreachable = 0, unknown = 0;
+        synchronized (allWorkers) {
+            for (Worker w : allWorkers) {
+                latencies.add(w.latencies);
+                found += w.found;
+                unreachable += w.unreachable;
+                unknown += w.unknown;
+            }
+        }
+        System.out.printf(Locale.ROOT, "%d queries in %.3f s on %d threads: %.0f queries/s%n", queries, nanos / 1e9, threads,
+                queries / Math.max(nanos / 1e9, 1e-9));
+        System.out.println("Paths found: " + found + ", no path: " + unreachable + ", unknown nodes: " + unknown);
+        System.out.printf(Locale.ROOT, "Latency (us): p50 %.1f, p90 %.1f, p99 %.1f, p99.9 %.1f, max %.1f%n",
+                latencies.percentile(50) / 1e3, latencies.percentile(90) / 1e3, latencies.percentile(99) / 1e3,
+                latencies.percentile(99.9) / 1e3, latencies.max() / 1e3);
+    }
+
+    // the search objects of one thread, reused by every query it answers
+    private final class Worker {
+        final BfsSearch bfs = new BfsSearch();
+        final DirectionOptimizingBfs directionOptimizing = new DirectionOptimizingBfs();
+        final ParallelBfs parallel = new ParallelBfs();
+        final BidirectionalBfs bidirectional = new BidirectionalBfs();
+        final DijkstraSearch dijkstra = new DijkstraSearch();
+        final LatencyHistogram latencies = new LatencyHistogram();
+        long found, unreachable, unknown;
+
+        void answer(String srcName, String dstName, StringBuilder lines) {
+            lines.append(srcName).append(' ').append(dstName).append(' ');
+            int src = nodeId.applyAsInt(srcName), dst = nodeId.applyAsInt(dstName);
+            if (src < 0 || dst < 0) {
+                unknown++;
+                lines.append("- - unknown node ").append(src < 0 ? srcName : dstName).append('\n');
+                return;
+            }
+            boolean reached;
+            SearchTree tree = null;
+            switch (mode) {
+                case DIRECTION_OPTIMIZING:
+                    reached = directionOptimizing.run(out, in, src, dst, null);
+                    tree = directionOptimizing;
+                    break;
+                case PARALLEL:
+                    reached = parallel.run(out, src, dst, null);
+                    tree = parallel;
+                    break;
+                case BIDIRECTIONAL:
+                    reached = bidirectional.run(out, in, src, dst, null);
+                    break;
+                case DIJKSTRA:
+                    reached = dijkstra.run(out, src, dst, null);
+                    tree = dijkstra;
+                    break;
+                default:
+                    reached = bfs.run(out, src, dst, null);
+                    tree = bfs;
+            }
+            if (!reached) {
+                unreachable++;
+                lines.append("- - no path\n");
+                return;
+            }
+            int[] path = tree != null ? tree.path(dst) : bidirectional.path();
+            int[] edges = tree != null ? tree.pathEdges(dst) : bidirectional.pathEdges();
+            long cost = mode == SearchMode.DIJKSTRA ? dijkstra.distanceTo(dst) : cost(path, edges);
+            found++;
+            lines.append(path.length - 1).append(' ').append(cost);
+            for (int v : path) lines.append(' ').append(label.apply(v));
+            lines.append('\n');
+        }
+
+        // the views only give weights by position, so look every edge up in its tail's list
+        private long cost(int[] path, int[] edges) {
+            long cost = 0;
+            for (int k = 0; k < edges.length; k++) {
+                int v = path[k];
+                for (int i = 0, d = out.degree(v); i < d; i++) {
+                    if (out.edgeId(v, i) == edges[k]) {
+                        cost += out.weight(v, i);
+                        break;
+                    }
+                }
+            }
+            return cost;
+        }
+    }
+}
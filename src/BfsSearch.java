@@ -0,0 +1,54 @@
+// This class runs breadth-first search over a GraphView using primitive buffers that are reused between queries.
+public class BfsSearch extends SearchTree {
+    private int[] queue = new int[0];
+    // a node counts as visited when mark[v] == stamp, so nothing has to be cleared between queries
+    private int[] mark = new int[0];
+    private int stamp = 0;
+
+    private void ensureCapacity(int n) {
+        if (ensureTree(n)) {
+            queue = new int[parent.length];
+            mark = new int[parent.length];
+            stamp = 0;
+        }
+        if (++stamp == 0) {
+            java.util.Arrays.fill(mark, 0);
+            stamp = 1;
+        }
+    }
+
+/*  Classic top-down BFS from src. Stops as soon as dst is dequeued (pass -1 to explore
+    the whole component). Returns true when dst was reached; the tree can then be read
+    back with path() and pathEdges().
+ */
+    public boolean run(GraphView g, int src, int dst, SearchListener listener) {
+        ensureCapacity(g.nodeCapacity());
+        int head = 0, tail = 0;
+        queue[tail++] = src;
+        mark[src] = stamp;
+        parent[src] = -1;
+        parentEdge[src] = -1;
+
+        while (head < tail) {
+            int current = queue[head++];
+            if (listener != null) listener.visit(current);
+            if (current == dst) return true;
+
+            for (int i = 0, d = g.degree(current); i < d; i++) {
+                int neighbor = g.neighbor(current, i);
+                if (mark[neighbor] != stamp) {
+                    mark[neighbor] = stamp;
+                    parent[neighbor] = current;
+                    parentEdge[neighbor] = g.edgeId(current, i);
+                    queue[tail++] = neighbor;
+                    if (listener != null) listener.enqueue(neighbor, current);
+                }
+            }
+        }
+        return false;
+    }
+
+    public boolean isVisited(int v) {
+        return v < mark.length && mark[v] == stamp;
+    }
+}
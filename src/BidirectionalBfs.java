@@ -0,0 +1,139 @@
+/*This class answers one source to destination query with two BFS trees, one grown from the source
+  over the forward view and one grown from the destination over the reverse view. Each round
+  expands a whole level of whichever side has the smaller frontier; once a level touches the
+  other tree the best meeting edge of that level gives a hop-shortest path.
+ */
+public class BidirectionalBfs {
+    private static final int NONE = -1;
+
+    // index 0 is the forward side, index 1 the backward side
+    private final int[][] queue = new int[2][0];
+    private final int[][] dist = new int[2][0];
+    private final int[][] link = new int[2][0];     // parent (forward) or successor towards dst (backward)
+    private final int[][] linkEdge = new int[2][0];
+    private final int[][] mark = new int[2][0];
+    private int stamp = 0;
+
+    private int meetForward, meetBackward, meetEdge;
+    private final int[] explored = new int[2];
+
+    private void ensureCapacity(int n) {
+        if (mark[0].length < n) {
+            int size = Math.max(n, mark[0].length * 2);
+            for (int side = 0; side < 2; side++) {
+                queue[side] = new int[size];
+                dist[side] = new int[size];
+                link[side] = new int[size];
+                linkEdge[side] = new int[size];
+                mark[side] = new int[size];
+            }
+            stamp = 0;
+        }
+        if (++stamp == 0) {
+            java.util.Arrays.fill(mark[0], 0);
+            java.util.Arrays.fill(mark[1], 0);
+            stamp = 1;
+        }
+    }
+
+/*  out is the view searched from src and in its reverse, searched from dst (the same view for an
+    undirected graph). The listener gets visit/enqueue for the forward side and
+    visitBackward/enqueueBackward for the backward side. Returns true when a path exists.
+ */
+    public boolean run(GraphView out, GraphView in, int src, int dst, SearchListener listener) {
+        ensureCapacity(out.nodeCapacity());
+        GraphView[] views = {out, in};
+        int[] head = new int[2], levelEnd = new int[2], tail = new int[2];
+        int[] start = {src, dst};
+        for (int side = 0; side < 2; side++) {
+            queue[side][0] = start[side];
+            mark[side][start[side]] = stamp;
+            dist[side][start[side]] = 0;
+            link[side][start[side]] = NONE;
+            tail[side] = 1;
+            levelEnd[side] = 1;
+            explored[side] = 0;
+        }
+        if (src == dst) {
+            meetForward = meetBackward = src;
+            meetEdge = NONE;
+            if (listener != null) listener.visit(src);
+            return true;
+        }
+
+        while (head[0] < tail[0] && head[1] < tail[1]) {
+            int side = (levelEnd[0] - head[0]) <= (levelEnd[1] - head[1]) ? 0 : 1;
+            int other = 1 - side;
+            GraphView g = views[side];
+            int[] q = queue[side], d = dist[side], mine = mark[side], theirs = mark[other];
+            int best = Integer.MAX_VALUE;
+
+            while (head[side] < levelEnd[side]) {
+                int v = q[head[side]++];
+                explored[side]++;
+                if (listener != null) {
+                    if (side == 0) listener.visit(v); else listener.visitBackward(v);
+                }
+                for (int i = 0, deg = g.degree(v); i < deg; i++) {
+                    int u = g.neighbor(v, i);
+                    if (theirs[u] == stamp) {
+                        int length = d[v] + 1 + dist[other][u];
+                        if (length < best) {
+                            best = length;
+                            meetEdge = g.edgeId(v, i);
+                            meetForward = side == 0 ? v : u;
+                            meetBackward = side == 0 ? u : v;
+                        }
+                    }
+                    if (mine[u] != stamp) {
+                        mine[u] = stamp;
+                        d[u] = d[v] + 1;
+                        link[side][u] = v;
+                        linkEdge[side][u] = g.edgeId(v, i);
+                        q[tail[side]++] = u;
+                        if (listener != null) {
+                            if (side == 0) listener.enqueue(u, v); else listener.enqueueBackward(u, v);
+                        }
+                    }
+                }
+            }
+            levelEnd[side] = tail[side];
+            if (best != Integer.MAX_VALUE) return true;
+        }
+        return false;
+    }
+
+    // node ids from src to dst through the meeting edge of the last successful run
+    public int[] path() {
+        int length = 1 + dist[0][meetForward] + (meetEdge == NONE ? 0 : 1 + dist[1][meetBackward]);
+        int[] path = new int[length];
+        int i = dist[0][meetForward];
+        for (int v = meetForward; v != NONE; v = link[0][v]) path[i--] = v;
+        if (meetEdge != NONE) {
+            i = dist[0][meetForward] + 1;
+            for (int v = meetBackward; v != NONE; v = link[1][v]) path[i++] = v;
+        }
+        return path;
+    }
+
+    public int[] pathEdges() {
+        int[] nodes = path();
+        int[] edges = new int[nodes.length - 1];
+        int i = dist[0][meetForward] - 1;
+        for (int v = meetForward; link[0][v] != NONE; v = link[0][v]) edges[i--] = linkEdge[0][v];
+        if (meetEdge != NONE) {
+            i = dist[0][meetForward];
+            edges[i++] = meetEdge;
+            for (int v = meetBackward; link[1][v] != NONE; v = link[1][v]) edges[i++] = linkEdge[1][v];
+        }
+        return edges;
+    }
+
+    public int exploredForward() {
+        return explored[0];
+    }
+
+    public int exploredBackward() {
+        return explored[1];
+    }
+}
@@ -0,0 +1,180 @@
+/*This class answers "is there a path at all" before any search starts. Connected components are
+  kept in a union-find that every new edge updates in nearly O(1). A deletion can split a component,
+  which a union-find cannot undo, so deletions only mark it stale and the next question rebuilds it
+  from the current GraphVersion in one O(n + m) pass; a burst of deletions costs one rebuild.
+
+  In directed mode the union-find holds the weakly connected components: different ones mean no
+  path either way. Inside one of them the strongly connected components decide (same one: there
+  is a path; reverse topological order says no: there is none); they are computed on demand and
+  dropped by any change. Everything else is left to the search.
+  Updates are idempotent, so a rebuild that already saw an edit whose notice comes later is fine.
+ */
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class ConnectivityIndex implements TopologyListener {
+    public enum Answer { CONNECTED, DISCONNECTED, UNKNOWN }
+
+    private final GraphEngine graph;
+    private int[] parent = new int[0];
+    private int[] size = new int[0];
+    private boolean stale = true;
+    private StrongComponents strong = null;
+    private int rebuilds = 0;
+
+    public ConnectivityIndex(GraphEngine graph) {
+        this.graph = graph;
+        graph.addTopologyListener(this);
+    }
+
+    // whether a search from src can reach dst, when that is known without one
+    public synchronized Answer query(int src, int dst) {
+        if (src < 0 || dst < 0) return Answer.UNKNOWN;
+        if (src == dst) return Answer.CONNECTED;
+        refresh();
+        if (src >= parent.length || dst >= parent.length) return Answer.UNKNOWN;
+        if (find(src) != find(dst)) return Answer.DISCONNECTED;
+        if (!graph.isDirected()) return Answer.CONNECTED;
+        StrongComponents scc = strongComponents();
+        int a = scc.component(src), b = scc.component(dst);
+        if (a < 0 || b < 0) return Answer.UNKNOWN;
+        if (a == b) return Answer.CONNECTED;
+        return a < b ? Answer.DISCONNECTED : Answer.UNKNOWN;
+    }
+
+    // the node ids of every (weakly) connected component, largest first
+    public synchronized List<int[]> partitions() {
+        refresh();
+        GraphVersion version = graph.version();
+        int n = Math.min(version.nodeCapacity(), parent.length);
+        int[] count = new int[n];
+        for (int v = 0; v < n; v++) {
+            if (version.isLive(v)) count[find(v)]++;
+        }
+        int[][] members = new int[n][];
+        List<int[]> partitions = new ArrayList<>();
+        for (int v = 0; v < n; v++) {
+            if (!version.isLive(v)) continue;
+            int root = find(v);
+            if (members[root] == null) {
+                members[root] = new int[count[root]];
+                partitions.add(members[root]);
+                count[root] = 0;
+            }
+            members[root][count[root]++] = v;
+        }
+        partitions.sort((p, q) -> Integer.compare(q.length, p.length));
+        return partitions;
+    }
+
+    // strongly connected components among the live nodes, directed mode only; -1 otherwise
+    public synchronized int strongComponentCount() {
+        if (!graph.isDirected()) return -1;
+        StrongComponents scc = strongComponents();
+        GraphVersion version = graph.version();
+        boolean[] seen = new boolean[scc.count()];
+        int count = 0;
+        for (int v = 0; v < version.nodeCapacity(); v++) {
+            int c = scc.component(v);
+            if (version.isLive(v) && c >= 0 && !seen[c]) {
+                seen[c] = true;
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public synchronized int rebuilds() {
+        return rebuilds;
+    }
+
+    private void refresh() {
+        if (!stale) return;
+        GraphVersion version = graph.version();
+        GraphView out = version.view();
+        int n = version.nodeCapacity();
+        parent = new int[Math.max(n, 16)];
+        size = new int[parent.length];
+        for (int v = 0; v < parent.length; v++) {
+            parent[v] = v;
+            size[v] = 1;
+        }
+        for (int v = 0; v < n; v++) {
+            for (int i = 0, d = out.degree(v); i < d; i++) union(v, out.neighbor(v, i));
+        }
+        stale = false;
+        rebuilds++;
+    }
+
+    private StrongComponents strongComponents() {
+        if (strong == null) strong = new StrongComponents(graph.version().view());
+        return strong;
+    }
+
+    // path halving
+    private int find(int v) {
+        while (parent[v] != v) {
+            parent[v] = parent[parent[v]];
+            v = parent[v];
+        }
+        return v;
+    }
+
+    private void union(int a, int b) {
+        int ra = find(a), rb = find(b);
+        if (ra == rb) return;
+        if (size[ra] < size[rb]) {
+            int swap = ra;
+            ra = rb;
+            rb = swap;
+        }
+        parent[rb] = ra;
+        size[ra] += size[rb];
+    }
+
+    // new ids start as components of their own; reused ids were reset by the rebuild their removal caused
+    private void ensureCapacity(int n) {
+        if (parent.length >= n) return;
+        int old = parent.length;
+        int capacity = Math.max(n, old * 2);
+        parent = Arrays.copyOf(parent, capacity);
+        size = Arrays.copyOf(size, capacity);
+        for (int v = old; v < capacity; v++) {
+            parent[v] = v;
+            size[v] = 1;
+        }
+    }
+
+    @Override
+    public synchronized void nodeAdded(int node) {
+        strong = null;
+        if (!stale) ensureCapacity(node + 1);
+    }
+
+    @Override
+    public synchronized void nodeRemoved(int node) {
+        stale = true;
+        strong = null;
+    }
+
+    @Override
+    public synchronized void edgeAdded(int edge, int from, int to, int weight) {
+        strong = null;
+        if (stale) return;
+        ensureCapacity(Math.max(from, to) + 1);
+        union(from, to);
+    }
+
+    @Override
+    public synchronized void edgeRemoved(int edge, int from, int to, int weight) {
+        stale = true;
+        strong = null;
+    }
+
+    @Override
+    public synchronized void topologyReset() {
+        stale = true;
+        strong = null;
+    }
+}
@@ -0,0 +1,37 @@
+/*This class carries what an emulated routing protocol did until every router had settled, either
+  from empty tables or after a link failed. A round is one exchange of messages over every link;
+  real time is rounds times the protocol's update interval.
+ */
+public class ConvergenceReport {
+    final String protocol;
+    final int rounds;           // rounds in which messages were sent
+    final long messages;        // messages sent over links (distance vectors or LSA copies)
+    final long updates;         // distance vector: route entries changed; link state: SPF runs
+    final long lostRoutes;      // routes to a destination that could be reached before and not after
+    final long countingRoutes;  // routes whose cost went up more than once on the way (counting to infinity)
+    final int countingRounds;   // last round in which one of those still changed
+    final long nanos;           // time the emulation took
+
+    ConvergenceReport(String protocol, int rounds, long messages, long updates, long lostRoutes, long countingRoutes,
+                      int countingRounds, long nanos) {
+        this.protocol = protocol;
+        this.rounds = rounds;
+        this.messages = messages;
+        this.updates = updates;
+        this.lostRoutes = lostRoutes;
+        this.countingRoutes = countingRoutes;
+        this.countingRounds = countingRounds;
+        this.nanos = nanos;
+    }
+
+    String describe() {
+        StringBuilder text = new StringBuilder(protocol).append(": ").append(rounds).append(rounds == 1 ? " round, " : " rounds, ")
+                .append(messages).append(" messages, ").append(updates)
+                .append(protocol.startsWith("link state") ? " SPF runs" : " route changes");
+        if (lostRoutes > 0) text.append(", ").append(lostRoutes).append(" routes lost");
+        if (countingRoutes > 0) {
+            text.append(", ").append(countingRoutes).append(" routes counted up for ").append(countingRounds).append(" rounds");
+        }
+        return text.append(" (emulated in ").append(nanos / 1_000_000).append(" ms)").toString();
+    }
+}
@@ -0,0 +1,131 @@
+// This class is a compact, read-only copy of the topology stored as compressed sparse row (CSR) arrays.
+public class CsrGraph implements GraphView {
+    final int nodeCount;
+    // neighbours of node v are targets[offsets[v]] .. targets[offsets[v + 1] - 1]
+    final int[] offsets;
+    final int[] targets;
+    final int[] weights;
+    // id of the edge behind every CSR slot, used to map paths back to Edge objects
+    final int[] edgeIds;
+
+    CsrGraph(int nodeCount, int[] offsets, int[] targets, int[] weights, int[] edgeIds) {
+        this.nodeCount = nodeCount;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+        this.edgeIds = edgeIds;
+    }
+
+    public int nodeCapacity() {
+        return nodeCount;
+    }
+
+    public int degree(int v) {
+        return offsets[v + 1] - offsets[v];
+    }
+
+    public int neighbor(int v, int i) {
+        return targets[offsets[v] + i];
+    }
+
+    public int weight(int v, int i) {
+        return weights[offsets[v] + i];
+    }
+
+    public int edgeId(int v, int i) {
+        return edgeIds[offsets[v] + i];
+    }
+
+    int edgeCount() {
+        return offsets[nodeCount];
+    }
+
+/*  Freezes any view into CSR arrays in O(V + E). The result keeps the same node ids and
+    edge ids, so it can stand in for the live graph in bulk work (exports, batch queries).
+ */
+    static CsrGraph of(GraphView g) {
+        int n = g.nodeCapacity();
+        int[] offsets = new int[n + 1];
+        for (int v = 0; v < n; v++) {
+            offsets[v + 1] = offsets[v] + g.degree(v);
+        }
+
+        int m = offsets[n];
+        int[] targets = new int[m];
+        int[] weights = new int[m];
+        int[] edgeIds = new int[m];
+        for (int v = 0; v < n; v++) {
+            for (int i = 0, slot = offsets[v], d = g.degree(v); i < d; i++, slot++) {
+                targets[slot] = g.neighbor(v, i);
+                weights[slot] = g.weight(v, i);
+                edgeIds[slot] = g.edgeId(v, i);
+            }
+        }
+        return new CsrGraph(n, offsets, targets, weights, edgeIds);
+    }
+
+    // the same edges pointing the other way, i.e. the in-edges of every node, built by a counting pass
+    CsrGraph transpose() {
+        int[] counts = new int[nodeCount + 1];
+        for (int slot = 0; slot < edgeCount(); slot++) counts[targets[slot] + 1]++;
+        for (int v = 0; v < nodeCount; v++) counts[v + 1] += counts[v];
+        int[] reversedOffsets = counts.clone();
+        int m = edgeCount();
+        int[] reversedTargets = new int[m];
+        int[] reversedWeights = new int[m];
+        int[] reversedIds = new int[m];
+        for (int v = 0; v < nodeCount; v++) {
+            for (int slot = offsets[v]; slot < offsets[v + 1]; slot++) {
+                int at = counts[targets[slot]]++;
+                reversedTargets[at] = v;
+                reversedWeights[at] = weights[slot];
+                reversedIds[at] = edgeIds[slot];
+            }
+        }
+        return new CsrGraph(nodeCount, reversedOffsets, reversedTargets, reversedWeights, reversedIds);
+    }
+
+    // every edge in both directions: the out-edges of a node, then its in-edges, like the undirected live view
+    CsrGraph symmetric() {
+        CsrGraph in = transpose();
+        int[] bothOffsets = new int[nodeCount + 1];
+        for (int v = 0; v < nodeCount; v++) bothOffsets[v + 1] = bothOffsets[v] + degree(v) + in.degree(v);
+        int m = bothOffsets[nodeCount];
+        int[] bothTargets = new int[m];
+        int[] bothWeights = new int[m];
+        int[] bothIds = new int[m];
+        for (int v = 0; v < nodeCount; v++) {
+            int at = copyRow(v, bothTargets, bothWeights, bothIds, bothOffsets[v]);
+            in.copyRow(v, bothTargets, bothWeights, bothIds, at);
+        }
+        return new CsrGraph(nodeCount, bothOffsets, bothTargets, bothWeights, bothIds);
+    }
+
+    // the same graph with every slot of one edge left out, e.g. to see the network after a link fails
+    CsrGraph without(int edge) {
+        int[] keptOffsets = new int[nodeCount + 1];
+        int[] keptTargets = new int[edgeCount()];
+        int[] keptWeights = new int[edgeCount()];
+        int[] keptIds = new int[edgeCount()];
+        int m = 0;
+        for (int v = 0; v < nodeCount; v++) {
+            for (int slot = offsets[v]; slot < offsets[v + 1]; slot++) {
+                if (edgeIds[slot] == edge) continue;
+                keptTargets[m] = targets[slot];
+                keptWeights[m] = weights[slot];
+                keptIds[m++] = edgeIds[slot];
+            }
+            keptOffsets[v + 1] = m;
+        }
+        return new CsrGraph(nodeCount, keptOffsets, keptTargets, keptWeights, keptIds);
+    }
+
+    // copies the row of v into the arrays at position at and returns the position after it
+    private int copyRow(int v, int[] toTargets, int[] toWeights, int[] toIds, int at) {
+        int from = offsets[v], count = degree(v);
+        System.arraycopy(targets, from, toTargets, at, count);
+        System.arraycopy(weights, from, toWeights, at, count);
+        System.arraycopy(edgeIds, from, toIds, at, count);
+        return at + count;
+    }
+}
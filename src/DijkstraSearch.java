@@ -0,0 +1,77 @@
+/*This class finds the minimum-cost path with Dijkstra's algorithm, treating Edge.weight as the link
+  cost. Distances, parents and the indexed heap are primitive arrays reused between queries.
+ */
+public class DijkstraSearch extends SearchTree {
+    private final IntMinHeap heap = new IntMinHeap();
+    private long[] dist = new long[0];
+    // a node's dist is valid when mark[v] == stamp, settled when done[v] == stamp
+    private int[] mark = new int[0];
+    private int[] done = new int[0];
+    private int stamp = 0;
+    private int settledCount;
+
+    private void ensureCapacity(int n) {
+        if (ensureTree(n)) {
+            dist = new long[parent.length];
+            mark = new int[parent.length];
+            done = new int[parent.length];
+            stamp = 0;
+        }
+        if (++stamp == 0) {
+            java.util.Arrays.fill(mark, 0);
+            java.util.Arrays.fill(done, 0);
+            stamp = 1;
+        }
+        heap.reset(n);
+    }
+
+/*  Settles nodes in order of distance from src until dst is settled (pass -1 to settle every
+    reachable node). The listener sees a visit when a node is settled and an enqueue whenever
+    a shorter distance to a node is found. Returns true when dst was reached.
+ */
+    public boolean run(GraphView g, int src, int dst, SearchListener listener) {
+        ensureCapacity(g.nodeCapacity());
+        settledCount = 0;
+        dist[src] = 0;
+        mark[src] = stamp;
+        parent[src] = -1;
+        parentEdge[src] = -1;
+        heap.push(src, 0);
+
+        while (!heap.isEmpty()) {
+            int current = heap.pop();
+            done[current] = stamp;
+            settledCount++;
+            if (listener != null) listener.visit(current);
+            if (current == dst) return true;
+
+            long base = dist[current];
+            for (int i = 0, d = g.degree(current); i < d; i++) {
+                int neighbor = g.neighbor(current, i);
+                if (done[neighbor] == stamp) continue;
+                long candidate = base + g.weight(current, i);
+                if (mark[neighbor] != stamp || candidate < dist[neighbor]) {
+                    mark[neighbor] = stamp;
+                    dist[neighbor] = candidate;
+                    parent[neighbor] = current;
+                    parentEdge[neighbor] = g.edgeId(current, i);
+                    heap.push(neighbor, candidate);
+                    if (listener != null) listener.enqueue(neighbor, current);
+                }
+            }
+        }
+        return false;
+    }
+
+    public boolean isReached(int v) {
+        return v < mark.length && mark[v] == stamp;
+    }
+
+    public long distanceTo(int v) {
+        return dist[v];
+    }
+
+    public int settledCount() {
+        return settledCount;
+    }
+}
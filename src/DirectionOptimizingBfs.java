@@ -0,0 +1,155 @@
+/*This class runs a direction-optimizing BFS: levels are expanded top-down (frontier nodes push
+  to their neighbours) while the frontier is small, and bottom-up (unvisited nodes look for a
+  parent in the frontier) while it is large. Frontier, next level and visited set are bitsets.
+  The switch uses the usual edge-count heuristic: go bottom-up once the frontier's edges exceed
+  1/ALPHA of the unexplored edges, come back once the frontier drops below 1/BETA of the nodes.
+ */
+import java.util.Arrays;
+
+public class DirectionOptimizingBfs extends SearchTree {
+    private static final int ALPHA = 14;
+    private static final int BETA = 24;
+
+    private long[] frontier = new long[0];
+    private long[] next = new long[0];
+    private long[] visited = new long[0];
+
+    // statistics of the last run
+    private long edgesChecked;
+    private int topDownLevels;
+    private int bottomUpLevels;
+
+/*  Same contract as BfsSearch.run. out is the view that is searched and in is its reverse
+    (equal to out for undirected graphs); bottom-up steps need in to find parents.
+    Nodes are visited level by level, in increasing id order inside a level.
+ */
+    public boolean run(GraphView out, GraphView in, int src, int dst, SearchListener listener) {
+        int n = out.nodeCapacity();
+        ensureTree(n);
+        int words = (n + 63) >>> 6;
+        if (frontier.length < words) {
+            frontier = new long[words];
+            next = new long[words];
+            visited = new long[words];
+        } else {
+            Arrays.fill(frontier, 0, words, 0);
+            Arrays.fill(visited, 0, words, 0);
+        }
+        edgesChecked = 0;
+        topDownLevels = 0;
+        bottomUpLevels = 0;
+
+        long unexploredEdges = 0;
+        for (int v = 0; v < n; v++) unexploredEdges += out.degree(v);
+
+        set(frontier, src);
+        set(visited, src);
+        parent[src] = -1;
+        parentEdge[src] = -1;
+        int frontierSize = 1;
+        long frontierEdges = out.degree(src);
+        boolean bottomUp = false;
+
+        while (frontierSize > 0) {
+            for (int w = 0; w < words; w++) {
+                for (long bits = frontier[w]; bits != 0; bits &= bits - 1) {
+                    int v = (w << 6) | Long.numberOfTrailingZeros(bits);
+                    if (listener != null) listener.visit(v);
+                    if (v == dst) return true;
+                }
+            }
+            unexploredEdges -= frontierEdges;
+
+            if (!bottomUp && frontierEdges > unexploredEdges / ALPHA) {
+                bottomUp = true;
+            } else if (bottomUp && frontierSize < n / BETA) {
+                bottomUp = false;
+            }
+
+            Arrays.fill(next, 0, words, 0);
+            if (bottomUp) {
+                bottomUpStep(in, words, n, listener);
+                bottomUpLevels++;
+            } else {
+                topDownStep(out, words, listener);
+                topDownLevels++;
+            }
+
+            long[] swap = frontier;
+            frontier = next;
+            next = swap;
+            frontierSize = 0;
+            frontierEdges = 0;
+            for (int w = 0; w < words; w++) {
+                for (long bits = frontier[w]; bits != 0; bits &= bits - 1) {
+                    int v = (w << 6) | Long.numberOfTrailingZeros(bits);
+                    frontierSize++;
+                    frontierEdges += out.degree(v);
+                }
+            }
+        }
+        return false;
+    }
+
+    private void topDownStep(GraphView out, int words, SearchListener listener) {
+        for (int w = 0; w < words; w++) {
+            for (long bits = frontier[w]; bits != 0; bits &= bits - 1) {
+                int v = (w << 6) | Long.numberOfTrailingZeros(bits);
+                for (int i = 0, d = out.degree(v); i < d; i++) {
+                    edgesChecked++;
+                    int u = out.neighbor(v, i);
+                    if (!get(visited, u)) {
+                        set(visited, u);
+                        set(next, u);
+                        parent[u] = v;
+                        parentEdge[u] = out.edgeId(v, i);
+                        if (listener != null) listener.enqueue(u, v);
+                    }
+                }
+            }
+        }
+    }
+
+    // every unvisited node stops scanning its in-edges at the first parent found in the frontier
+    private void bottomUpStep(GraphView in, int words, int n, SearchListener listener) {
+        for (int w = 0; w < words; w++) {
+            long unvisited = ~visited[w];
+            if (w == words - 1 && (n & 63) != 0) unvisited &= (1L << (n & 63)) - 1;
+            for (long bits = unvisited; bits != 0; bits &= bits - 1) {
+                int u = (w << 6) | Long.numberOfTrailingZeros(bits);
+                for (int i = 0, d = in.degree(u); i < d; i++) {
+                    edgesChecked++;
+                    int v = in.neighbor(u, i);
+                    if (get(frontier, v)) {
+                        set(next, u);
+                        parent[u] = v;
+                        parentEdge[u] = in.edgeId(u, i);
+                        if (listener != null) listener.enqueue(u, v);
+                        break;
+                    }
+                }
+            }
+        }
+        for (int w = 0; w < words; w++) visited[w] |= next[w];
+    }
+
+    public long edgesChecked() {
+        return edgesChecked;
+    }
+
+    public int topDownLevels() {
+        return topDownLevels;
+    }
+
+    public int bottomUpLevels() {
+        return bottomUpLevels;
+    }
+
+    static boolean get(long[] bits, int i) {
+        return (bits[i >>> 6] & (1L << i)) != 0;
+    }
+
+    static void set(long[] bits, int i) {
+        bits[i >>> 6] |= 1L << i;
+    }
+}
@@ -0,0 +1,274 @@
+/*This class emulates a distance-vector protocol (RIP-style) in synchronous rounds. In every round
+  the routers whose table changed send it to their neighbours. Every receiver then recomputes each
+  route as the cheapest "link cost + the cost that neighbour advertised" over its links, and
+  everything it learns is used in the next round. Costs of infinity or more mean unreachable.
+  With poisoned reverse a router advertises infinity to the neighbour it routes through, which
+  stops loops between two routers but not longer ones.
+
+  The route to one destination never depends on the routes to other destinations, so the
+  emulation runs destination by destination: each core takes whole destinations and plays their
+  rounds, touching only the routers whose entry changed. Every core notes which routers changed
+  in which round, and those sets are merged into the message counts, since a router sends one
+  message per neighbour when any of its entries changed. The result is the same as emulating all
+  routers round by round, but without a table of n * n entries or a barrier per round.
+
+  A failed link is emulated from the converged tables: both ends notice it at once, and the rounds
+  run again until nothing changes. That is where routes count to infinity.
+ */
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+public class DistanceVectorEmulator {
+    private final CsrGraph out;     // a router's routes leave over its out-links
+    private final CsrGraph in;      // its messages go to the routers that have a link to it
+    private final int n;
+    private final int infinity;
+    private final boolean poisonedReverse;
+    private CsrGraph outAfter, inAfter;
+    private int failedFrom = -1, failedTo = -1;
+    private ConvergenceReport initial, afterFailure;
+
+    public DistanceVectorEmulator(GraphView g, int infinity, boolean poisonedReverse) {
+        if (infinity <= 0) throw new IllegalArgumentException("Infinity must be positive.");
+        out = CsrGraph.of(g);
+        in = out.transpose();
+        n = out.nodeCapacity();
+        this.infinity = infinity;
+        this.poisonedReverse = poisonedReverse;
+    }
+
+    // what one core keeps while it plays the rounds of its destinations
+    private final class Worker {
+        final int[] dist = new int[n], hop = new int[n];
+        final int[] before = new int[n], rises = new int[n], lastRound = new int[n];
+        final int[] seen = new int[n];              // stamp per router: touched by this destination's failure phase
+        final int[] received = new int[n];          // round stamp per router: already a receiver in this round
+        int[] senders = new int[n], nextSenders = new int[n];
+        final int[] receivers = new int[n], newDist = new int[n], newHop = new int[n];
+        final int[] touched = new int[n];
+        int stamp = 0, roundStamp = 0, touchedCount;
+        // routers that changed in a round send in the next one: changed[phase].get(round) is a bitset of routers
+        final List<List<long[]>> changed = List.of(new ArrayList<>(), new ArrayList<>());
+        final long[] routeChanges = new long[2];
+        long lost, counting, nanos, failureNanos;
+        int countingRounds;
+
+        void destination(int d, boolean fail) {
+            long start = System.nanoTime();
+            Arrays.fill(dist, infinity);
+            Arrays.fill(hop, -1);
+            dist[d] = 0;
+            senders[0] = d;
+            play(d, out, in, 1, 0);
+            long failed = System.nanoTime();
+            nanos += failed - start;
+            if (!fail) return;
+
+            // the two ends of the failed link recompute at once; whoever changed sends in round 1
+            stamp++;
+            touchedCount = 0;
+            int count = 0;
+            for (int r : new int[]{failedFrom, failedTo}) {
+                if (r < 0) continue;
+                long best = best(r, d, outAfter);
+                if (commit(r, (int) (best >>> 32), (int) best, 0, 1)) nextSenders[count++] = r;
+            }
+            swapSenders();
+            play(d, outAfter, inAfter, count, 1);
+            for (int k = 0; k < touchedCount; k++) {
+                int r = touched[k];
+                if (before[r] < infinity && dist[r] >= infinity) lost++;
+                if (rises[r] > 1) {
+                    counting++;
+                    countingRounds = Math.max(countingRounds, lastRound[r]);
+                }
+            }
+            long spent = System.nanoTime() - failed;
+            failureNanos += spent;
+            nanos += spent;
+        }
+
+        // plays rounds until no router changes; the first round's senders are in senders
+        private void play(int d, CsrGraph links, CsrGraph messages, int count, int phase) {
+            for (int round = 1; count > 0; round++) {
+                int receiverCount = collectReceivers(count, messages);
+                // everyone computes from what was advertised before this round, then all tables change
+                for (int k = 0; k < receiverCount; k++) {
+                    long best = best(receivers[k], d, links);
+                    newDist[k] = (int) (best >>> 32);
+                    newHop[k] = (int) best;
+                }
+                count = 0;
+                for (int k = 0; k < receiverCount; k++) {
+                    if (commit(receivers[k], newDist[k], newHop[k], round, phase)) nextSenders[count++] = receivers[k];
+                }
+                swapSenders();
+            }
+        }
+
+        // changes r's entry; returns true when r has something new to advertise in the next round.
+        // After a failure every entry also keeps its cost from before and how often it went up.
+        private boolean commit(int r, int nd, int nh, int round, int phase) {
+            if (nd == dist[r] && nh == hop[r]) return false;
+            routeChanges[phase]++;
+            if (phase == 1) {
+                if (seen[r] != stamp) {
+                    seen[r] = stamp;
+                    touched[touchedCount++] = r;
+                    before[r] = dist[r];
+                    rises[r] = 0;
+                }
+                if (nd > dist[r]) rises[r]++;
+                lastRound[r] = round;
+            }
+            // with poisoned reverse a new next hop changes what r tells its neighbours
+            boolean advertised = nd != dist[r] || poisonedReverse;
+            dist[r] = nd;
+            hop[r] = nh;
+            if (advertised) mark(phase, round + 1, r);
+            return advertised;
+        }
+
+        // every router with a link to one of this round's senders, once
+        private int collectReceivers(int count, CsrGraph messages) {
+            roundStamp++;
+            int receiverCount = 0;
+            for (int k = 0; k < count; k++) {
+                int s = senders[k];
+                for (int slot = messages.offsets[s], end = messages.offsets[s + 1]; slot < end; slot++) {
+                    int r = messages.targets[slot];
+                    if (received[r] == roundStamp) continue;
+                    received[r] = roundStamp;
+                    receivers[receiverCount++] = r;
+                }
+            }
+            return receiverCount;
+        }
+
+        // cheapest route of r to d over its links, as (cost << 32 | next hop); ties keep the first link
+        private long best(int r, int d, CsrGraph links) {
+            if (r == d) return (long) 0 << 32 | (d & 0xffffffffL);
+            int bestDist = infinity, bestHop = -1;
+            for (int slot = links.offsets[r], end = links.offsets[r + 1]; slot < end; slot++) {
+                int next = links.targets[slot];
+                int advertised = poisonedReverse && hop[next] == r ? infinity : dist[next];
+                if (advertised >= infinity) continue;
+                long cost = (long) advertised + links.weights[slot];
+                if (cost < bestDist) {
+                    bestDist = (int) cost;
+                    bestHop = next;
+                }
+            }
+            return (long) bestDist << 32 | (bestHop & 0xffffffffL);
+        }
+
+        private void swapSenders() {
+            int[] swap = senders;
+            senders = nextSenders;
+            nextSenders = swap;
+        }
+
+        private void mark(int phase, int round, int r) {
+            List<long[]> rounds = changed.get(phase);
+            while (rounds.size() <= round) rounds.add(new long[(n + 63) >>> 6]);
+            rounds.get(round)[r >>> 6] |= 1L << r;
+        }
+    }
+
+/*  Converges from empty tables, then, when failedEdge >= 0, fails that link (both directions when
+    the view is undirected) and converges again. Uses every core.
+ */
+    public void run(int failedEdge) {
+        boolean fail = failedEdge >= 0;
+        failedFrom = failedTo = -1;
+        if (fail) {
+            outAfter = out.without(failedEdge);
+            inAfter = in.without(failedEdge);
+            for (int v = 0; v < n && failedFrom < 0; v++) {
+                for (int slot = out.offsets[v]; slot < out.offsets[v + 1]; slot++) {
+                    if (out.edgeIds[slot] == failedEdge) {
+                        failedFrom = v;
+                        failedTo = out.targets[slot];
+                        break;
+                    }
+                }
+            }
+        }
+        List<Worker> workers = new ArrayList<>();
+        ThreadLocal<Worker> local = ThreadLocal.withInitial(() -> {
+            Worker w = new Worker();
+            synchronized (workers) {
+                workers.add(w);
+            }
+            return w;
+        });
+        long start = System.nanoTime();
+        IntStream.range(0, n).parallel().forEach(d -> local.get().destination(d, fail));
+        long nanos = System.nanoTime() - start;
+
+        // every router advertises its own route in round 1 of the initial convergence
+        List<long[]> initialRounds = merge(workers, 0);
+        if (initialRounds.size() < 2) initialRounds.add(new long[(n + 63) >>> 6]);
+        Arrays.fill(initialRounds.get(1), -1L);
+        long changes0 = 0, changes1 = 0, lost = 0, counting = 0, coreNanos = 0, failureNanos = 0;
+        int countingRounds = 0;
+        for (Worker w : workers) {
+            changes0 += w.routeChanges[0];
+            changes1 += w.routeChanges[1];
+            lost += w.lost;
+            counting += w.counting;
+            countingRounds = Math.max(countingRounds, w.countingRounds);
+            coreNanos += w.nanos;
+            failureNanos += w.failureNanos;
+        }
+        // both phases run inside each destination, so the time is split by the core time each took
+        long failureShare = coreNanos == 0 ? 0 : (long) ((double) nanos * failureNanos / coreNanos);
+        String name = "distance vector" + (poisonedReverse ? " (poisoned reverse)" : "");
+        initial = report(name, initialRounds, in, changes0, 0, 0, 0, nanos - failureShare);
+        afterFailure = fail ? report(name + " after the link failed", merge(workers, 1), inAfter, changes1, lost, counting, countingRounds, failureShare) : null;
+    }
+
+    private List<long[]> merge(List<Worker> workers, int phase) {
+        List<long[]> merged = new ArrayList<>();
+        for (Worker w : workers) {
+            List<long[]> rounds = w.changed.get(phase);
+            for (int t = 0; t < rounds.size(); t++) {
+                if (merged.size() <= t) merged.add(new long[(n + 63) >>> 6]);
+                long[] into = merged.get(t), from = rounds.get(t);
+                for (int i = 0; i < into.length; i++) into[i] |= from[i];
+            }
+        }
+        return merged;
+    }
+
+    // a round counts when some router sent in it; every sender sends one message per link to it
+    private ConvergenceReport report(String name, List<long[]> rounds, CsrGraph messages, long updates, long lost, long counting,
+                                     int countingRounds, long nanos) {
+        int lastRound = 0;
+        long sent = 0;
+        for (int t = 1; t < rounds.size(); t++) {
+            long[] senders = rounds.get(t);
+            long roundMessages = 0;
+            for (int w = 0; w < senders.length; w++) {
+                for (long bits = senders[w]; bits != 0; bits &= bits - 1) {
+                    int r = (w << 6) | Long.numberOfTrailingZeros(bits);
+                    if (r < n) roundMessages += messages.degree(r);
+                }
+            }
+            if (roundMessages > 0) lastRound = t;
+            sent += roundMessages;
+        }
+        return new ConvergenceReport(name, lastRound, sent, updates, lost, counting, countingRounds, nanos);
+    }
+
+    public ConvergenceReport initial() {
+        return initial;
+    }
+
+    // null when run() did not fail a link
+    public ConvergenceReport afterFailure() {
+        return afterFailure;
+    }
+}
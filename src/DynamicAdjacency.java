@@ -0,0 +1,339 @@
+/*This class keeps the adjacency of the editable graph up to date one change at a time.
+  Every node has a row of outgoing and a row of incoming edges, and every edge remembers its
+  slot in both rows, so adding or removing an edge is O(1) and removing a node is O(degree).
+  The directed and undirected views read the same rows.
+
+  A row is {count, edge, other end, weight, edge, other end, weight, ...} so a search reads one
+  array per node. freeze() publishes the current rows as an immutable Version in O(1): rows and
+  row pages are copy-on-write (see VersionedArray), so the next edits copy only the rows and
+  pages they touch and the published version never changes underneath a search.
+ */
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+public class DynamicAdjacency {
+    // shared rows that are never written: a new node has NO_EDGES, a removed one DEAD
+    private static final int[] NO_EDGES = {0};
+    private static final int[] DEAD = {0};
+
+    private final Version live = new Version();
+    // generation of the rows array in which this writer last copied each row, so it owns it
+    private int[] outOwner = new int[16];
+    private int[] inOwner = new int[16];
+    private int[] freeNodes = new int[16];
+    private int freeNodeCount = 0;
+
+    // edges, only read by the writer
+    private int edgeCapacity = 0;
+    private int[] from = new int[16];
+    private int[] to = new int[16];
+    private int[] weight = new int[16];
+    private int[] outSlot = new int[16];
+    private int[] inSlot = new int[16];
+    private int[] freeEdges = new int[16];
+    private int freeEdgeCount = 0;
+
+    public int addNode() {
+        int v;
+        if (freeNodeCount > 0) {
+            v = freeNodes[--freeNodeCount];
+        } else {
+            v = live.nodeCapacity++;
+            if (v == outOwner.length) {
+                outOwner = Arrays.copyOf(outOwner, v * 2);
+                inOwner = Arrays.copyOf(inOwner, v * 2);
+            }
+        }
+        live.out.set(v, NO_EDGES);
+        live.in.set(v, NO_EDGES);
+        outOwner[v] = 0;
+        inOwner[v] = 0;
+        live.nodeCount++;
+        return v;
+    }
+
+    // removes every edge touching v (reporting each id to removedEdge) and frees the id
+    public void removeNode(int v, IntConsumer removedEdge) {
+        while (live.out.get(v)[0] > 0) {
+            int[] row = live.out.get(v);
+            int e = row[1 + 3 * (row[0] - 1)];
+            if (removedEdge != null) removedEdge.accept(e);
+            removeEdge(e);
+        }
+        while (live.in.get(v)[0] > 0) {
+            int[] row = live.in.get(v);
+            int e = row[1 + 3 * (row[0] - 1)];
+            if (removedEdge != null) removedEdge.accept(e);
+            removeEdge(e);
+        }
+        live.out.set(v, DEAD);
+        live.in.set(v, DEAD);
+        outOwner[v] = 0;
+        inOwner[v] = 0;
+        if (freeNodeCount == freeNodes.length) freeNodes = Arrays.copyOf(freeNodes, freeNodes.length * 2);
+        freeNodes[freeNodeCount++] = v;
+        live.nodeCount--;
+    }
+
+    public int addEdge(int u, int v, int w) {
+        int e;
+        if (freeEdgeCount > 0) {
+            e = freeEdges[--freeEdgeCount];
+        } else {
+            if (edgeCapacity == from.length) growEdges();
+            e = edgeCapacity++;
+        }
+        from[e] = u;
+        to[e] = v;
+        weight[e] = w;
+        outSlot[e] = append(live.out, outOwner, u, e, v, w);
+        inSlot[e] = append(live.in, inOwner, v, e, u, w);
+        live.edgeCount++;
+        return e;
+    }
+
+    // swap-removes e from both endpoint rows and fixes the slot of the edge that moved
+    public void removeEdge(int e) {
+        int moved = swapRemove(live.out, outOwner, from[e], outSlot[e]);
+        if (moved >= 0) outSlot[moved] = outSlot[e];
+        moved = swapRemove(live.in, inOwner, to[e], inSlot[e]);
+        if (moved >= 0) inSlot[moved] = inSlot[e];
+
+        from[e] = -1;
+        to[e] = -1;
+        if (freeEdgeCount == freeEdges.length) freeEdges = Arrays.copyOf(freeEdges, freeEdges.length * 2);
+        freeEdges[freeEdgeCount++] = e;
+        live.edgeCount--;
+    }
+
+    // the row of v, copied first unless this writer already owns it, with room for extra more edges
+    private static int[] writableRow(VersionedArray<int[]> rows, int[] owner, int v, int extra) {
+        int[] row = rows.get(v);
+        int needed = 1 + 3 * (row[0] + extra);
+        if (owner[v] == rows.generation() && row.length >= needed) return row;
+        int length = row.length >= needed ? row.length : Math.max(needed, 1 + 3 * Math.max(4, 2 * row[0]));
+        int[] copy = Arrays.copyOf(row, length);
+        rows.set(v, copy);
+        owner[v] = rows.generation();
+        return copy;
+    }
+
+    private static int append(VersionedArray<int[]> rows, int[] owner, int v, int e, int other, int w) {
+        int[] row = writableRow(rows, owner, v, 1);
+        int slot = row[0]++;
+        row[1 + 3 * slot] = e;
+        row[2 + 3 * slot] = other;
+        row[3 + 3 * slot] = w;
+        return slot;
+    }
+
+    // returns the edge that moved into the slot, or -1 when the slot was the last one
+    private static int swapRemove(VersionedArray<int[]> rows, int[] owner, int v, int slot) {
+        int[] row = writableRow(rows, owner, v, 0);
+        int last = --row[0];
+        if (slot == last) return -1;
+        System.arraycopy(row, 1 + 3 * last, row, 1 + 3 * slot, 3);
+        return row[1 + 3 * slot];
+    }
+
+    // published versions keep their rows; the writer starts over with empty ones
+    public void clear() {
+        live.out = new VersionedArray<>();
+        live.in = new VersionedArray<>();
+        live.nodeCapacity = 0;
+        live.nodeCount = 0;
+        live.edgeCount = 0;
+        edgeCapacity = 0;
+        freeNodeCount = 0;
+        freeEdgeCount = 0;
+    }
+
+    // the current rows as a version that no later edit changes; O(1)
+    public Version freeze() {
+        Version version = new Version();
+        version.out = live.out.freeze();
+        version.in = live.in.freeze();
+        version.nodeCapacity = live.nodeCapacity;
+        version.nodeCount = live.nodeCount;
+        version.edgeCount = live.edgeCount;
+        return version;
+    }
+
+    public boolean isLive(int v) {
+        return live.isLive(v);
+    }
+
+    public int nodeCapacity() {
+        return live.nodeCapacity;
+    }
+
+    public int edgeCapacity() {
+        return edgeCapacity;
+    }
+
+    public int nodeCount() {
+        return live.nodeCount;
+    }
+
+    public int edgeCount() {
+        return live.edgeCount;
+    }
+
+    public int from(int e) {
+        return from[e];
+    }
+
+    public int to(int e) {
+        return to[e];
+    }
+
+    public int weight(int e) {
+        return weight[e];
+    }
+
+    public int outDegree(int v) {
+        return live.out.get(v)[0];
+    }
+
+    public int outEdge(int v, int i) {
+        return live.out.get(v)[1 + 3 * i];
+    }
+
+    public int inDegree(int v) {
+        return live.in.get(v)[0];
+    }
+
+    public int inEdge(int v, int i) {
+        return live.in.get(v)[1 + 3 * i];
+    }
+
+    // the live rows, only for the thread that edits; other threads search a frozen Version
+    public GraphView view(boolean directed) {
+        return live.view(directed);
+    }
+
+    // edges walked against their direction; the same as view(false) for undirected graphs
+    public GraphView reverseView(boolean directed) {
+        return live.reverseView(directed);
+    }
+
+    private void growEdges() {
+        int size = from.length * 2;
+        from = Arrays.copyOf(from, size);
+        to = Arrays.copyOf(to, size);
+        weight = Arrays.copyOf(weight, size);
+        outSlot = Arrays.copyOf(outSlot, size);
+        inSlot = Arrays.copyOf(inSlot, size);
+    }
+
+/*  Node rows and counts. The writer's own instance changes with every edit; the ones freeze()
+    returns are never written after they are made.
+ */
+    public static final class Version {
+        private VersionedArray<int[]> out = new VersionedArray<>();
+        private VersionedArray<int[]> in = new VersionedArray<>();
+        private int nodeCapacity, nodeCount, edgeCount;
+        private final GraphView directedView = new DirectedView();
+        private final GraphView undirectedView = new UndirectedView();
+        private final GraphView reverseView = new ReverseView();
+
+        private Version() {
+        }
+
+        public boolean isLive(int v) {
+            return v >= 0 && v < nodeCapacity && out.get(v) != DEAD;
+        }
+
+        public int nodeCapacity() {
+            return nodeCapacity;
+        }
+
+        public int nodeCount() {
+            return nodeCount;
+        }
+
+        public int edgeCount() {
+            return edgeCount;
+        }
+
+        public GraphView view(boolean directed) {
+            return directed ? directedView : undirectedView;
+        }
+
+        public GraphView reverseView(boolean directed) {
+            return directed ? reverseView : undirectedView;
+        }
+
+        // follows the outgoing edges only
+        private class DirectedView implements GraphView {
+            public int nodeCapacity() {
+                return nodeCapacity;
+            }
+
+            public int degree(int v) {
+                return out.get(v)[0];
+            }
+
+            public int neighbor(int v, int i) {
+                return out.get(v)[2 + 3 * i];
+            }
+
+            public int weight(int v, int i) {
+                return out.get(v)[3 + 3 * i];
+            }
+
+            public int edgeId(int v, int i) {
+                return out.get(v)[1 + 3 * i];
+            }
+        }
+
+        // follows the incoming edges only, so neighbour(v, i) is a node with an edge into v
+        private class ReverseView implements GraphView {
+            public int nodeCapacity() {
+                return nodeCapacity;
+            }
+
+            public int degree(int v) {
+                return in.get(v)[0];
+            }
+
+            public int neighbor(int v, int i) {
+                return in.get(v)[2 + 3 * i];
+            }
+
+            public int weight(int v, int i) {
+                return in.get(v)[3 + 3 * i];
+            }
+
+            public int edgeId(int v, int i) {
+                return in.get(v)[1 + 3 * i];
+            }
+        }
+
+        // outgoing edges first, then incoming edges walked backwards
+        private class UndirectedView implements GraphView {
+            public int nodeCapacity() {
+                return nodeCapacity;
+            }
+
+            public int degree(int v) {
+                return out.get(v)[0] + in.get(v)[0];
+            }
+
+            public int neighbor(int v, int i) {
+                int[] row = out.get(v);
+                return i < row[0] ? row[2 + 3 * i] : in.get(v)[2 + 3 * (i - row[0])];
+            }
+
+            public int weight(int v, int i) {
+                int[] row = out.get(v);
+                return i < row[0] ? row[3 + 3 * i] : in.get(v)[3 + 3 * (i - row[0])];
+            }
+
+            public int edgeId(int v, int i) {
+                int[] row = out.get(v);
+                return i < row[0] ? row[1 + 3 * i] : in.get(v)[1 + 3 * (i - row[0])];
+            }
+        }
+    }
+}
@@ -0,0 +1,255 @@
+/*This class keeps the shortest-cost tree from one source up to date while the topology changes,
+  so link-failure what-ifs do not need a full Dijkstra per change.
+  - Deleting a non-tree edge changes nothing.
+  - Deleting a tree edge detaches the subtree below it. Only those nodes are reset, seeded with
+    their best edge from the rest of the tree, and settled again with a heap.
+  - Adding an edge (or restoring one with undo) only relaxes downstream nodes that get cheaper.
+  Children are kept as intrusive sibling lists so a subtree can be walked without a search.
+ */
+import java.util.Arrays;
+
+public class DynamicShortestPathTree extends SearchTree implements TopologyListener {
+    private static final long UNREACHABLE = Long.MAX_VALUE;
+
+    private final GraphEngine graph;
+    private final IntMinHeap heap = new IntMinHeap();
+    private int source = -1;
+    private long[] dist = new long[0];
+    private int[] firstChild = new int[0];
+    private int[] nextSibling = new int[0];
+    private int[] prevSibling = new int[0];
+    private boolean[] linked = new boolean[0];
+    private boolean[] affected = new boolean[0];
+    private int[] stack = new int[0];
+    private int[] collected = new int[0];
+
+    // work done by the repairs since the last resetRepairStats()
+    private int repairedNodes;
+    private long repairNanos;
+
+    public DynamicShortestPathTree(GraphEngine graph) {
+        this.graph = graph;
+        graph.addTopologyListener(this);
+    }
+
+    public synchronized boolean hasSource() {
+        return source >= 0;
+    }
+
+    public synchronized int source() {
+        return source;
+    }
+
+    // computes the whole tree from scratch; later changes are repaired incrementally.
+    // The tree is built on the current version: edits after it are repaired when they are reported.
+    public synchronized void setSource(int src) {
+        long start = System.nanoTime();
+        GraphVersion version = graph.version();
+        if (src < 0 || !version.isLive(src)) {
+            source = -1;
+            return;
+        }
+        int n = version.nodeCapacity();
+        ensureCapacity(n);
+        source = src;
+        Arrays.fill(dist, 0, n, UNREACHABLE);
+        Arrays.fill(firstChild, 0, n, -1);
+        Arrays.fill(linked, 0, n, false);
+        Arrays.fill(parent, 0, n, -1);
+        Arrays.fill(parentEdge, 0, n, -1);
+        dist[src] = 0;
+        heap.reset(n);
+        heap.push(src, 0);
+        repairedNodes = propagate(version.view());
+        repairNanos = System.nanoTime() - start;
+    }
+
+    public synchronized void clearSource() {
+        source = -1;
+    }
+
+    public synchronized boolean isReached(int v) {
+        return source >= 0 && v < dist.length && dist[v] != UNREACHABLE;
+    }
+
+    public synchronized long distanceTo(int v) {
+        return dist[v];
+    }
+
+    @Override
+    public synchronized int[] path(int dst) {
+        return super.path(dst);
+    }
+
+    @Override
+    public synchronized int[] pathEdges(int dst) {
+        return super.pathEdges(dst);
+    }
+
+    public synchronized int repairedNodes() {
+        return repairedNodes;
+    }
+
+    public synchronized long repairNanos() {
+        return repairNanos;
+    }
+
+    public synchronized void resetRepairStats() {
+        repairedNodes = 0;
+        repairNanos = 0;
+    }
+
+    @Override
+    public synchronized void nodeAdded(int node) {
+        ensureCapacity(node + 1);
+        dist[node] = UNREACHABLE;
+        parent[node] = -1;
+        parentEdge[node] = -1;
+        firstChild[node] = -1;
+        linked[node] = false;
+    }
+
+    // its edges were already reported, so the node is a leaf or detached by now
+    @Override
+    public synchronized void nodeRemoved(int node) {
+        if (node == source) {
+            source = -1;
+            return;
+        }
+        if (source >= 0 && linked[node]) unlink(node);
+        dist[node] = UNREACHABLE;
+    }
+
+    @Override
+    public synchronized void edgeAdded(int edge, int from, int to, int weight) {
+        if (source < 0) return;
+        long start = System.nanoTime();
+        heap.reset(dist.length);
+        relax(from, to, weight, edge);
+        if (!graph.isDirected()) relax(to, from, weight, edge);
+        repairedNodes += propagate(graph.view());
+        repairNanos += System.nanoTime() - start;
+    }
+
+    @Override
+    public synchronized void edgeRemoved(int edge, int from, int to, int weight) {
+        if (source < 0) return;
+        int child;
+        if (to < parentEdge.length && parentEdge[to] == edge && parent[to] == from) {
+            child = to;
+        } else if (from < parentEdge.length && parentEdge[from] == edge && parent[from] == to) {
+            child = from;
+        } else {
+            return; // not a tree edge, no distance changes
+        }
+        long start = System.nanoTime();
+        unlink(child);
+
+        // reset the detached subtree
+        int count = 0, top = 0;
+        stack[top++] = child;
+        while (top > 0) {
+            int v = stack[--top];
+            affected[v] = true;
+            collected[count++] = v;
+            for (int c = firstChild[v]; c != -1; c = nextSibling[c]) {
+                linked[c] = false;
+                stack[top++] = c;
+            }
+            firstChild[v] = -1;
+            dist[v] = UNREACHABLE;
+            parent[v] = -1;
+            parentEdge[v] = -1;
+        }
+
+        // seed every detached node with its cheapest edge from the part of the tree that survived
+        GraphView reverse = graph.reverseView();
+        heap.reset(dist.length);
+        for (int k = 0; k < count; k++) {
+            int v = collected[k];
+            for (int i = 0, d = reverse.degree(v); i < d; i++) {
+                int w = reverse.neighbor(v, i);
+                if (affected[w] || dist[w] == UNREACHABLE) continue;
+                long candidate = dist[w] + reverse.weight(v, i);
+                if (candidate < dist[v]) {
+                    dist[v] = candidate;
+                    parent[v] = w;
+                    parentEdge[v] = reverse.edgeId(v, i);
+                }
+            }
+            if (dist[v] != UNREACHABLE) heap.push(v, dist[v]);
+        }
+        for (int k = 0; k < count; k++) affected[collected[k]] = false;
+        repairedNodes += Math.max(count, propagate(graph.view()));
+        repairNanos += System.nanoTime() - start;
+    }
+
+    @Override
+    public synchronized void topologyReset() {
+        source = -1;
+    }
+
+    private void relax(int from, int to, int weight, int edge) {
+        if (from >= dist.length || dist[from] == UNREACHABLE) return;
+        long candidate = dist[from] + weight;
+        if (candidate < dist[to]) {
+            if (linked[to]) unlink(to);
+            dist[to] = candidate;
+            parent[to] = from;
+            parentEdge[to] = edge;
+            heap.push(to, candidate);
+        }
+    }
+
+    // Dijkstra from whatever is in the heap; a node joins its parent's child list when it is settled
+    private int propagate(GraphView g) {
+        int settled = 0;
+        while (!heap.isEmpty()) {
+            int v = heap.pop();
+            settled++;
+            if (parent[v] >= 0) link(v, parent[v]);
+            for (int i = 0, d = g.degree(v); i < d; i++) {
+                relax(v, g.neighbor(v, i), g.weight(v, i), g.edgeId(v, i));
+            }
+        }
+        return settled;
+    }
+
+    private void link(int v, int p) {
+        prevSibling[v] = -1;
+        nextSibling[v] = firstChild[p];
+        if (firstChild[p] != -1) prevSibling[firstChild[p]] = v;
+        firstChild[p] = v;
+        linked[v] = true;
+    }
+
+    private void unlink(int v) {
+        if (prevSibling[v] != -1) {
+            nextSibling[prevSibling[v]] = nextSibling[v];
+        } else {
+            firstChild[parent[v]] = nextSibling[v];
+        }
+        if (nextSibling[v] != -1) prevSibling[nextSibling[v]] = prevSibling[v];
+        linked[v] = false;
+    }
+
+    private void ensureCapacity(int n) {
+        if (dist.length >= n) return;
+        int size = Math.max(n, dist.length * 2);
+        int old = dist.length;
+        parent = Arrays.copyOf(parent, size);
+        parentEdge = Arrays.copyOf(parentEdge, size);
+        dist = Arrays.copyOf(dist, size);
+        firstChild = Arrays.copyOf(firstChild, size);
+        nextSibling = Arrays.copyOf(nextSibling, size);
+        prevSibling = Arrays.copyOf(prevSibling, size);
+        linked = Arrays.copyOf(linked, size);
+        affected = Arrays.copyOf(affected, size);
+        stack = new int[size];
+        collected = new int[size];
+        Arrays.fill(dist, old, size, UNREACHABLE);
+        Arrays.fill(firstChild, old, size, -1);
+        Arrays.fill(parent, old, size, -1);
+        Arrays.fill(parentEdge, old, size, -1);
+    }
+}
@@ -2,6 +2,7 @@
 public class Edge{
     Node from, to;
     int weight;
+    int id = -1; // slot in GraphEngine's adjacency
     Edge(Node from, Node to, int weight){
         this.from=from;
         this.to=to;
@@ -0,0 +1,344 @@
+/*This class reads big topology files: one edge per line as "from to [weight]", separated by
+  spaces, tabs, commas or semicolons. That covers SNAP edge lists and CSV exports; lines starting
+  with '#' or '%' are comments, and non-numeric lines (a CSV header) are skipped and counted.
+  Node ids are non-negative integers below 2^31, in any order and with gaps. Weights are rounded
+  to the nearest integer, since the canvas and the searches use integer weights; a line whose
+  weight rounds to less than 1 or does not fit an int is skipped and counted like other bad
+  lines. An optional coordinates file gives positions as "id x y".
+
+  The file is memory-mapped in chunks, and every chunk is parsed in parallel straight from the
+  mapped bytes, without a String per line. A line belongs to the chunk it starts in. Four passes
+  build the CSR arrays with nothing else per edge in memory:
+  1. count the edges of every chunk and find the largest id,
+  2. mark the ids that occur in a bitset, whose rank gives the dense node ids,
+  3. count the out-degree of every node,
+  4. write every edge into its row, then sort each row by edge id so the result does not
+     depend on thread timing.
+ */
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+public class EdgeListImporter {
+    private static final long CHUNK_SIZE = 32 << 20;
+    private static final int MAX_LINE = 1 << 16;
+    private static final long MAX_ID = Integer.MAX_VALUE - 64;
+
+    private interface EdgeVisitor {
+        void edge(Chunk chunk, long from, long to, int weight);
+    }
+
+    // a part of the file; it owns the lines that start in [start, end)
+    private static final class Chunk {
+        final long start, end;
+        long edgeBase;    // edge id of its first edge
+        int edges;
+        int seen;         // edges visited in the current pass
+        long maxId = -1;
+        boolean weighted;
+        int skipped;
+
+        Chunk(long start, long end) {
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    public static ImportedGraph read(Path edgeFile, Path coordinateFile) throws IOException {
+        try (FileChannel channel = FileChannel.open(edgeFile, StandardOpenOption.READ)) {
+            long size = channel.size();
+            List<Chunk> chunks = new ArrayList<>();
+            for (long start = 0; start < size; start += CHUNK_SIZE) {
+                chunks.add(new Chunk(start, Math.min(size, start + CHUNK_SIZE)));
+            }
+
+            // 1. edges per chunk and the largest id
+            pass(channel, size, chunks, (c, from, to, weight) -> {
+                c.edges++;
+                c.maxId = Math.max(c.maxId, Math.max(from, to));
+            });
+            long edgeCount = 0, maxId = -1;
+            int skipped = 0;
+            boolean weighted = false;
+            for (Chunk c : chunks) {
+                c.edgeBase = edgeCount;
+                edgeCount += c.edges;
+                maxId = Math.max(maxId, c.maxId);
+                weighted |= c.weighted;
+                skipped += c.skipped;
+            }
+            if (edgeCount > Integer.MAX_VALUE - 1) throw new IOException("Too many edges: " + edgeCount);
+
+            // 2. ids in use; the dense id of file id f is the number of used ids below f
+            int words = (int) ((maxId + 64) >>> 6);
+            AtomicLongArray used = new AtomicLongArray(words);
+            pass(channel, size, chunks, (c, from, to, weight) -> {
+                mark(used, from);
+                mark(used, to);
+            });
+            // plain copy, the lookups below are hot and the bitset does not change any more
+            long[] bits = new long[words];
+            int[] rank = new int[words + 1];
+            for (int w = 0; w < words; w++) {
+                bits[w] = used.get(w);
+                rank[w + 1] = rank[w] + Long.bitCount(bits[w]);
+            }
+            int n = rank[words];
+            long[] fileIds = new long[n];
+            for (int w = 0, v = 0; w < words; w++) {
+                for (long word = bits[w]; word != 0; word &= word - 1) {
+                    fileIds[v++] = ((long) w << 6) | Long.numberOfTrailingZeros(word);
+                }
+            }
+
+            // 3. out-degrees
+            AtomicIntegerArray degree = new AtomicIntegerArray(n);
+            pass(channel, size, chunks, (c, from, to, weight) -> degree.incrementAndGet(dense(rank, bits, from)));
+            int[] offsets = new int[n + 1];
+            for (int v = 0; v < n; v++) offsets[v + 1] = offsets[v] + degree.get(v);
+            AtomicIntegerArray cursor = degree;
+            for (int v = 0; v < n; v++) cursor.set(v, offsets[v]);
+
+            // 4. fill the rows
+            int m = (int) edgeCount;
+            int[] targets = new int[m];
+            int[] weights = new int[m];
+            int[] edgeIds = new int[m];
+            pass(channel, size, chunks, (c, from, to, weight) -> {
+                int slot = cursor.getAndIncrement(dense(rank, bits, from));
+                targets[slot] = dense(rank, bits, to);
+                weights[slot] = weight;
+                edgeIds[slot] = (int) (c.edgeBase + c.seen++);
+            });
+            IntStream.range(0, n).parallel().forEach(v -> sortRow(offsets[v], offsets[v + 1], targets, weights, edgeIds));
+
+            CsrGraph out = new CsrGraph(n, offsets, targets, weights, edgeIds);
+            int[] x = null, y = null;
+            if (coordinateFile != null) {
+                x = new int[n];
+                y = new int[n];
+                readCoordinates(coordinateFile, fileIds, x, y);
+            }
+            return new ImportedGraph(out, fileIds, x, y, weighted, skipped);
+        }
+    }
+
+    private static void mark(AtomicLongArray used, long id) {
+        int w = (int) (id >>> 6);
+        long bit = 1L << id;
+        if ((used.get(w) & bit) == 0) used.getAndAccumulate(w, bit, (a, b) -> a | b);
+    }
+
+    private static int dense(int[] rank, long[] bits, long id) {
+        int w = (int) (id >>> 6);
+        return rank[w] + Long.bitCount(bits[w] & ((1L << id) - 1));
+    }
+
+    // runs one pass over all chunks in parallel; parse errors come back as IOException
+    private static void pass(FileChannel channel, long size, List<Chunk> chunks, EdgeVisitor visitor) throws IOException {
+        try {
+            chunks.parallelStream().forEach(c -> {
+                c.seen = 0;
+                c.skipped = 0;
+                forEachLine(channel, size, c.start, c.end, line -> readEdge(line, c, visitor));
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static void readEdge(LineReader line, Chunk c, EdgeVisitor visitor) {
+        if (!line.atNumber()) {
+            if (!line.atLineEnd()) c.skipped++;
+            return;
+        }
+        long from = line.readId();
+        if (!line.atNumber()) {
+            c.skipped++;
+            return;
+        }
+        long to = line.readId();
+        int weight = 1;
+        if (line.atNumber()) {
+            long rounded = Math.round(line.readDouble());
+            if (rounded <= 0 || rounded > Integer.MAX_VALUE) {
+                c.skipped++;
+                return;
+            }
+            weight = (int) rounded;
+            c.weighted = true;
+        }
+        if (from == to) {
+            c.skipped++; // self-loops are not allowed, like on the canvas
+            return;
+        }
+        visitor.edge(c, from, to, weight);
+    }
+
+    // rows are short, so they are sorted with an insertion sort on the edge ids, carrying target and weight
+    private static void sortRow(int lo, int hi, int[] targets, int[] weights, int[] edgeIds) {
+        for (int i = lo + 1; i < hi; i++) {
+            int id = edgeIds[i], target = targets[i], weight = weights[i];
+            int j = i - 1;
+            if (edgeIds[j] < id) continue;
+            if (hi - lo > 64) {
+                sortLongRow(lo, hi, targets, weights, edgeIds);
+                return;
+            }
+            for (; j >= lo && edgeIds[j] > id; j--) {
+                edgeIds[j + 1] = edgeIds[j];
+                targets[j + 1] = targets[j];
+                weights[j + 1] = weights[j];
+            }
+            edgeIds[j + 1] = id;
+            targets[j + 1] = target;
+            weights[j + 1] = weight;
+        }
+    }
+
+    private static void sortLongRow(int lo, int hi, int[] targets, int[] weights, int[] edgeIds) {
+        long[] keys = new long[hi - lo];
+        for (int i = lo; i < hi; i++) keys[i - lo] = (long) edgeIds[i] << 32 | (i - lo);
+        Arrays.sort(keys);
+        int[] oldTargets = Arrays.copyOfRange(targets, lo, hi);
+        int[] oldWeights = Arrays.copyOfRange(weights, lo, hi);
+        for (int k = 0; k < keys.length; k++) {
+            int from = (int) keys[k];
+            edgeIds[lo + k] = (int) (keys[k] >>> 32);
+            targets[lo + k] = oldTargets[from];
+            weights[lo + k] = oldWeights[from];
+        }
+    }
+
+    // "id x y" per line; ids that are not in the edge list are ignored
+    private static void readCoordinates(Path file, long[] fileIds, int[] x, int[] y) throws IOException {
+        Arrays.fill(x, ImportedGraph.NO_POSITION);
+        Arrays.fill(y, ImportedGraph.NO_POSITION);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            for (long start = 0; start < size; start += CHUNK_SIZE) {
+                forEachLine(channel, size, start, Math.min(size, start + CHUNK_SIZE), line -> {
+                    if (!line.atNumber()) return;
+                    long id = line.readId();
+                    if (!line.atNumber()) return;
+                    double px = line.readDouble();
+                    if (!line.atNumber()) return;
+                    double py = line.readDouble();
+                    int v = Arrays.binarySearch(fileIds, id);
+                    if (v < 0) return;
+                    x[v] = (int) Math.round(px);
+                    y[v] = (int) Math.round(py);
+                });
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static void forEachLine(FileChannel channel, long size, long start, long end, Consumer<LineReader> handler) {
+        long mapStart = Math.max(0, start - 1);
+        long mapEnd = Math.min(size, end + MAX_LINE);
+        LineReader line;
+        try {
+            line = new LineReader(channel.map(FileChannel.MapMode.READ_ONLY, mapStart, mapEnd - mapStart), mapStart, mapEnd == size);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        int owned = (int) (end - mapStart);
+        // the byte before start is either the '\n' ending the previous line or inside a line owned by the previous chunk
+        if (start > 0) line.skipLine();
+        while (line.p < owned && line.p < line.limit) {
+            handler.accept(line);
+            line.skipLine();
+        }
+    }
+
+    // reads the tokens of the current line straight from the mapped bytes
+    private static final class LineReader {
+        final MappedByteBuffer buf;
+        final long base;
+        final int limit;
+        final boolean endOfFile;
+        int p = 0;
+
+        LineReader(MappedByteBuffer buf, long base, boolean endOfFile) {
+            this.buf = buf;
+            this.base = base;
+            this.limit = buf.limit();
+            this.endOfFile = endOfFile;
+        }
+
+        private static boolean isDigit(byte b) {
+            return b >= '0' && b <= '9';
+        }
+
+        private byte peek() {
+            return p < limit ? buf.get(p) : (byte) '\n';
+        }
+
+        private void skipSeparators() {
+            while (p < limit) {
+                byte b = buf.get(p);
+                if (b != ' ' && b != '\t' && b != ',' && b != ';' && b != '\r') break;
+                p++;
+            }
+        }
+
+        boolean atNumber() {
+            skipSeparators();
+            byte b = peek();
+            if (isDigit(b)) return true;
+            return (b == '-' || b == '+' || b == '.') && p + 1 < limit && isDigit(buf.get(p + 1));
+        }
+
+        // empty line or comment
+        boolean atLineEnd() {
+            skipSeparators();
+            byte b = peek();
+            return b == '\n' || b == '#' || b == '%';
+        }
+
+        long readId() {
+            if (!isDigit(peek())) throw error("node ids must be non-negative integers");
+            long value = 0;
+            while (p < limit && isDigit(buf.get(p))) {
+                value = value * 10 + (buf.get(p++) - '0');
+                if (value > MAX_ID) throw error("node id too large (at most " + MAX_ID + ")");
+            }
+            return value;
+        }
+
+        // sign, digits and an optional fraction; no exponent
+        double readDouble() {
+            boolean negative = peek() == '-';
+            if (negative || peek() == '+') p++;
+            double value = 0;
+            while (p < limit && isDigit(buf.get(p))) value = value * 10 + (buf.get(p++) - '0');
+            if (peek() == '.') {
+                p++;
+                for (double scale = 0.1; p < limit && isDigit(buf.get(p)); scale /= 10) value += (buf.get(p++) - '0') * scale;
+            }
+            return negative ? -value : value;
+        }
+
+        void skipLine() {
+            while (p < limit && buf.get(p) != '\n') p++;
+            if (p == limit && !endOfFile) throw error("line longer than " + MAX_LINE + " bytes");
+            p++;
+        }
+
+        UncheckedIOException error(String message) {
+            return new UncheckedIOException(new IOException("At byte " + (base + p) + ": " + message));
+        }
+    }
+}
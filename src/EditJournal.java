@@ -0,0 +1,323 @@
+/*This class keeps the edits made on the canvas so they can be undone and redone many levels deep.
+  A step remembers the Node and Edge objects it touched rather than their ids, which are reused,
+  so undoing or redoing it is the same O(degree) engine call the edit was, never a rebuild.
+  Steps only hold references (and a position for moves), and the history is bounded by the number
+  of nodes and edges it holds: the oldest steps are forgotten first, so deleting a big hub costs
+  as many records as it has edges. A new edit drops the steps that could have been redone.
+
+  The history can be written out as a script with one edit per line, by node name:
+      add-node A 120 80     remove-node A      add-edge A B 5     remove-edge A B 5
+      move A 300 40         directed true
+  replay() applies such a script to any graph in O(delta) per line, so a list of topology changes
+  can be run against a big imported graph. Names must not contain spaces.
+ */
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+public class EditJournal {
+    public static final int DEFAULT_CAPACITY = 100_000;
+
+    private enum Kind { ADD_NODE, REMOVE_NODE, ADD_EDGE, REMOVE_EDGE, MOVE, DIRECTED }
+
+    private static final class Step {
+        final Kind kind;
+        final Node node;          // ADD_NODE, REMOVE_NODE, MOVE
+        final Edge[] edges;       // ADD_EDGE (one), REMOVE_EDGE, and the edges REMOVE_NODE took along
+        final int fromX, fromY;   // MOVE: where the node was
+        final int toX, toY;       // MOVE: where it went; ADD_NODE: where it was placed
+        final boolean directed;   // DIRECTED: the new mode
+
+        Step(Kind kind, Node node, Edge[] edges, int fromX, int fromY, int toX, int toY, boolean directed) {
+            this.kind = kind;
+            this.node = node;
+            this.edges = edges;
+            this.fromX = fromX;
+            this.fromY = fromY;
+            this.toX = toX;
+            this.toY = toY;
+            this.directed = directed;
+        }
+
+        int records() {
+            return 1 + edges.length;
+        }
+    }
+
+    private static final Edge[] NO_EDGES = new Edge[0];
+
+    private final GraphEngine graph;
+    private final int capacity;
+    private final Deque<Step> done = new ArrayDeque<>();    // oldest first
+    private final Deque<Step> undone = new ArrayDeque<>();  // next redo first
+    private int records = 0;
+
+    public EditJournal(GraphEngine graph) {
+        this(graph, DEFAULT_CAPACITY);
+    }
+
+    public EditJournal(GraphEngine graph, int capacity) {
+        this.graph = graph;
+        this.capacity = capacity;
+    }
+
+    // record an edit after it was made on the graph
+    public void nodeAdded(Node node) {
+        record(new Step(Kind.ADD_NODE, node, NO_EDGES, 0, 0, node.x, node.y, false));
+    }
+
+    public void nodeRemoved(Node node, List<Edge> edges) {
+        record(new Step(Kind.REMOVE_NODE, node, edges.toArray(NO_EDGES), 0, 0, 0, 0, false));
+    }
+
+    public void edgeAdded(Edge edge) {
+        record(new Step(Kind.ADD_EDGE, null, new Edge[] {edge}, 0, 0, 0, 0, false));
+    }
+
+    public void edgesRemoved(List<Edge> edges) {
+        record(new Step(Kind.REMOVE_EDGE, null, edges.toArray(NO_EDGES), 0, 0, 0, 0, false));
+    }
+
+    // a drag from (fromX, fromY) to where the node is now; a click without moving is no edit
+    public void nodeMoved(Node node, int fromX, int fromY) {
+        if (node.x == fromX && node.y == fromY) return;
+        record(new Step(Kind.MOVE, node, NO_EDGES, fromX, fromY, node.x, node.y, false));
+    }
+
+    public void directedChanged(boolean directed) {
+        record(new Step(Kind.DIRECTED, null, NO_EDGES, 0, 0, 0, 0, directed));
+    }
+
+    private void record(Step step) {
+        for (Step s : undone) records -= s.records();
+        undone.clear();
+        done.addLast(step);
+        records += step.records();
+        // the newest step stays even when it alone is over the capacity, so it can always be undone
+        while (records > capacity && done.size() > 1) records -= done.removeFirst().records();
+    }
+
+    public boolean canUndo() {
+        return !done.isEmpty();
+    }
+
+    public boolean canRedo() {
+        return !undone.isEmpty();
+    }
+
+    public int undoSteps() {
+        return done.size();
+    }
+
+    public int redoSteps() {
+        return undone.size();
+    }
+
+    // graphs replaced as a whole (reset, import, open, replay) start a new history
+    public void clear() {
+        done.clear();
+        undone.clear();
+        records = 0;
+    }
+
+    // reverts the newest step and returns what it was, or null when there is nothing to undo
+    public String undo() {
+        Step step = done.pollLast();
+        if (step == null) return null;
+        switch (step.kind) {
+            case ADD_NODE:
+                graph.removeNode(step.node);
+                break;
+            case REMOVE_NODE:
+                graph.addNode(step.node);
+                for (Edge e : step.edges) graph.addEdge(e);
+                break;
+            case ADD_EDGE:
+                graph.removeEdge(step.edges[0]);
+                break;
+            case REMOVE_EDGE:
+                for (Edge e : step.edges) graph.addEdge(e);
+                break;
+            case MOVE:
+                graph.moveNode(step.node, step.fromX, step.fromY);
+                break;
+            case DIRECTED:
+                graph.setDirected(!step.directed);
+                break;
+        }
+        undone.push(step);
+        return describe(step);
+    }
+
+    // makes the last undone step again, or returns null when there is nothing to redo
+    public String redo() {
+        Step step = undone.poll();
+        if (step == null) return null;
+        switch (step.kind) {
+            case ADD_NODE:
+                graph.addNode(step.node);
+                break;
+            case REMOVE_NODE:
+                graph.removeNode(step.node);
+                break;
+            case ADD_EDGE:
+                graph.addEdge(step.edges[0]);
+                break;
+            case REMOVE_EDGE:
+                for (Edge e : step.edges) graph.removeEdge(e);
+                break;
+            case MOVE:
+                graph.moveNode(step.node, step.toX, step.toY);
+                break;
+            case DIRECTED:
+                graph.setDirected(step.directed);
+                break;
+        }
+        done.addLast(step);
+        return describe(step);
+    }
+
+    private String describe(Step step) {
+        switch (step.kind) {
+            case ADD_NODE:
+                return "added node " + step.node.name;
+            case REMOVE_NODE:
+                return "deleted node " + step.node.name + " and its " + step.edges.length + " edges";
+            case ADD_EDGE:
+                return "added edge " + arrow(step.edges[0]);
+            case REMOVE_EDGE:
+                return "deleted edge " + arrow(step.edges[0]) + (step.edges.length > 1 ? " (" + step.edges.length + " edges)" : "");
+            case MOVE:
+                return "moved node " + step.node.name;
+            default:
+                return "made the graph " + (step.directed ? "directed" : "undirected");
+        }
+    }
+
+    private String arrow(Edge e) {
+        return e.from.name + (graph.isDirected() ? " -> " : " <-> ") + e.to.name;
+    }
+
+    // writes the steps that can be undone, oldest first, as a script replay() reads
+    public void export(Path file) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.write("# " + done.size() + " edits");
+            out.newLine();
+            for (Step step : done) {
+                switch (step.kind) {
+                    case ADD_NODE:
+                        line(out, "add-node " + step.node.name + " " + step.toX + " " + step.toY);
+                        break;
+                    case REMOVE_NODE:
+                        line(out, "remove-node " + step.node.name);
+                        break;
+                    case ADD_EDGE:
+                        line(out, "add-edge " + edgeText(step.edges[0]));
+                        break;
+                    case REMOVE_EDGE:
+                        for (Edge e : step.edges) line(out, "remove-edge " + edgeText(e));
+                        break;
+                    case MOVE:
+                        line(out, "move " + step.node.name + " " + step.toX + " " + step.toY);
+                        break;
+                    case DIRECTED:
+                        line(out, "directed " + step.directed);
+                        break;
+                }
+            }
+        }
+    }
+
+    private static void line(BufferedWriter out, String text) throws IOException {
+        out.write(text);
+        out.newLine();
+    }
+
+    private static String edgeText(Edge e) {
+        return e.from.name + " " + e.to.name + " " + e.weight;
+    }
+
+    // what a replay did: lines applied, and lines skipped because they were malformed or did not
+    // fit the graph (unknown node, taken name, missing edge)
+    public static final class Replay {
+        public final int applied, skipped;
+
+        Replay(int applied, int skipped) {
+            this.applied = applied;
+            this.skipped = skipped;
+        }
+    }
+
+    // applies a script line by line on the calling thread; blank lines and '#' comments are ignored
+    public static Replay replay(GraphEngine graph, Path file) throws IOException {
+        int applied = 0, skipped = 0;
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) continue;
+                boolean ok;
+                try {
+                    ok = apply(graph, line.split("\\s+"));
+                } catch (IllegalArgumentException e) { // bad numbers, taken names
+                    ok = false;
+                }
+                if (ok) applied++;
+                else skipped++;
+            }
+        }
+        return new Replay(applied, skipped);
+    }
+
+    private static boolean apply(GraphEngine graph, String[] words) {
+        switch (words[0]) {
+            case "add-node": {
+                if (words.length != 4) return false;
+                graph.addNode(new Node(words[1], Integer.parseInt(words[2]), Integer.parseInt(words[3])));
+                return true;
+            }
+            case "remove-node": {
+                Node node = words.length == 2 ? graph.getNodeByName(words[1]) : null;
+                if (node == null) return false;
+                graph.removeNode(node);
+                return true;
+            }
+            case "add-edge": {
+                if (words.length != 4) return false;
+                Node from = graph.getNodeByName(words[1]), to = graph.getNodeByName(words[2]);
+                int weight = Integer.parseInt(words[3]);
+                if (from == null || to == null || from == to || weight <= 0) return false;
+                graph.addEdge(new Edge(from, to, weight));
+                return true;
+            }
+            case "remove-edge": {
+                if (words.length != 3 && words.length != 4) return false;
+                Node from = graph.getNodeByName(words[1]), to = graph.getNodeByName(words[2]);
+                if (from == null || to == null) return false;
+                Edge edge = graph.findEdge(from, to, words.length == 4 ? Integer.parseInt(words[3]) : -1);
+                if (edge == null) return false;
+                graph.removeEdge(edge);
+                return true;
+            }
+            case "move": {
+                Node node = words.length == 4 ? graph.getNodeByName(words[1]) : null;
+                if (node == null) return false;
+                graph.moveNode(node, Integer.parseInt(words[2]), Integer.parseInt(words[3]));
+                return true;
+            }
+            case "directed": {
+                if (words.length != 2) return false;
+                graph.setDirected(Boolean.parseBoolean(words[1]));
+                return true;
+            }
+            default:
+                return false;
+        }
+    }
+}
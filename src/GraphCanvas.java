@@ -4,31 +4,105 @@
  */
 import java.awt.*;
 import java.awt.event.*;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.IntFunction;
 import javax.swing.*;
 
 
 public class GraphCanvas extends JPanel {
-    private final List<Node> nodes = new ArrayList<>();
-    private final List<Edge> edges = new ArrayList<>();
-    private final Map<String, List<Edge>> adjacencyList = new HashMap<>();
-    private final List<Node> nodeVisited = new ArrayList<>();
-    private final List<Edge> edgePath = new ArrayList<>();
+    private final GraphEngine graph = new GraphEngine();
+    // search state for painting, as bitsets over node and edge ids
+    private final BitSet nodeVisited = new BitSet();
+    private final BitSet nodeVisitedBackward = new BitSet(); // bidirectional search, grown from the destination
+    private final BitSet edgePath = new BitSet();
+    // nodes shaded by a reachability query, and the sources it started from
+    private final BitSet shadedNodes = new BitSet();
+    private final BitSet shadedSources = new BitSet();
+    private static final Color SHADE_COLOR = new Color(255, 200, 200);
+    private static final Color SHADE_SOURCE_COLOR = new Color(240, 110, 110);
+    // answers of "Run Queries" still on the canvas, each path in the colour of its number
+    private final QueryScheduler scheduler = new QueryScheduler(graph);
+    // "Start" searches run one after another on this thread, so they reuse one set of search arrays
+    private final ExecutorService searchThread = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "search");
+        t.setDaemon(true);
+        return t;
+    });
+    private final List<RouteQuery> shownQueries = new ArrayList<>();
+    private static final Color[] QUERY_COLORS = {new Color(30, 90, 220), new Color(0, 150, 60), Color.MAGENTA,
+            new Color(140, 60, 200), new Color(0, 130, 130), new Color(150, 90, 30), new Color(230, 120, 0), Color.GRAY};
+    private static final String[] QUERY_COLOR_NAMES = {"blue", "green", "magenta", "purple", "teal", "brown", "orange", "gray"};
+    // busiest direction of every edge in the last traffic simulation, by edge id; null when none is shown
+    private float[] edgeLoad = null;
+    private static final Color[] LOAD_COLORS = loadColors();
     private MessageConsole logPanel;
     private Node draggingNode = null;
     private Point dragOffset = null;
+    private int dragStartX, dragStartY;
     private Node selectedForEdge = null;
     private Node srcNode = null;
+    private final List<Node> sourceNodes = new ArrayList<>(); // all of them when several sources are given
     private Node destNode = null;
+    // the pair whose lowest-cost path the shortest-path tree follows across edits, set on the EDT
+    private Node trackedSrc = null, trackedDest = null;
+    private SearchMode searchMode = SearchMode.BFS;
+    // searches run at full speed into a trace, which the player animates on the event dispatch thread
+    private final TracePlayer player = new TracePlayer();
+    private boolean animated = true;
+    private volatile int removals = 0; // node and edge ids freed so far, a trace or result is stale once it changes
     private int nodeCounter = 0;
     private Image bgImage;
     private final Image worldImage;
     private final Image paperImage;
     private boolean isPaperView = false;
-    private Object lastDeleted = null; // Tracks the last deleted item (Node or Edge)
-    private final List<Edge> lastDeletedEdges = new ArrayList<>();
-    private boolean isDirected = false;
+    // every edit made here, for Undo, Redo and Export Edits
+    private final EditJournal journal = new EditJournal(graph);
+
+    // view transform: screen = world * scale + offset; node coordinates are world coordinates
+    private double scale = 1.0;
+    private double offsetX = 0, offsetY = 0;
+    private Point panStart = null;
+    private static final double MIN_SCALE = 0.02, MAX_SCALE = 8.0;
+    // level of detail: below LABEL_SCALE weights and names are skipped, below CIRCLE_SCALE nodes become points
+    private static final double LABEL_SCALE = 0.5, CIRCLE_SCALE = 0.2;
+
+    // paint objects are created once instead of per edge and per node
+    private static final BasicStroke THIN_STROKE = new BasicStroke(1);
+    private static final BasicStroke EDGE_STROKE = new BasicStroke(2);
+    private static final BasicStroke PATH_STROKE = new BasicStroke(3);
+    private static final Font TAG_FONT = new Font("Arial", Font.BOLD, 14);
+    private static final Font LABEL_FONT = new Font("Arial", Font.BOLD, 16);
+    private FontMetrics labelMetrics = null;
+    private final int[] arrowX = new int[3];
+    private final int[] arrowY = new int[3];
+    private final int[] visibleCount = new int[1];
+    private int[] visibleIds = new int[256];
+    private int[] visibleEdgeIds = new int[256];
+
+    // visible part of the world, grown by a node radius so circles cut by the border still show
+    private static final int VIEW_MARGIN = 60;
+    private int viewX, viewY, viewWidth, viewHeight;
+    private int viewLeft, viewTop, viewRight, viewBottom;
+
+    // cached layers: the background scaled to the panel, and the graph with no search state on it.
+    // A frame is two image copies plus the overlay, which only holds what changes while the user
+    // watches: visited nodes, the path, the selection, the S/D tags and the node being dragged.
+    private BufferedImage backgroundLayer;
+    private Image backgroundLayerSource;
+    private BufferedImage graphLayer;
+    private volatile boolean graphLayerValid = false;
+    // the view offset the graph layer was drawn at; a pan only shifts the layer until it ends
+    private double layerOffsetX = 0, layerOffsetY = 0;
+    private final BitSet overlayNodes = new BitSet();
 
     public GraphCanvas() {
         setBackground(Color.WHITE);
@@ -51,28 +125,81 @@ public class GraphCanvas extends JPanel {
             System.err.println("Warning: Both images failed to load. Using default background.");
         }
 
+        graph.addTopologyListener(new TopologyListener() {
+            public void nodeAdded(int node) {
+                graphLayerValid = false;
+            }
+
+            // ids are reused, so forget the paint state of anything that goes away
+            public void nodeRemoved(int node) {
+                nodeVisited.clear(node);
+                nodeVisitedBackward.clear(node);
+                shadedNodes.clear(node);
+                shadedSources.clear(node);
+                graphLayerValid = false;
+                graphChanged();
+            }
+
+            public void edgeAdded(int edge, int from, int to, int weight) {
+                graphLayerValid = false;
+            }
+
+            public void edgeRemoved(int edge, int from, int to, int weight) {
+                edgePath.clear(edge);
+                if (edgeLoad != null && edge < edgeLoad.length) edgeLoad[edge] = 0;
+                graphLayerValid = false;
+                graphChanged();
+            }
+
+            public void topologyReset() {
+                edgeLoad = null;
+                graphLayerValid = false;
+                graphChanged();
+            }
+        });
+
         addMouseListener(new MouseAdapter() {
 // this allow to detect the clicked node
             public void mousePressed(MouseEvent e) {
-                Node clicked = getNodeAt(e.getPoint());
+                if (!SwingUtilities.isLeftMouseButton(e)) {
+//                    right or middle button pans the view
+                    panStart = e.getPoint();
+                    return;
+                }
+                Point p = toWorld(e.getPoint());
+                Node clicked = getNodeAt(p);
                 if (clicked != null) {
 //                    dragged node
                     draggingNode = clicked;
-                    dragOffset = new Point(e.getX() - clicked.x, e.getY() - clicked.y);
+                    dragOffset = new Point(p.x - clicked.x, p.y - clicked.y);
+                    dragStartX = clicked.x;
+                    dragStartY = clicked.y;
+//                    the dragged node and its edges move to the overlay until it is released
+                    graphLayerValid = false;
                 } else {
 //                    7. add the node
-                    attachNode(e.getX(), e.getY());
+                    attachNode(p.x, p.y);
                 }
             }
 
             public void mouseReleased(MouseEvent e) {
+                if (draggingNode != null) {
+                    journal.nodeMoved(draggingNode, dragStartX, dragStartY);
+                    graphLayerValid = false;
+                    repaint();
+                }
+                if (panStart != null && (offsetX != layerOffsetX || offsetY != layerOffsetY)) {
+                    graphLayerValid = false;
+                    repaint();
+                }
                 draggingNode = null;
                 dragOffset = null;
+                panStart = null;
             }
 // 2. this function help user to add node with a mouse click.
             public void mouseClicked(MouseEvent e) {
-                if (e.getClickCount() == 2) return;
-                Node clicked = getNodeAt(e.getPoint());
+                if (e.getClickCount() == 2 || !SwingUtilities.isLeftMouseButton(e)) return;
+                Node clicked = getNodeAt(toWorld(e.getPoint()));
                 if (clicked != null) {
                     if (selectedForEdge == null) {
                         selectedForEdge = clicked;
@@ -87,7 +214,10 @@ public class GraphCanvas extends JPanel {
                                 selectedForEdge = null;
                                 return;
                             }
-                            edges.add(new Edge(selectedForEdge, clicked, weight));
+                            Edge edge = new Edge(selectedForEdge, clicked, weight);
+                            graph.addEdge(edge);
+                            journal.edgeAdded(edge);
+                            refreshTrackedPath();
                         } catch (Exception ex) {
                             JOptionPane.showMessageDialog(null, "Invalid weight.");
                         }
@@ -103,44 +233,202 @@ public class GraphCanvas extends JPanel {
 
         addMouseMotionListener(new MouseMotionAdapter() {
             public void mouseDragged(MouseEvent e) {
-                if (draggingNode != null && dragOffset != null) {
-                    draggingNode.x = e.getX() - dragOffset.x;
-                    draggingNode.y = e.getY() - dragOffset.y;
+                if (panStart != null) {
+                    offsetX += e.getX() - panStart.x;
+                    offsetY += e.getY() - panStart.y;
+                    panStart = e.getPoint();
+                    repaint();
+                } else if (draggingNode != null && dragOffset != null) {
+                    Point p = toWorld(e.getPoint());
+                    graph.moveNode(draggingNode, p.x - dragOffset.x, p.y - dragOffset.y);
                     repaint();
                 }
             }
         });
+
+//      mouse wheel zooms around the cursor
+        addMouseWheelListener(e -> setZoom(scale * Math.pow(1.1, -e.getPreciseWheelRotation()), e.getX(), e.getY()));
+    }
+
+    public double getZoom() {
+        return scale;
+    }
+
+    // zooms to newScale (clamped) keeping the world point under the screen point (x, y) in place
+    public void setZoom(double newScale, int x, int y) {
+        newScale = Math.max(MIN_SCALE, Math.min(MAX_SCALE, newScale));
+        offsetX = x - (x - offsetX) * newScale / scale;
+        offsetY = y - (y - offsetY) * newScale / scale;
+        scale = newScale;
+        graphLayerValid = false;
+        repaint();
+    }
+
+    private Point toWorld(Point screen) {
+        return new Point((int) Math.floor((screen.x - offsetX) / scale), (int) Math.floor((screen.y - offsetY) / scale));
     }
 
     public void setDirectedgraph(boolean directed) {
-        this.isDirected = directed;
-        updateAdjacencyList();
+        if (graph.isDirected() == directed) return;
+        graph.setDirected(directed);
+        journal.directedChanged(directed);
         repaint();
     }
 
+    public void setSearchMode(SearchMode mode) {
+        this.searchMode = mode;
+    }
+
     public void setOutputPanel(MessageConsole panel) {
         this.logPanel = panel;
     }
-//  3. function to add the source
+//  3. function to add the source; several names separated by spaces or commas make a multi-source BFS
     public void setSource(String name) {
-        srcNode = getNodeByName(name);
+        String[] names = name.trim().split("[\\s,]+");
+        sourceNodes.clear();
+        srcNode = graph.getNodeByName(names[0]);
+        if (names.length == 1) return;
+        for (String sourceName : names) {
+            Node source = graph.getNodeByName(sourceName);
+            if (source == null) {
+                srcNode = null;
+                sourceNodes.clear();
+                return;
+            }
+            if (!sourceNodes.contains(source)) sourceNodes.add(source);
+        }
     }
 //  3. function to add the destination
     public void setDestination(String name) {
-        destNode = getNodeByName(name);
+        destNode = graph.getNodeByName(name);
+    }
+
+/*  Reads a topology file on the calling thread (the GUI uses a worker thread) and then replaces
+    the graph with it on the event dispatch thread.
+ */
+    public void importGraph(Path edgeFile, Path coordinateFile) {
+        if (logPanel != null) logPanel.insertMessage("Importing " + edgeFile.getFileName() + "...");
+        long start = System.nanoTime();
+        ImportedGraph imported;
+        try {
+            imported = EdgeListImporter.read(edgeFile, coordinateFile);
+        } catch (IOException | RuntimeException e) {
+            SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(null, "Could not import " + edgeFile.getFileName() + ": "
+                    + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE));
+            return;
+        }
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        SwingUtilities.invokeLater(() -> {
+            loadGraph(imported);
+            if (logPanel != null) {
+                logPanel.insertMessage("Imported " + imported.nodeCount() + " nodes and " + imported.edgeCount() + " edges in "
+                        + millis + " ms" + (imported.skippedLines > 0 ? " (" + imported.skippedLines + " lines skipped)" : ""));
+            }
+        });
+    }
+
+/*  Replaces the graph with an imported one. Nodes are named by their ids in the file; nodes
+    without a position are laid out on a grid.
+ */
+    public void loadGraph(ImportedGraph imported) {
+        int n = imported.nodeCount();
+        int side = (int) Math.ceil(Math.sqrt(n));
+        replaceGraph(n, v -> {
+            int x = imported.hasPosition(v) ? imported.x[v] : (v % side) * 120 + 60;
+            int y = imported.hasPosition(v) ? imported.y[v] : (v / side) * 120 + 60;
+            return new Node(Long.toString(imported.fileIds[v]), x, y);
+        }, imported.out);
+    }
+
+    public void saveSnapshot(Path file) {
+        long start = System.nanoTime();
+        try {
+            GraphSnapshot.write(file, graph);
+        } catch (IOException | RuntimeException e) {
+            JOptionPane.showMessageDialog(this, "Could not save " + file.getFileName() + ": " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        if (logPanel != null) {
+            logPanel.insertMessage("Saved " + graph.nodeCount() + " nodes and " + graph.adjacency().edgeCount() + " edges to "
+                    + file.getFileName() + " in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+        }
+    }
+
+    // replaces the graph with a saved snapshot, including its direction mode
+    public void openSnapshot(Path file) {
+        long start = System.nanoTime();
+        GraphSnapshot snapshot;
+        try {
+            snapshot = GraphSnapshot.open(file);
+        } catch (IOException | RuntimeException e) {
+            JOptionPane.showMessageDialog(this, "Could not open " + file.getFileName() + ": " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        int n = snapshot.nodeCount();
+        int side = (int) Math.ceil(Math.sqrt(n));
+        graph.setDirected(snapshot.isDirected());
+        replaceGraph(n, v -> snapshot.hasPositions()
+                ? new Node(snapshot.label(v), snapshot.x(v), snapshot.y(v))
+                : new Node(snapshot.label(v), (v % side) * 120 + 60, (v / side) * 120 + 60), snapshot.view(true));
+        if (logPanel != null) {
+            logPanel.insertMessage("Opened " + n + " nodes and " + snapshot.edgeCount() + " edges from "
+                    + file.getFileName() + " in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+        }
+    }
+
+    public boolean isDirected() {
+        return graph.isDirected();
+    }
+
+    // node v of the new graph is nodes.apply(v); out holds the edges once each
+    private void replaceGraph(int n, IntFunction<Node> nodes, GraphView out) {
+        resetGraph();
+        Node[] created = new Node[n];
+        for (int v = 0; v < n; v++) {
+            created[v] = nodes.apply(v);
+            graph.addNode(created[v]);
+        }
+        for (int v = 0; v < n; v++) {
+            for (int i = 0, d = out.degree(v); i < d; i++) {
+                graph.addEdge(new Edge(created[v], created[out.neighbor(v, i)], out.weight(v, i)));
+            }
+        }
+        fitView();
+    }
+
+    // zooms and pans so every node is on screen
+    private void fitView() {
+        int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE;
+        for (int i = 0; i < graph.nodeCapacity(); i++) {
+            Node n = graph.node(i);
+            if (n == null) continue;
+            minX = Math.min(minX, n.x - n.r);
+            minY = Math.min(minY, n.y - n.r);
+            maxX = Math.max(maxX, n.x + n.r);
+            maxY = Math.max(maxY, n.y + n.r);
+        }
+        if (minX > maxX || getWidth() == 0 || getHeight() == 0) return;
+        scale = Math.max(MIN_SCALE, Math.min(1.0, Math.min((double) getWidth() / (maxX - minX), (double) getHeight() / (maxY - minY))));
+        offsetX = (getWidth() - (maxX - minX) * scale) / 2 - minX * scale;
+        offsetY = (getHeight() - (maxY - minY) * scale) / 2 - minY * scale;
+        graphLayerValid = false;
+        repaint();
     }
 
     public void resetGraph() {
-        nodes.clear();
-        edges.clear();
+        graph.clear();
+        stopTrackingPath();
         selectedForEdge = null;
         srcNode = null;
         destNode = null;
         nodeVisited.clear();
+        nodeVisitedBackward.clear();
         edgePath.clear();
-        adjacencyList.clear();
-        lastDeleted = null;
-        lastDeletedEdges.clear();
+        shadedNodes.clear();
+        shadedSources.clear();
+        sourceNodes.clear();
+        shownQueries.clear();
+        journal.clear();
         nodeCounter = 0;
         if (logPanel != null) logPanel.removeMessages();
         repaint();
@@ -150,31 +438,19 @@ public class GraphCanvas extends JPanel {
       the node with its corresponding edges
  */
     public void nodeDeletion(String nodeName) {
-        Node nodeToDelete = getNodeByName(nodeName);
+        Node nodeToDelete = graph.getNodeByName(nodeName);
         if (nodeToDelete == null) {
             JOptionPane.showMessageDialog(null, "Node " + nodeName + " not found.", "Error", JOptionPane.ERROR_MESSAGE);
             return;
         }
 
-        lastDeleted = nodeToDelete;
-        lastDeletedEdges.clear();
-        for (Edge e : edges) {
-            if (e.from == nodeToDelete || e.to == nodeToDelete) {
-                lastDeletedEdges.add(e);
-            }
-        }
-
-        nodes.remove(nodeToDelete);
-        edges.removeIf(e -> e.from == nodeToDelete || e.to == nodeToDelete);
-        updateAdjacencyList();
-
-        if (srcNode == nodeToDelete) srcNode = null;
-        if (destNode == nodeToDelete) destNode = null;
-        if (selectedForEdge == nodeToDelete) selectedForEdge = null;
+        journal.nodeRemoved(nodeToDelete, graph.removeNode(nodeToDelete));
+        forgetRemovedNodes();
 
         if (logPanel != null) {
             logPanel.insertMessage("Node " + nodeName + " deleted.");
         }
+        refreshTrackedPath();
         repaint();
     }
 /* 7. this method helps in changing the topology e.g deleting the edge
@@ -189,73 +465,106 @@ public class GraphCanvas extends JPanel {
 
         String fromName = edgeParts[0].trim();
         String toName = edgeParts[1].trim();
-        Node fromNode = getNodeByName(fromName);
-        Node toNode = getNodeByName(toName);
+        Node fromNode = graph.getNodeByName(fromName);
+        Node toNode = graph.getNodeByName(toName);
 
         if (fromNode == null || toNode == null) {
             JOptionPane.showMessageDialog(null, "One or both nodes (" + fromName + ", " + toName + ") not found.", "Error", JOptionPane.ERROR_MESSAGE);
             return;
         }
 
-        boolean edgeFound = false;
-        List<Edge> edgesToRemove = new ArrayList<>();
-        for (Edge e : edges) {
-            if (e.from == fromNode && e.to == toNode) {
-                edgesToRemove.add(e);
-                edgeFound = true;
-            } else if (!isDirected && e.from == toNode && e.to == fromNode) {
-                edgesToRemove.add(e);
-                edgeFound = true;
-            }
-        }
-
-        if (!edgeFound) {
+        List<Edge> edgesToRemove = graph.removeEdge(fromNode, toNode);
+        if (edgesToRemove.isEmpty()) {
             JOptionPane.showMessageDialog(null, "Edge from " + fromName + " to " + toName + " not found.", "Error", JOptionPane.ERROR_MESSAGE);
             return;
         }
 
-        lastDeleted = edgesToRemove.get(0); // Store the first edge as the last deleted item
-        lastDeletedEdges.clear();
-        lastDeletedEdges.addAll(edgesToRemove);
-        edges.removeAll(edgesToRemove);
-        updateAdjacencyList();
+        journal.edgesRemoved(edgesToRemove);
 
         if (logPanel != null) {
-            logPanel.insertMessage("Edge " + fromName + (isDirected ? " -> " : " <-> ") + toName + " deleted.");
+            logPanel.insertMessage("Edge " + fromName + (graph.isDirected() ? " -> " : " <-> ") + toName + " deleted.");
         }
+        refreshTrackedPath();
         repaint();
     }
 
-    public void undoDelete() {
-        if (lastDeleted == null) {
-            JOptionPane.showMessageDialog(null, "No deletion to undo.", "Info", JOptionPane.INFORMATION_MESSAGE);
+    // each step is applied as the engine change it was, in O(degree), like the edit itself
+    public void undo() {
+        String step = journal.undo();
+        if (step == null) {
+            JOptionPane.showMessageDialog(null, "Nothing to undo.", "Info", JOptionPane.INFORMATION_MESSAGE);
             return;
         }
+        afterJournalStep("Undo: " + step + " (" + journal.undoSteps() + " more to undo)");
+    }
 
-        if (lastDeleted instanceof Node nodeToRestore) {
-            nodes.add(nodeToRestore);
-            edges.addAll(lastDeletedEdges);
-            updateAdjacencyList();
-            if (logPanel != null) {
-                logPanel.insertMessage("Undo: Restored node " + nodeToRestore.name + " and its edges.");
-            }
-        } else if (lastDeleted instanceof Edge) {
-            edges.addAll(lastDeletedEdges);
-            updateAdjacencyList();
-            if (logPanel != null) {
-                Edge edge = (Edge) lastDeleted;
-                logPanel.insertMessage("Undo: Restored edge " + edge.from.name + (isDirected ? " -> " : " <-> ") + edge.to.name + ".");
-            }
+    public void redo() {
+        String step = journal.redo();
+        if (step == null) {
+            JOptionPane.showMessageDialog(null, "Nothing to redo.", "Info", JOptionPane.INFORMATION_MESSAGE);
+            return;
         }
+        afterJournalStep("Redo: " + step + " (" + journal.redoSteps() + " more to redo)");
+    }
 
-        lastDeleted = null;
-        lastDeletedEdges.clear();
+    private void afterJournalStep(String message) {
+        forgetRemovedNodes();
+        if (logPanel != null) logPanel.insertMessage(message);
+        refreshTrackedPath();
+        repaint();
+    }
+
+    // drops the selection, sources and destination that are no longer in the graph
+    private void forgetRemovedNodes() {
+        if (srcNode != null && srcNode.id < 0) srcNode = null;
+        sourceNodes.removeIf(n -> n.id < 0);
+        if (destNode != null && destNode.id < 0) destNode = null;
+        if (selectedForEdge != null && selectedForEdge.id < 0) selectedForEdge = null;
+    }
+
+    // writes the edits that can be undone as a script, see EditJournal
+    public void exportEdits(Path file) {
+        try {
+            journal.export(file);
+        } catch (IOException | RuntimeException e) {
+            JOptionPane.showMessageDialog(this, "Could not write " + file.getFileName() + ": " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        if (logPanel != null) logPanel.insertMessage("Exported " + journal.undoSteps() + " edits to " + file.getFileName());
+    }
+
+/*  Applies an edit script to the graph. The edits are not undone one by one: the history starts
+    over, as after opening a graph.
+ */
+    public void replayEdits(Path file) {
+        long start = System.nanoTime();
+        EditJournal.Replay replay;
+        try {
+            replay = EditJournal.replay(graph, file);
+        } catch (IOException | RuntimeException e) {
+            journal.clear(); // some lines may have been applied
+            forgetRemovedNodes();
+            stopTrackingPath();
+            repaint();
+            JOptionPane.showMessageDialog(this, "Could not replay " + file.getFileName() + ": " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        journal.clear();
+        forgetRemovedNodes();
+        stopTrackingPath();
+        if (logPanel != null) {
+            logPanel.insertMessage("Replayed " + replay.applied + " edits from " + file.getFileName() + " in "
+                    + (System.nanoTime() - start) / 1_000_000 + " ms" + (replay.skipped > 0 ? " (" + replay.skipped + " lines skipped)" : ""));
+        }
         repaint();
     }
 // 7. This helps to add the node in the graph by just clicking on the canvas.
     private void attachNode(int x, int y) {
-        String name = String.valueOf((char) ('A' + nodeCounter++));
-        nodes.add(new Node(name, x, y));
+        String name = GraphEngine.generatedLabel(nodeCounter++);
+        while (graph.getNodeByName(name) != null) name = GraphEngine.generatedLabel(nodeCounter++);
+        Node node = new Node(name, x, y);
+        graph.addNode(node);
+        journal.nodeAdded(node);
         if (logPanel != null) {
             logPanel.insertMessage("Node " + name + " added.");
         }
@@ -263,111 +572,618 @@ public class GraphCanvas extends JPanel {
     }
 
     private Node getNodeAt(Point p) {
-        for (Node n : nodes) {
-            if (n.contains(p)) return n;
-        }
-        return null;
-    }
-
-    private Node getNodeByName(String name) {
-        for (Node n : nodes) {
-            if (n.name.equalsIgnoreCase(name)) return n;
-        }
-        return null;
+        return graph.nodeAt(p.x, p.y);
     }
 // 4. implementation and simulation of the BFS algorithm
+    // runs launchBFS on the search thread, behind any search still running
+    public void startSearch() {
+        CompletableFuture.runAsync(this::launchBFS, searchThread).exceptionally(e -> logFailure("Search", e));
+    }
+
+/*  The search runs at full speed on the calling thread (startSearch puts it on the search thread) and
+    records what it does. The recording is then replayed by the TracePlayer on the event dispatch
+    thread, which is the only thread that changes the visited state. Without animation only the
+    result is shown.
+ */
     public void launchBFS() {
-        if (srcNode == null || destNode == null) {
+        Node src = srcNode, dst = destNode;
+        if (src == null || dst == null) {
             JOptionPane.showMessageDialog(null, "Invalid source or destination node.", "Error", JOptionPane.ERROR_MESSAGE);
             return;
         }
+        List<Node> sources = new ArrayList<>(sourceNodes);
+        if (sources.size() > 1) {
+            launchNearestSource(sources, dst);
+            return;
+        }
+        SearchMode mode = searchMode;
+        SearchTrace trace = animated ? new SearchTrace() : null;
+        int removalsBefore = removals;
+        GraphVersion version = graph.version();
+        // only a lowest-cost result is followed across edits; the tree is set again below
+        graph.shortestPathTree().clearSource();
 
-        updateAdjacencyList();
-        nodeVisited.clear();
-        edgePath.clear();
-        Map<Node, Node> parent = new HashMap<>();
-        Set<Node> visited = new HashSet<>();
-        Queue<Node> queue = new LinkedList<>();
-        queue.add(srcNode);
-        visited.add(srcNode);
-
+        SwingUtilities.invokeLater(() -> {
+            trackedSrc = null;
+            trackedDest = null;
+            player.stop();
+            nodeVisited.clear();
+            nodeVisitedBackward.clear();
+            edgePath.clear();
+            shadedNodes.clear();
+            shadedSources.clear();
+            repaint();
+        });
         if (logPanel != null) {
-            logPanel.insertMessage("Starting BFS from " + srcNode.name + " to " + destNode.name);
+            logPanel.insertMessage("Starting " + mode + " from " + src.name + " to " + dst.name);
         }
 
-        while (!queue.isEmpty()) {
-            Node current = queue.poll();
-            if (logPanel != null) logPanel.insertMessage("Visiting: " + current.name);
-            nodeVisited.add(current);
+        // different partitions: nothing to search, and nothing to replay
+        long checkStart = System.nanoTime();
+        if (graph.connectivity().query(version.idOf(src), version.idOf(dst)) == ConnectivityIndex.Answer.DISCONNECTED) {
+            long checkMicros = (System.nanoTime() - checkStart) / 1000;
+            SwingUtilities.invokeLater(() -> {
+                if (removals != removalsBefore) return;
+                if (logPanel != null) {
+                    logPanel.insertMessage(src.name + " and " + dst.name + " are in different partitions (checked in " + checkMicros + " us)");
+                }
+                showResult(null, mode, null, src, dst);
+            });
+            return;
+        }
+
+        long start = System.nanoTime();
+        PathResult result = graph.search(mode, src, dst, trace);
+        long micros = (System.nanoTime() - start) / 1000;
+        String summary = graph.searchSummary(mode);
+
+        if (mode == SearchMode.DIJKSTRA) {
+            // keep this tree repaired across edits so the path can be refreshed without a new search
+            graph.shortestPathTree().setSource(src.id);
+            graph.shortestPathTree().resetRepairStats();
+        }
+
+        SwingUtilities.invokeLater(() -> {
+            if (removals != removalsBefore) {
+                if (logPanel != null) logPanel.insertMessage("The graph changed during the search, run it again.");
+                return;
+            }
+            if (logPanel != null) {
+                logPanel.insertMessage("Search finished in " + micros + " us"
+                        + (trace != null ? ", replaying " + trace.size() + " events" : ""));
+            }
+            if (mode == SearchMode.DIJKSTRA) {
+                trackedSrc = src;
+                trackedDest = dst;
+            }
+            if (trace == null) {
+                showResult(result, mode, summary, src, dst);
+            } else {
+                player.start(trace, replayListener, skipListener, () -> showResult(result, mode, summary, src, dst));
+            }
+        });
+    }
+
+/*  Several sources: one BFS from all of them at once finds the path from the nearest one. It is
+    not animated; the sources are shaded and the path is drawn like any other result.
+ */
+    private void launchNearestSource(List<Node> sources, Node dst) {
+        int removalsBefore = removals;
+        GraphVersion version = graph.version();
+        int[] ids = new int[sources.size()];
+        StringBuilder names = new StringBuilder();
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = version.idOf(sources.get(i));
+            names.append(i == 0 ? "" : ", ").append(sources.get(i).name);
+        }
+        graph.shortestPathTree().clearSource();
+        SwingUtilities.invokeLater(() -> {
+            trackedSrc = null;
+            trackedDest = null;
+            player.stop();
+            nodeVisited.clear();
+            nodeVisitedBackward.clear();
+            edgePath.clear();
+            shadedNodes.clear();
+            shadedSources.clear();
+            for (int id : ids) {
+                if (id >= 0) shadedSources.set(id);
+            }
             repaint();
-            try {
-                Thread.sleep(300);
-            } catch (InterruptedException ignored) {}
+        });
+        if (logPanel != null) logPanel.insertMessage("Starting multi-source BFS from " + names + " to " + dst.name);
+
+        long start = System.nanoTime();
+        PathResult result = graph.nearestSource(version, ids, version.idOf(dst));
+        long micros = (System.nanoTime() - start) / 1000;
 
-            if (current.equals(destNode)) {
-                makePath(parent);
+        SwingUtilities.invokeLater(() -> {
+            if (removals != removalsBefore) {
+                if (logPanel != null) logPanel.insertMessage("The graph changed during the search, run it again.");
                 return;
             }
+            if (logPanel != null) logPanel.insertMessage("Search finished in " + micros + " us");
+            if (result == null) {
+                if (logPanel != null) logPanel.insertMessage("No path found from any of " + names + " to " + dst.name);
+                JOptionPane.showMessageDialog(null, "No path found from any of " + names + " to " + dst.name);
+                return;
+            }
+            if (logPanel != null) logPanel.insertMessage("Nearest source: " + result.nodes.get(0).name + " (" + result.hops() + " hops)");
+            makePath(result, SearchMode.BFS);
+        });
+    }
 
-            for (Edge edge : adjacencyList.getOrDefault(current.name, new ArrayList<>())) {
-                Node neighbor = getNodeByName(edge.to.name);
-                if (neighbor != null && !visited.contains(neighbor)) {
-                    visited.add(neighbor);
-                    parent.put(neighbor, current);
-                    queue.add(neighbor);
-                    if (logPanel != null) {
-                        logPanel.insertMessage("Enqueueing: " + neighbor.name + " (parent: " + current.name + ")");
-                    }
+/*  Shades every node within the given number of hops of the sources (names separated by spaces or
+    commas), or every node they can reach when hops is empty: which routers does a failure at these
+    sites affect. The query runs off the event dispatch thread on the current version.
+ */
+    public void shadeReachable(String sourceNames, String hopsText) {
+        int maxHops = -1;
+        if (!hopsText.isBlank()) {
+            try {
+                maxHops = Integer.parseInt(hopsText.trim());
+            } catch (NumberFormatException ignored) {
+                // reported below like a negative number
+            }
+            if (maxHops < 0) {
+                JOptionPane.showMessageDialog(null, "Invalid number of hops: " + hopsText.trim(), "Error", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+        }
+        GraphVersion version = graph.version();
+        List<Node> sources = new ArrayList<>();
+        for (String name : sourceNames.trim().split("[\\s,]+")) {
+            if (name.isEmpty()) continue;
+            Node n = graph.getNodeByName(name);
+            if (n == null) {
+                JOptionPane.showMessageDialog(null, "Node " + name + " not found.", "Error", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+            sources.add(n);
+        }
+        if (sources.isEmpty()) return;
+        int[] ids = new int[sources.size()];
+        for (int i = 0; i < ids.length; i++) ids[i] = version.idOf(sources.get(i));
+        int hops = maxHops;
+        int removalsBefore = removals;
+        CompletableFuture.runAsync(() -> {
+            long start = System.nanoTime();
+            int[] reached = graph.reachable(version, ids, hops);
+            long micros = (System.nanoTime() - start) / 1000;
+            SwingUtilities.invokeLater(() -> {
+                if (removals != removalsBefore) {
+                    if (logPanel != null) logPanel.insertMessage("The graph changed during the query, run it again.");
+                    return;
+                }
+                shadedNodes.clear();
+                shadedSources.clear();
+                for (int v : reached) shadedNodes.set(v);
+                for (int id : ids) shadedSources.set(id);
+                if (logPanel != null) {
+                    logPanel.insertMessage(reached.length + " nodes " + (hops < 0 ? "reachable from " : "within " + hops + " hops of ")
+                            + sources.size() + " source" + (sources.size() == 1 ? "" : "s") + " (" + micros + " us)");
+                }
+                repaint();
+            });
+        }).exceptionally(e -> {
+            // the old shading would look like the answer
+            SwingUtilities.invokeLater(this::clearShading);
+            return logFailure("Reachability query", e);
+        });
+    }
+
+    public void clearShading() {
+        shadedNodes.clear();
+        shadedSources.clear();
+        repaint();
+    }
+
+    // reports a background job that threw (bad input, out of memory) on the event dispatch thread
+    private Void logFailure(String job, Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        SwingUtilities.invokeLater(() -> {
+            if (logPanel != null) logPanel.insertMessage(job + " failed: " + cause);
+        });
+        return null;
+    }
+
+/*  Simulates packet traffic on the current version (see PacketSimulator) and colours every link
+    by how busy it was, green to red. One flow per line: "source destination [packets per ms]".
+ */
+    public void simulateTraffic(String flowsText, double durationMs, double bandwidth, int queueSize) {
+        GraphVersion version = graph.version();
+        List<int[]> flows = new ArrayList<>();
+        List<Double> rates = new ArrayList<>();
+        for (String line : flowsText.split("[\\n,;]")) {
+            String[] words = line.trim().toUpperCase().split("\\s+");
+            if (words.length == 1 && words[0].isEmpty()) continue;
+            Node src = words.length >= 2 ? graph.getNodeByName(words[0]) : null;
+            Node dst = words.length >= 2 ? graph.getNodeByName(words[1]) : null;
+            double rate = 1;
+            try {
+                if (words.length == 3) rate = Double.parseDouble(words[2]);
+            } catch (NumberFormatException e) {
+                rate = -1;
+            }
+            if (src == null || dst == null || words.length > 3 || rate <= 0) {
+                if (logPanel != null) logPanel.insertMessage("Skipped \"" + line.trim() + "\": not \"source destination [rate]\".");
+                continue;
+            }
+            flows.add(new int[]{version.idOf(src), version.idOf(dst)});
+            rates.add(rate);
+        }
+        if (flows.isEmpty()) return;
+        int removalsBefore = removals;
+        CompletableFuture.runAsync(() -> {
+            PacketSimulator simulator = new PacketSimulator(version.view(), bandwidth, queueSize);
+            List<String> unrouted = new ArrayList<>();
+            for (int k = 0; k < flows.size(); k++) {
+                int[] flow = flows.get(k);
+                if (simulator.addFlow(flow[0], flow[1], rates.get(k)) < 0) {
+                    unrouted.add(version.node(flow[0]).name + " to " + version.node(flow[1]).name);
                 }
             }
+            long start = System.nanoTime();
+            simulator.run(durationMs, 1);
+            long nanos = Math.max(1, System.nanoTime() - start);
+            int edges = 0;
+            for (int k = 0; k < simulator.linkCount(); k++) edges = Math.max(edges, simulator.linkEdge(k) + 1);
+            float[] edgeLoads = new float[edges];
+            for (int k = 0; k < simulator.linkCount(); k++) {
+                int e = simulator.linkEdge(k);
+                edgeLoads[e] = Math.max(edgeLoads[e], (float) simulator.utilization(k));
+            }
+            SwingUtilities.invokeLater(() -> {
+                if (removals != removalsBefore) {
+                    if (logPanel != null) logPanel.insertMessage("The graph changed during the simulation, run it again.");
+                    return;
+                }
+                edgeLoad = edgeLoads;
+                graphLayerValid = false;
+                if (logPanel != null) showTraffic(simulator, version, unrouted, durationMs, nanos);
+                repaint();
+            });
+        }).exceptionally(e -> {
+            SwingUtilities.invokeLater(this::clearTraffic);
+            return logFailure("Simulation", e);
+        });
+    }
+
+    private void showTraffic(PacketSimulator simulator, GraphVersion version, List<String> unrouted, double durationMs, long nanos) {
+        for (String flow : unrouted) logPanel.insertMessage("No route from " + flow + ", flow left out.");
+        long sentPackets = simulator.delivered() + simulator.dropped() + simulator.inFlight();
+        logPanel.insertMessage(String.format("Simulated %d flows for %.0f ms: %d events in %d ms (%.1f million events/s)",
+                simulator.flowCount(), durationMs, simulator.events(), nanos / 1_000_000, simulator.events() * 1e3 / nanos));
+        logPanel.insertMessage(String.format("%d packets: %d delivered, %d dropped (%.1f%%), %d in flight", sentPackets,
+                simulator.delivered(), simulator.dropped(), sentPackets == 0 ? 0 : 100.0 * simulator.dropped() / sentPackets, simulator.inFlight()));
+        logPanel.insertMessage(String.format("Latency: mean %.2f ms, p50 %.2f ms, p99 %.2f ms, max %.2f ms", simulator.meanLatency(),
+                simulator.latencyPercentile(50), simulator.latencyPercentile(99), simulator.maxLatency()));
+        for (int f = 0; f < Math.min(simulator.flowCount(), 10); f++) {
+            logPanel.insertMessage(String.format("Flow %s to %s: %d hops, %d delivered, %d dropped",
+                    version.node(simulator.flowSource(f)).name, version.node(simulator.flowDestination(f)).name,
+                    simulator.flowHops(f), simulator.flowDelivered(f), simulator.flowDropped(f)));
+        }
+        Integer[] links = new Integer[simulator.linkCount()];
+        for (int k = 0; k < links.length; k++) links[k] = k;
+        Arrays.sort(links, Comparator.comparingDouble((Integer k) -> -simulator.utilization(k)));
+        logPanel.insertMessage("Busiest links:");
+        for (int i = 0; i < Math.min(links.length, 5); i++) {
+            int k = links[i];
+            logPanel.insertMessage(String.format("%s -> %s: %.0f%% busy, queue delay %.2f ms, max queue %d, %d dropped",
+                    version.node(simulator.linkFrom(k)).name, version.node(simulator.linkTo(k)).name, 100 * simulator.utilization(k),
+                    simulator.meanQueueDelay(k), simulator.maxQueue(k), simulator.drops(k)));
+        }
+    }
+
+    public void clearTraffic() {
+        edgeLoad = null;
+        graphLayerValid = false;
+        repaint();
+    }
+
+/*  Emulates distance-vector and link-state routing on the current version, from empty tables and,
+    when failedLink names one ("A B"), after that link fails. Infinity is counted in hops of the
+    largest link cost, so 16 behaves like RIP. Results go to the log; the graph is not changed.
+ */
+    public void emulateRouting(String failedLink, int infinityHops, boolean poisonedReverse) {
+        GraphVersion version = graph.version();
+        int failedEdge = -1;
+        String[] words = failedLink.trim().split("[\\s,-]+");
+        if (!failedLink.isBlank()) {
+            Node from = words.length == 2 ? graph.getNodeByName(words[0]) : null;
+            Node to = words.length == 2 ? graph.getNodeByName(words[1]) : null;
+            Edge edge = from != null && to != null ? graph.findEdge(from, to, -1) : null;
+            if (edge == null) {
+                JOptionPane.showMessageDialog(null, "No link \"" + failedLink.trim() + "\" to fail.", "Error", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+            failedEdge = edge.id;
+        }
+        int failed = failedEdge;
+        CompletableFuture.runAsync(() -> {
+            GraphView view = version.view();
+            int largest = 1;
+            for (int v = 0; v < view.nodeCapacity(); v++) {
+                for (int i = 0, d = view.degree(v); i < d; i++) largest = Math.max(largest, view.weight(v, i));
+            }
+            int infinity = (int) Math.min(Integer.MAX_VALUE / 2, (long) infinityHops * largest);
+            DistanceVectorEmulator distanceVector = new DistanceVectorEmulator(view, infinity, poisonedReverse);
+            distanceVector.run(failed);
+            LinkStateEmulator linkState = new LinkStateEmulator(view, version.isDirected());
+            linkState.run(failed);
+            List<String> lines = new ArrayList<>();
+            lines.add("Routing on " + version.nodeCount() + " routers, infinity " + infinity
+                    + (failed >= 0 ? ", failing " + version.edge(failed).from.name + " - " + version.edge(failed).to.name : "") + ":");
+            lines.add(distanceVector.initial().describe());
+            lines.add(linkState.initial().describe());
+            if (failed >= 0) {
+                lines.add(distanceVector.afterFailure().describe());
+                lines.add(linkState.afterFailure().describe());
+            }
+            SwingUtilities.invokeLater(() -> {
+                if (logPanel != null) lines.forEach(logPanel::insertMessage);
+            });
+        }).exceptionally(e -> logFailure("Routing emulation", e));
+    }
+
+    // green when idle, through yellow, to red when busy all the time
+    private static Color[] loadColors() {
+        Color[] colors = new Color[11];
+        for (int i = 0; i <= 10; i++) {
+            double t = i / 10.0;
+            int red = (int) (t < 0.5 ? 40 + 2 * t * 190 : 230);
+            int green = (int) (t < 0.5 ? 170 + 2 * t * 30 : 200 - (t - 0.5) * 2 * 200);
+            colors[i] = new Color(red, green, 0);
+        }
+        return colors;
+    }
+
+    // null for edges no simulated packet used
+    private Color loadColor(int edge) {
+        float[] load = edgeLoad;
+        if (load == null || edge >= load.length || load[edge] <= 0) return null;
+        return LOAD_COLORS[Math.min(10, (int) (load[edge] * 10))];
+    }
+
+    private void showResult(PathResult result, SearchMode mode, String summary, Node src, Node dst) {
+        if (summary != null && logPanel != null) logPanel.insertMessage(summary);
+        if (result != null) {
+            makePath(result, mode);
+            return;
         }
 
         if (logPanel != null)
-            logPanel.insertMessage("No path found from " + srcNode.name + " to " + destNode.name);
+            logPanel.insertMessage("No path found from " + src.name + " to " + dst.name);
 
-        JOptionPane.showMessageDialog(null, "No path found from " + srcNode.name + " to " + destNode.name);
+        JOptionPane.showMessageDialog(null, "No path found from " + src.name + " to " + dst.name);
     }
 
-    private void updateAdjacencyList() {
-        adjacencyList.clear();
-        for (Edge edge : edges) {
-            adjacencyList.computeIfAbsent(edge.from.name, k -> new ArrayList<>()).add(new Edge(edge.from, edge.to, edge.weight));
-            if (!isDirected) {
-                adjacencyList.computeIfAbsent(edge.to.name, k -> new ArrayList<>()).add(new Edge(edge.to, edge.from, edge.weight));
+    // a replay refers to node ids, which removed nodes give back for reuse
+    private void graphChanged() {
+        removals++;
+        if (player.isActive()) {
+            player.stop();
+            if (logPanel != null) logPanel.insertMessage("Replay stopped, the graph changed.");
+        }
+    }
+
+    // replayed search events, one step per timer tick
+    private final SearchListener replayListener = new SearchListener() {
+        public void visit(int node) {
+            Node current = graph.node(node);
+            if (logPanel != null) logPanel.insertMessage("Visiting: " + current.name);
+            nodeVisited.set(node);
+            repaintNode(current);
+        }
+
+        public void enqueue(int node, int parent) {
+            if (logPanel != null) {
+                logPanel.insertMessage("Enqueueing: " + graph.node(node).name + " (parent: " + graph.node(parent).name + ")");
+            }
+        }
+
+        public void visitBackward(int node) {
+            Node current = graph.node(node);
+            if (logPanel != null) logPanel.insertMessage("Visiting: " + current.name + " (from destination)");
+            nodeVisitedBackward.set(node);
+            repaintNode(current);
+        }
+
+        public void enqueueBackward(int node, int next) {
+            if (logPanel != null) {
+                logPanel.insertMessage("Enqueueing: " + graph.node(node).name + " (next hop: " + graph.node(next).name + ")");
             }
         }
+    };
+
+    // skipping to the end only colours the nodes, one repaint follows
+    private final SearchListener skipListener = new SearchListener() {
+        public void visit(int node) {
+            nodeVisited.set(node);
+        }
+
+        public void enqueue(int node, int parent) {}
+
+        public void visitBackward(int node) {
+            nodeVisitedBackward.set(node);
+        }
+    };
+
+    public void setAnimated(boolean animated) {
+        this.animated = animated;
     }
-// 4. function to display the shortest/best path calculated by the algorithm
-    private void makePath(Map<Node, Node> parent) {
-        List<Node> path = new ArrayList<>();
-        Node current = destNode;
-        while (current != null) {
-            path.add(current);
-            current = parent.get(current);
-        }
-        Collections.reverse(path);
+
+    public void setReplaySpeed(double stepsPerSecond) {
+        player.setSpeed(stepsPerSecond);
+    }
+
+    public void setReplayPaused(boolean paused) {
+        player.setPaused(paused);
+    }
+
+    public boolean isReplayPaused() {
+        return player.isPaused();
+    }
+
+    public void stepReplay() {
+        player.step();
+    }
+
+    public void skipReplay() {
+        if (!player.isActive()) return;
+        if (logPanel != null) logPanel.insertMessage("Skipped " + player.remaining() + " events of the replay.");
+        player.skipToEnd();
+        repaint();
+    }
+/*  After an edit, shows what happened to the path of the last lowest-cost search. The tree was
+    already repaired by the edit itself, so this is only a walk up the parent links.
+ */
+    private void refreshTrackedPath() {
+        DynamicShortestPathTree tree = graph.shortestPathTree();
+        // a different pair (or none) is on screen now, so the old path must not replace it
+        if (trackedDest == null || trackedSrc != srcNode || trackedDest != destNode || !sourceNodes.isEmpty()) return;
+        if (!tree.hasSource() || destNode.id < 0 || logPanel == null) return;
+        String repair = "Shortest-path tree repaired in " + (tree.repairNanos() / 1000) + " us ("
+                + tree.repairedNodes() + " nodes re-settled)";
+        tree.resetRepairStats();
         edgePath.clear();
-        for (int i = 0; i < path.size() - 1; i++) {
-            Node from = path.get(i);
-            Node to = path.get(i + 1);
-            for (Edge e : edges) {
-                if (isDirected) {
-                    if (e.from.equals(from) && e.to.equals(to)) {
-                        edgePath.add(e);
-                        break;
-                    }
+        if (tree.isReached(destNode.id)) {
+            PathResult result = graph.toPathResult(tree.path(destNode.id), tree.pathEdges(destNode.id));
+            for (Edge e : result.edges) edgePath.set(e.id);
+            logPanel.insertMessage(repair + ". Lowest cost path now: " + result.describe() + " (total cost: " + result.cost + ")");
+        } else {
+            logPanel.insertMessage(repair + ". No path from " + graph.node(tree.source()).name + " to " + destNode.name + " any more.");
+        }
+    }
+
+    private void stopTrackingPath() {
+        graph.shortestPathTree().clearSource();
+        trackedSrc = null;
+        trackedDest = null;
+    }
+
+/*  Runs every "source destination" pair of the text (one per line or separated by commas,
+    "A B" or "A to B") at the same time, all on the current version, and draws each answer in
+    its own colour. The comparison is logged once all of them are done.
+ */
+    public void runQueries(String pairsText, SearchMode mode) {
+        List<Node[]> pairs = new ArrayList<>();
+        for (String line : pairsText.split("[\\n,;]")) {
+            String[] names = line.trim().toUpperCase().split("\\s+(TO\\s+)?");
+            if (names.length == 1 && names[0].isEmpty()) continue;
+            Node src = names.length == 2 ? graph.getNodeByName(names[0]) : null;
+            Node dst = names.length == 2 ? graph.getNodeByName(names[1]) : null;
+            if (src == null || dst == null) {
+                if (logPanel != null) logPanel.insertMessage("Skipped \"" + line.trim() + "\": not a pair of existing nodes.");
+                continue;
+            }
+            pairs.add(new Node[]{src, dst});
+        }
+        if (pairs.isEmpty()) return;
+        long start = System.nanoTime();
+        List<CompletableFuture<RouteQuery>> queries = scheduler.submitAll(mode, pairs);
+        CompletableFuture.allOf(queries.toArray(new CompletableFuture<?>[0])).whenComplete((done, failure) -> {
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            SwingUtilities.invokeLater(() -> {
+                if (failure != null) {
+                    if (logPanel != null) logPanel.insertMessage("Queries failed: " + failure.getMessage());
+                    return;
+                }
+                List<RouteQuery> finished = new ArrayList<>();
+                for (CompletableFuture<RouteQuery> q : queries) finished.add(q.join());
+                showQueries(finished, millis);
+            });
+        });
+    }
+
+    private void showQueries(List<RouteQuery> finished, long millis) {
+        shownQueries.addAll(finished);
+        if (logPanel != null) {
+            logPanel.insertMessage(finished.size() + " " + finished.get(0).mode + " queries on version " + finished.get(0).version
+                    + " took " + millis + " ms (" + (scheduler.usesVirtualThreads() ? "virtual threads" : "thread pool") + "), shortest first:");
+            List<RouteQuery> ranked = new ArrayList<>(finished);
+            ranked.sort(Comparator.comparingLong((RouteQuery q) -> q.isFound() ? q.length() : Long.MAX_VALUE)
+                    .thenComparingInt(q -> q.number));
+            for (RouteQuery q : ranked) {
+                String head = "#" + q.number + " (" + QUERY_COLOR_NAMES[q.number % QUERY_COLORS.length] + ") " + q.src.name + " to " + q.dst.name + ": ";
+                if (!q.isFound()) {
+                    logPanel.insertMessage(head + "no path, " + q.micros + " us");
                 } else {
-                    if ((e.from.equals(from) && e.to.equals(to)) || (e.from.equals(to) && e.to.equals(from))) {
-                        edgePath.add(e);
-                        break;
-                    }
+                    logPanel.insertMessage(head + q.result.describe() + " (cost " + q.result.cost + ", " + q.result.hops()
+                            + " hops, " + q.micros + " us)");
                 }
             }
         }
-        StringBuilder msg = new StringBuilder("Shortest path: ");
-        for (Node n : path) msg.append(n.name).append(" -> ");
-        if (logPanel != null)
-            logPanel.insertMessage("Best path found: " + msg.substring(0, msg.length() - 4));
+        repaint();
+    }
+
+    // "all" (or nothing) removes every query from the canvas, otherwise the numbers given
+    public void dismissQueries(String numbers) {
+        String text = numbers.trim();
+        if (text.isEmpty() || text.equalsIgnoreCase("all")) {
+            shownQueries.clear();
+        } else {
+            Set<Integer> dismissed = new HashSet<>();
+            for (String number : text.split("[\\s,#]+")) {
+                if (number.isEmpty()) continue;
+                try {
+                    dismissed.add(Integer.parseInt(number));
+                } catch (NumberFormatException e) {
+                    JOptionPane.showMessageDialog(null, "Invalid query number: " + number, "Error", JOptionPane.ERROR_MESSAGE);
+                    return;
+                }
+            }
+            shownQueries.removeIf(q -> dismissed.contains(q.number));
+        }
+        repaint();
+    }
+
+//  lists the connected components, largest first, e.g. after link failures split the network
+    public void showPartitions() {
+        if (logPanel == null) return;
+        long start = System.nanoTime();
+        ConnectivityIndex index = graph.connectivity();
+        List<int[]> partitions = index.partitions();
+        int strong = index.strongComponentCount();
+        long micros = (System.nanoTime() - start) / 1000;
+        logPanel.insertMessage(partitions.size() + (partitions.size() == 1 ? " partition" : " partitions")
+                + (strong >= 0 ? " (" + strong + " strongly connected components)" : "") + ", found in " + micros + " us:");
+        for (int k = 0; k < Math.min(partitions.size(), 10); k++) {
+            int[] members = partitions.get(k);
+            StringBuilder names = new StringBuilder();
+            for (int i = 0; i < Math.min(members.length, 8); i++) names.append(i == 0 ? "" : ", ").append(graph.node(members[i]).name);
+            if (members.length > 8) names.append(", ...");
+            logPanel.insertMessage(members.length + (members.length == 1 ? " node: " : " nodes: ") + names);
+        }
+        if (partitions.size() > 10) logPanel.insertMessage("... and " + (partitions.size() - 10) + " smaller ones");
+    }
+
+//  builds the next-hop table of every destination in parallel so later lookups are table walks
+    public void buildRoutingTables() {
+        long start = System.nanoTime();
+        int built = graph.routingTables().buildAll();
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        if (built < 0) {
+            if (logPanel != null) logPanel.insertMessage("Too many nodes to keep a routing table for every destination; "
+                    + "the Routing Table search still builds the ones it needs.");
+            return;
+        }
+        if (logPanel != null) {
+            logPanel.insertMessage("Routing tables built for " + built + " destinations in " + millis + " ms ("
+                    + graph.routingTables().cachedTables() + " cached)");
+        }
+    }
+// 4. function to display the shortest/best path calculated by the algorithm
+    private void makePath(PathResult result, SearchMode mode) {
+        edgePath.clear();
+        for (Edge e : result.edges) edgePath.set(e.id);
+        if (logPanel != null) {
+            if (mode == SearchMode.DIJKSTRA || mode == SearchMode.ROUTING_TABLE) {
+                logPanel.insertMessage("Best path found: Lowest cost path: " + result.describe() + " (total cost: " + result.cost + ")");
+            } else {
+                logPanel.insertMessage("Best path found: Shortest path: " + result.describe());
+            }
+        }
         repaint();
     }
 
@@ -384,72 +1200,293 @@ public class GraphCanvas extends JPanel {
         return isPaperView;
     }
 /*  6. This funcction helps in visualizing the entire routing process
-    from visiting the node(orange) adding it in the queue after applying the BFS
+    from visiting the node(orange, cyan when reached from the destination) adding it in the queue after applying the BFS
     algorithm displaying the best path in red color.
+    The background and the plain graph come from the cached layers; only the overlay is drawn here.
  */
     @Override
     protected void paintComponent(Graphics g) {
         super.paintComponent(g);
+        int width = getWidth(), height = getHeight();
+        if (width <= 0 || height <= 0) return;
+        if (backgroundLayer == null || backgroundLayer.getWidth() != width || backgroundLayer.getHeight() != height
+                || backgroundLayerSource != bgImage) {
+            renderBackgroundLayer(width, height);
+        }
+        if (graphLayer == null || graphLayer.getWidth() != width || graphLayer.getHeight() != height) {
+            graphLayer = createLayer(width, height, Transparency.TRANSLUCENT);
+            graphLayerValid = false;
+        }
+        if (!graphLayerValid) {
+            // cleared first, so an edit made while the layer is drawn invalidates it again
+            graphLayerValid = true;
+            renderGraphLayer();
+        }
+        g.drawImage(backgroundLayer, 0, 0, null);
+        g.drawImage(graphLayer, (int) Math.round(offsetX - layerOffsetX), (int) Math.round(offsetY - layerOffsetY), null);
+        paintGraph((Graphics2D) g, true);
+    }
+
+    // compatible images match the screen's pixel layout, so Java2D can keep them in video memory
+    private BufferedImage createLayer(int width, int height, int transparency) {
+        GraphicsConfiguration gc = getGraphicsConfiguration();
+        if (gc != null) return gc.createCompatibleImage(width, height, transparency);
+        return new BufferedImage(width, height, transparency == Transparency.OPAQUE ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB);
+    }
+
+    // the background is scaled once per size or view switch instead of on every frame
+    private void renderBackgroundLayer(int width, int height) {
+        backgroundLayer = createLayer(width, height, Transparency.OPAQUE);
+        backgroundLayerSource = bgImage;
+        Graphics2D g2 = backgroundLayer.createGraphics();
+        g2.setColor(getBackground());
+        g2.fillRect(0, 0, width, height);
         if (bgImage != null) {
-            g.drawImage(bgImage, 0, 0, getWidth(), getHeight(), this);
+            g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g2.drawImage(bgImage, 0, 0, width, height, this);
         }
+        g2.dispose();
+    }
 
-        Graphics2D g2 = (Graphics2D) g;
-        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-        g2.setFont(new Font("Arial", Font.BOLD, 14));
+    private void renderGraphLayer() {
+        Graphics2D g2 = graphLayer.createGraphics();
+        g2.setComposite(AlphaComposite.Clear);
+        g2.fillRect(0, 0, graphLayer.getWidth(), graphLayer.getHeight());
+        g2.setComposite(AlphaComposite.SrcOver);
+        layerOffsetX = offsetX;
+        layerOffsetY = offsetY;
+        paintGraph(g2, false);
+        g2.dispose();
+    }
 
-        for (Edge e : edges) {
-            if (edgePath.contains(e)) {
-                g2.setColor(Color.RED);
-                g2.setStroke(new BasicStroke(3));
-            } else {
-                g2.setColor(Color.BLACK);
-                g2.setStroke(new BasicStroke(2));
+    // asks Swing for a repaint of the screen square around one node only
+    private void repaintNode(Node n) {
+        int r = Math.max(6, (int) Math.ceil((n.r + 4) * scale) + 2);
+        repaint(screenX(n.x) - r, screenY(n.y) - r, 2 * r, 2 * r);
+    }
+
+    private void paintGraph(Graphics2D g2, boolean overlay) {
+        AffineTransform screen = g2.getTransform();
+        boolean circles = scale >= CIRCLE_SCALE;
+        boolean labels = scale >= LABEL_SCALE;
+        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, circles ? RenderingHints.VALUE_ANTIALIAS_ON : RenderingHints.VALUE_ANTIALIAS_OFF);
+        if (labelMetrics == null) labelMetrics = g2.getFontMetrics(LABEL_FONT);
+
+        Point topLeft = toWorld(new Point(0, 0));
+        viewX = topLeft.x;
+        viewY = topLeft.y;
+        viewWidth = (int) Math.ceil(getWidth() / scale) + 1;
+        viewHeight = (int) Math.ceil(getHeight() / scale) + 1;
+        viewLeft = viewX - VIEW_MARGIN;
+        viewTop = viewY - VIEW_MARGIN;
+        viewRight = viewX + viewWidth + VIEW_MARGIN;
+        viewBottom = viewY + viewHeight + VIEW_MARGIN;
+
+        // zoomed far out everything is drawn in screen pixels with 1px lines, the fast path of Java2D
+        if (circles) {
+            g2.translate(offsetX, offsetY);
+            g2.scale(scale, scale);
+        }
+        if (overlay) {
+            paintOverlay(g2, circles, labels);
+        } else {
+            paintEdges(g2, circles, labels);
+            paintNodes(g2, circles, labels);
+        }
+        g2.setTransform(screen);
+    }
+
+    private int screenX(int worldX) {
+        return (int) (worldX * scale + offsetX);
+    }
+
+    private int screenY(int worldY) {
+        return (int) (worldY * scale + offsetY);
+    }
+
+    private boolean inView(Node n) {
+        return n.x >= viewLeft && n.x <= viewRight && n.y >= viewTop && n.y <= viewBottom;
+    }
+
+    // fills visibleIds with the nodes the spatial grid reports inside the view, in ascending id order
+    private void collectVisibleNodes() {
+        visibleCount[0] = 0;
+        graph.nodesIn(viewX, viewY, viewWidth, viewHeight, VIEW_MARGIN, id -> {
+            if (visibleCount[0] == visibleIds.length) visibleIds = Arrays.copyOf(visibleIds, visibleIds.length * 2);
+            visibleIds[visibleCount[0]++] = id;
+        });
+        // ascending ids keep the old drawing order, so overlapping nodes stack the same way
+        Arrays.sort(visibleIds, 0, visibleCount[0]);
+    }
+
+    // static layer: the engine reports the edges near the view instead of all of them, and those
+    // whose bounding box misses the view are skipped with four comparisons
+    private void paintEdges(Graphics2D g2, boolean circles, boolean labels) {
+        boolean isDirected = graph.isDirected();
+        g2.setFont(LABEL_FONT);
+        int[] count = {0};
+        graph.edgesIn(viewX, viewY, viewWidth, viewHeight, id -> {
+            if (count[0] == visibleEdgeIds.length) visibleEdgeIds = Arrays.copyOf(visibleEdgeIds, count[0] * 2);
+            visibleEdgeIds[count[0]++] = id;
+        });
+        // ascending ids keep the old drawing order
+        Arrays.sort(visibleEdgeIds, 0, count[0]);
+        for (int k = 0; k < count[0]; k++) {
+            Edge e = graph.edge(visibleEdgeIds[k]);
+            if (e.from == draggingNode || e.to == draggingNode) continue;
+            if (Math.max(e.from.x, e.to.x) < viewLeft || Math.min(e.from.x, e.to.x) > viewRight
+                    || Math.max(e.from.y, e.to.y) < viewTop || Math.min(e.from.y, e.to.y) > viewBottom) continue;
+            drawEdge(g2, e, loadColor(e.id), isDirected, circles, labels);
+        }
+    }
+
+    // static layer: only the nodes the spatial grid reports inside the view are drawn
+    private void paintNodes(Graphics2D g2, boolean circles, boolean labels) {
+        collectVisibleNodes();
+        g2.setFont(LABEL_FONT);
+        g2.setStroke(THIN_STROKE);
+        for (int k = 0; k < visibleCount[0]; k++) {
+            Node n = graph.node(visibleIds[k]);
+            if (n != draggingNode) drawNode(g2, n, false, circles, labels);
+        }
+    }
+
+/*  Overlay: the paths of the shown queries, the path edges and the dragged node's edges, then every
+    node that has search state, touches one of those edges or is marked, drawn over its plain copy
+    in the graph layer. Its cost is the size of that state, not the size of the graph.
+ */
+    private void paintOverlay(Graphics2D g2, boolean circles, boolean labels) {
+        boolean isDirected = graph.isDirected();
+        Node dragged = draggingNode;
+        g2.setFont(LABEL_FONT);
+        overlayNodes.clear();
+        overlayNodes.or(nodeVisited);
+        overlayNodes.or(nodeVisitedBackward);
+        overlayNodes.or(shadedNodes);
+        overlayNodes.or(shadedSources);
+        for (RouteQuery q : shownQueries) {
+            if (!q.isFound()) continue;
+            Color color = QUERY_COLORS[q.number % QUERY_COLORS.length];
+            // edges deleted since the query ran have no id any more and are left out
+            for (Edge e : q.result.edges) {
+                if (e.id < 0) continue;
+                if (e.from != dragged && e.to != dragged) drawEdge(g2, e, color, isDirected, circles, labels);
+                overlayNodes.set(e.from.id);
+                overlayNodes.set(e.to.id);
             }
-            if (isDirected) {
-                drawDirection(g2, e.from.x, e.from.y, e.to.x, e.to.y);
-            } else {
-                g2.drawLine(e.from.x, e.from.y, e.to.x, e.to.y);
+        }
+        for (int i = edgePath.nextSetBit(0); i >= 0; i = edgePath.nextSetBit(i + 1)) {
+            Edge e = graph.edge(i);
+            if (e == null) continue;
+            if (e.from != dragged && e.to != dragged) drawEdge(g2, e, Color.RED, isDirected, circles, labels);
+            overlayNodes.set(e.from.id);
+            overlayNodes.set(e.to.id);
+        }
+        if (dragged != null && dragged.id >= 0) {
+            DynamicAdjacency adjacency = graph.adjacency();
+            for (int i = 0; i < adjacency.outDegree(dragged.id); i++) {
+                overlayEdge(g2, graph.edge(adjacency.outEdge(dragged.id, i)), isDirected, circles, labels);
+            }
+            for (int i = 0; i < adjacency.inDegree(dragged.id); i++) {
+                overlayEdge(g2, graph.edge(adjacency.inEdge(dragged.id, i)), isDirected, circles, labels);
             }
+            overlayNodes.set(dragged.id);
+        }
+        for (Node marked : new Node[]{selectedForEdge, srcNode, destNode}) {
+            if (marked != null && marked.id >= 0) overlayNodes.set(marked.id);
+        }
 
-            int midX = (e.from.x + e.to.x) / 2;
-            int midY = (e.from.y + e.to.y) / 2;
-            String weightStr = String.valueOf(e.weight);
+        g2.setStroke(THIN_STROKE);
+        for (int i = overlayNodes.nextSetBit(0); i >= 0; i = overlayNodes.nextSetBit(i + 1)) {
+            Node n = graph.node(i);
+            if (n != null && inView(n)) drawNode(g2, n, true, circles, labels);
+        }
+        if (circles) {
+            if (srcNode != null && inView(srcNode)) createTag(g2, "S", srcNode.x - 50, srcNode.y - 50);
+            if (destNode != null && inView(destNode)) createTag(g2, "D", destNode.x + 50, destNode.y - 50);
+        }
+    }
 
-            FontMetrics fm = g2.getFontMetrics();
-            int width = fm.stringWidth(weightStr) + 6;
-            int height = fm.getHeight();
+    private void overlayEdge(Graphics2D g2, Edge e, boolean isDirected, boolean circles, boolean labels) {
+        drawEdge(g2, e, edgePath.get(e.id) ? Color.RED : loadColor(e.id), isDirected, circles, labels);
+        overlayNodes.set(e.from.id);
+        overlayNodes.set(e.to.id);
+    }
 
+    // pathColor is null for a plain edge
+    private void drawEdge(Graphics2D g2, Edge e, Color pathColor, boolean isDirected, boolean circles, boolean labels) {
+        if (!circles) {
+            // level of detail: no arrows or weights
+            g2.setStroke(THIN_STROKE);
+            g2.setColor(pathColor != null ? pathColor : Color.BLACK);
+            g2.drawLine(screenX(e.from.x), screenY(e.from.y), screenX(e.to.x), screenY(e.to.y));
+            return;
+        }
+        if (pathColor != null) {
+            g2.setColor(pathColor);
+            g2.setStroke(PATH_STROKE);
+        } else {
             g2.setColor(Color.BLACK);
-            g2.fillRect(midX - 3, midY - height + 3, width + 5, height + 5);
-            g2.setColor(Color.WHITE);
-            g2.setFont(new Font("Arial", Font.BOLD, 16));
-            g2.drawString(weightStr, midX, midY);
+            g2.setStroke(EDGE_STROKE);
+        }
+        if (isDirected) {
+            drawDirection(g2, e.from.x, e.from.y, e.to.x, e.to.y);
+        } else {
+            g2.drawLine(e.from.x, e.from.y, e.to.x, e.to.y);
         }
+        if (!labels) return;
 
-        for (Node n : nodes) {
-            if (nodeVisited.contains(n)) {
-                g2.setColor(Color.ORANGE);
-            } else {
-                g2.setColor(Color.WHITE);
-            }
-            g2.fillOval(n.x - n.r, n.y - n.r, 2 * n.r, 2 * n.r);
+        int midX = (e.from.x + e.to.x) / 2;
+        int midY = (e.from.y + e.to.y) / 2;
+        String weightStr = Integer.toString(e.weight);
+        int width = labelMetrics.stringWidth(weightStr) + 6;
+        int height = labelMetrics.getHeight();
+
+        g2.setColor(Color.BLACK);
+        g2.fillRect(midX - 3, midY - height + 3, width + 5, height + 5);
+        g2.setColor(Color.WHITE);
+        g2.drawString(weightStr, midX, midY);
+    }
 
-            if (n == selectedForEdge) {
+    // in the graph layer every node is plain; the overlay draws it again with its state
+    private void drawNode(Graphics2D g2, Node n, boolean overlay, boolean circles, boolean labels) {
+        Color fill = Color.WHITE;
+        if (overlay && nodeVisited.get(n.id)) {
+            fill = Color.ORANGE;
+        } else if (overlay && nodeVisitedBackward.get(n.id)) {
+            fill = Color.CYAN;
+        } else if (overlay && shadedSources.get(n.id)) {
+            fill = SHADE_SOURCE_COLOR;
+        } else if (overlay && shadedNodes.get(n.id)) {
+            fill = SHADE_COLOR;
+        }
+        if (!circles) {
+            // level of detail: every node is a 3x3 pixel square
+            int sx = screenX(n.x), sy = screenY(n.y);
+            if (overlay && (n == srcNode || n == destNode || n == selectedForEdge)) {
                 g2.setColor(Color.RED);
-                g2.setStroke(new BasicStroke(3));
-                g2.drawOval(n.x - n.r - 2, n.y - n.r - 2, 2 * n.r + 4, 2 * n.r + 4);
-                g2.setStroke(new BasicStroke(1));
-            } else {
-                g2.setColor(Color.BLACK);
-                g2.drawOval(n.x - n.r, n.y - n.r, 2 * n.r, 2 * n.r);
+                g2.fillRect(sx - 4, sy - 4, 9, 9);
             }
+            g2.setColor(fill);
+            g2.fillRect(sx - 1, sy - 1, 3, 3);
+            return;
+        }
+        g2.setColor(fill);
+        g2.fillOval(n.x - n.r, n.y - n.r, 2 * n.r, 2 * n.r);
 
+        if (overlay && n == selectedForEdge) {
+            g2.setColor(Color.RED);
+            g2.setStroke(PATH_STROKE);
+            g2.drawOval(n.x - n.r - 2, n.y - n.r - 2, 2 * n.r + 4, 2 * n.r + 4);
+            g2.setStroke(THIN_STROKE);
+        } else {
             g2.setColor(Color.BLACK);
-            g2.drawString(n.name, n.x - 5, n.y + 5);
+            g2.drawOval(n.x - n.r, n.y - n.r, 2 * n.r, 2 * n.r);
+        }
 
-            if (n == srcNode) createTag(g2, "S", n.x - 50, n.y - 50);
-            if (n == destNode) createTag(g2, "D", n.x + 50, n.y - 50);
+        if (labels) {
+            g2.setColor(Color.BLACK);
+            g2.drawString(n.name, n.x - 5, n.y + 5);
         }
     }
 // 6. helps in paintComponent method to generate the tag
@@ -459,8 +1496,9 @@ public class GraphCanvas extends JPanel {
         g2.setColor(Color.BLACK);
         g2.drawRect(x - 4, y - 14, 20, 20);
         g2.setColor(Color.white);
-        g2.setFont(new Font("Arial", Font.BOLD, 14));
+        g2.setFont(TAG_FONT);
         g2.drawString(label, x, y);
+        g2.setFont(LABEL_FONT);
     }
 //  help in paintComponent method to show the direction of the edge
     private void drawDirection(Graphics2D g2, int x1, int y1, int x2, int y2) {
@@ -486,9 +1524,12 @@ public class GraphCanvas extends JPanel {
         g2.drawLine(x1, y1, endX, endY);
 
         g2.setColor(Color.BLACK);
-        g2.fillPolygon(new int[] {endX, arrowX2, arrowX3}, new int[] {endY, arrowY2, arrowY3}, 3);
-
-
-        g2.setColor(edgePath.contains(new Edge(new Node("", x1, y1), new Node("", x2, y2), 0)) ? Color.RED : Color.BLACK);
+        arrowX[0] = endX;
+        arrowX[1] = arrowX2;
+        arrowX[2] = arrowX3;
+        arrowY[0] = endY;
+        arrowY[1] = arrowY2;
+        arrowY[2] = arrowY3;
+        g2.fillPolygon(arrowX, arrowY, 3);
     }
 }
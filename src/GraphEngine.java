@@ -0,0 +1,482 @@
+/*This class holds the network topology without any Swing code.
+  GraphCanvas edits it through these methods and only draws what is stored here.
+  Node and Edge objects live in arrays indexed by their ids, and the int adjacency is
+  updated in place by every change, so searches never have to rebuild anything.
+
+  Threads: one thread edits (the event dispatch thread in the GUI) and may read the live state
+  directly. Every other thread works on a GraphVersion from version(), an immutable snapshot
+  that edits never touch, so searches run without locks while the user keeps editing. Edits
+  hold the engine's lock only while they change the arrays; listeners are told afterwards.
+ */
+import java.util.*;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.IntConsumer;
+
+public class GraphEngine {
+    private final DynamicAdjacency adjacency = new DynamicAdjacency();
+    private final SpatialGrid grid = new SpatialGrid();
+    private final LabelIndex labels = new LabelIndex();
+    private VersionedArray<Node> nodeById = new VersionedArray<>();
+    private VersionedArray<Edge> edgeById = new VersionedArray<>();
+    private volatile boolean isDirected = false;
+    private static final int NODE_RADIUS = 20; // Node.r
+    // edgesIn finds an edge through its ends unless it spans more than this in x or y; the longer
+    // ones are kept in a list (longSlot holds the index in it + 1, 0 for short edges)
+    private static final int LONG_EDGE = SpatialGrid.CELL_SIZE;
+    private int[] longEdges = new int[16];
+    private int longCount = 0;
+    private int[] longSlot = new int[16];
+    // search state of the calling thread, which searchSummary reports on; the canvas runs its searches
+    // on one long-lived thread, so they all reuse the same arrays
+    private final ThreadLocal<Searches> searches = ThreadLocal.withInitial(Searches::new);
+    // search state for queries on pinned versions: a query borrows one for its run, so short-lived
+    // (virtual) threads reuse the arrays instead of allocating them for every query
+    private final ConcurrentLinkedQueue<Searches> idleSearches = new ConcurrentLinkedQueue<>();
+    private final List<TopologyListener> listeners = new CopyOnWriteArrayList<>();
+    private RoutingTables routingTables = null;
+    private DynamicShortestPathTree shortestPathTree = null;
+    private ConnectivityIndex connectivity = null;
+    // the last published version, and whether an edit came after it
+    private GraphVersion published = null;
+    private boolean changed = true;
+    private long versionNumber = 0;
+
+    private static final class Searches {
+        final BfsSearch bfs = new BfsSearch();
+        final DirectionOptimizingBfs directionOptimizingBfs = new DirectionOptimizingBfs();
+        final ParallelBfs parallelBfs = new ParallelBfs();
+        final DijkstraSearch dijkstra = new DijkstraSearch();
+        final BidirectionalBfs bidirectionalBfs = new BidirectionalBfs();
+        final ReachabilitySearch reachability = new ReachabilitySearch();
+    }
+
+    public void addTopologyListener(TopologyListener listener) {
+        listeners.add(listener);
+    }
+
+    // created on first use so graphs that never use table lookups do not pay for the bookkeeping
+    public synchronized RoutingTables routingTables() {
+        if (routingTables == null) routingTables = new RoutingTables(this);
+        return routingTables;
+    }
+
+    // answers "is there a path at all" in near O(1), created on first use like the tables
+    public synchronized ConnectivityIndex connectivity() {
+        if (connectivity == null) connectivity = new ConnectivityIndex(this);
+        return connectivity;
+    }
+
+    // the single tree the canvas keeps repaired across edits, created on first use like the tables
+    public synchronized DynamicShortestPathTree shortestPathTree() {
+        if (shortestPathTree == null) shortestPathTree = new DynamicShortestPathTree(this);
+        return shortestPathTree;
+    }
+
+/*  The current topology as an immutable version, for threads other than the editing one.
+    Publishing is O(1): the arrays are frozen, and the next edit copies the pages it changes.
+    Without edits since the last call the same version is returned.
+ */
+    public synchronized GraphVersion version() {
+        if (changed) {
+            published = new GraphVersion(++versionNumber, isDirected, adjacency.freeze(), nodeById.freeze(), edgeById.freeze());
+            changed = false;
+        }
+        return published;
+    }
+
+    public boolean isDirected() {
+        return isDirected;
+    }
+
+    // only picks the other view of the same adjacency arrays, nothing is copied
+    public void setDirected(boolean directed) {
+        synchronized (this) {
+            if (isDirected == directed) return;
+            isDirected = directed;
+            changed = true;
+        }
+        for (TopologyListener l : listeners) l.topologyReset();
+    }
+
+    // the live adjacency, for the editing thread (and listeners, which it calls)
+    public GraphView view() {
+        return adjacency.view(isDirected);
+    }
+
+    public GraphView reverseView() {
+        return adjacency.reverseView(isDirected);
+    }
+
+    DynamicAdjacency adjacency() {
+        return adjacency;
+    }
+
+    // ids run from 0 to nodeCapacity() - 1; node(id) is null for deleted ids
+    public int nodeCapacity() {
+        return adjacency.nodeCapacity();
+    }
+
+    public int edgeCapacity() {
+        return adjacency.edgeCapacity();
+    }
+
+    Node node(int id) {
+        return nodeById.get(id);
+    }
+
+    Edge edge(int id) {
+        return edgeById.get(id);
+    }
+
+    // labels are unique ignoring case; a taken label is rejected with IllegalArgumentException
+    public void addNode(Node node) {
+        synchronized (this) {
+            if (labels.get(node.name) >= 0) {
+                throw new IllegalArgumentException("Node " + node.name + " already exists.");
+            }
+            node.id = adjacency.addNode();
+            labels.put(node.name, node.id);
+            nodeById.set(node.id, node);
+            grid.insert(node.id, node.x, node.y);
+            changed = true;
+        }
+        for (TopologyListener l : listeners) l.nodeAdded(node.id);
+    }
+
+    public void addEdge(Edge edge) {
+        synchronized (this) {
+            edge.id = adjacency.addEdge(edge.from.id, edge.to.id, edge.weight);
+            edgeById.set(edge.id, edge);
+            updateLength(edge);
+            changed = true;
+        }
+        for (TopologyListener l : listeners) l.edgeAdded(edge.id, edge.from.id, edge.to.id, edge.weight);
+    }
+
+    public void addEdges(Collection<Edge> restored) {
+        for (Edge e : restored) addEdge(e);
+    }
+
+    // removes the node in O(degree) and returns the edges that were attached to it
+    public List<Edge> removeNode(Node node) {
+        List<Edge> removed = new ArrayList<>();
+        synchronized (this) {
+            adjacency.removeNode(node.id, e -> {
+                removed.add(edgeById.get(e));
+                edgeById.set(e, null);
+                dropLong(e);
+            });
+            grid.remove(node.id);
+            labels.remove(node.name);
+            nodeById.set(node.id, null);
+            changed = true;
+        }
+        for (Edge e : removed) {
+            for (TopologyListener l : listeners) l.edgeRemoved(e.id, e.from.id, e.to.id, e.weight);
+            e.id = -1;
+        }
+        for (TopologyListener l : listeners) l.nodeRemoved(node.id);
+        node.id = -1;
+        return removed;
+    }
+
+    // removes the edge from -> to, and to -> from as well when the graph is undirected
+    public List<Edge> removeEdge(Node from, Node to) {
+        List<Edge> removed = new ArrayList<>();
+        synchronized (this) {
+            for (int i = 0; i < adjacency.outDegree(from.id); i++) {
+                int e = adjacency.outEdge(from.id, i);
+                if (adjacency.to(e) == to.id) removed.add(edgeById.get(e));
+            }
+            if (!isDirected) {
+                for (int i = 0; i < adjacency.inDegree(from.id); i++) {
+                    int e = adjacency.inEdge(from.id, i);
+                    if (adjacency.from(e) == to.id) removed.add(edgeById.get(e));
+                }
+            }
+            for (Edge e : removed) {
+                adjacency.removeEdge(e.id);
+                edgeById.set(e.id, null);
+                dropLong(e.id);
+            }
+            changed = true;
+        }
+        for (Edge e : removed) {
+            for (TopologyListener l : listeners) l.edgeRemoved(e.id, e.from.id, e.to.id, e.weight);
+            e.id = -1;
+        }
+        return removed;
+    }
+
+    // removes exactly this edge, whatever the direction mode
+    public void removeEdge(Edge edge) {
+        synchronized (this) {
+            adjacency.removeEdge(edge.id);
+            edgeById.set(edge.id, null);
+            dropLong(edge.id);
+            changed = true;
+        }
+        for (TopologyListener l : listeners) l.edgeRemoved(edge.id, edge.from.id, edge.to.id, edge.weight);
+        edge.id = -1;
+    }
+
+    // an edge from -> to with this weight (any weight when it is negative), or null; O(degree).
+    // Undirected graphs also match an edge stored the other way round.
+    public Edge findEdge(Node from, Node to, int weight) {
+        for (int i = 0; i < adjacency.outDegree(from.id); i++) {
+            int e = adjacency.outEdge(from.id, i);
+            if (adjacency.to(e) == to.id && (weight < 0 || adjacency.weight(e) == weight)) return edgeById.get(e);
+        }
+        if (isDirected) return null;
+        for (int i = 0; i < adjacency.inDegree(from.id); i++) {
+            int e = adjacency.inEdge(from.id, i);
+            if (adjacency.from(e) == to.id && (weight < 0 || adjacency.weight(e) == weight)) return edgeById.get(e);
+        }
+        return null;
+    }
+
+    // published versions keep their arrays, the live graph starts over with new ones
+    public void clear() {
+        synchronized (this) {
+            adjacency.clear();
+            grid.clear();
+            labels.clear();
+            nodeById = new VersionedArray<>();
+            edgeById = new VersionedArray<>();
+            longEdges = new int[16];
+            longCount = 0;
+            longSlot = new int[16];
+            changed = true;
+        }
+        for (TopologyListener l : listeners) l.topologyReset();
+    }
+
+    // positions are not versioned, only the canvas reads them
+    public void moveNode(Node node, int x, int y) {
+        node.x = x;
+        node.y = y;
+        grid.move(node.id, x, y);
+        for (int i = 0; i < adjacency.outDegree(node.id); i++) updateLength(edgeById.get(adjacency.outEdge(node.id, i)));
+        for (int i = 0; i < adjacency.inDegree(node.id); i++) updateLength(edgeById.get(adjacency.inEdge(node.id, i)));
+    }
+
+    private void updateLength(Edge e) {
+        boolean isLong = Math.abs(e.from.x - e.to.x) > LONG_EDGE || Math.abs(e.from.y - e.to.y) > LONG_EDGE;
+        if (e.id >= longSlot.length) longSlot = Arrays.copyOf(longSlot, Math.max(e.id + 1, longSlot.length * 2));
+        if (!isLong) {
+            dropLong(e.id);
+        } else if (longSlot[e.id] == 0) {
+            if (longCount == longEdges.length) longEdges = Arrays.copyOf(longEdges, longCount * 2);
+            longEdges[longCount++] = e.id;
+            longSlot[e.id] = longCount;
+        }
+    }
+
+    // the last long edge takes the slot of the dropped one
+    private void dropLong(int id) {
+        if (id >= longSlot.length || longSlot[id] == 0) return;
+        int last = longEdges[--longCount];
+        longEdges[longSlot[id] - 1] = last;
+        longSlot[last] = longSlot[id];
+        longSlot[id] = 0;
+    }
+
+    // the node under the point (closest centre wins when circles overlap), or null
+    public Node nodeAt(int x, int y) {
+        int id = grid.nearest(x, y, NODE_RADIUS);
+        return id < 0 ? null : nodeById.get(id);
+    }
+
+    // ids of the nodes whose centre lies in the rectangle grown by margin
+    public void nodesIn(int x, int y, int width, int height, int margin, IntConsumer out) {
+        grid.query(x, y, width, height, margin, out);
+    }
+
+    // ids of the edges that may cross the rectangle, each once: the edges of the nodes within
+    // LONG_EDGE of it (a shorter edge that crosses it has an end there) and the long edges.
+    // Costs the nodes near the rectangle and their degrees plus the long edges, not every edge.
+    public void edgesIn(int x, int y, int width, int height, IntConsumer out) {
+        int left = x - LONG_EDGE, top = y - LONG_EDGE, right = x + width + LONG_EDGE, bottom = y + height + LONG_EDGE;
+        grid.query(x, y, width, height, LONG_EDGE, v -> {
+            for (int i = 0; i < adjacency.outDegree(v); i++) out.accept(adjacency.outEdge(v, i));
+            // an edge whose tail is near as well was reported with the tail's out-edges
+            for (int i = 0; i < adjacency.inDegree(v); i++) {
+                int e = adjacency.inEdge(v, i);
+                if (!near(nodeById.get(adjacency.from(e)), left, top, right, bottom)) out.accept(e);
+            }
+        });
+        for (int i = 0; i < longCount; i++) {
+            Edge e = edgeById.get(longEdges[i]);
+            if (!near(e.from, left, top, right, bottom) && !near(e.to, left, top, right, bottom)) out.accept(e.id);
+        }
+    }
+
+    private static boolean near(Node n, int left, int top, int right, int bottom) {
+        return n.x >= left && n.x <= right && n.y >= top && n.y <= bottom;
+    }
+
+    public Node getNodeByName(String name) {
+        int id = labels.get(name);
+        return id < 0 ? null : nodeById.get(id);
+    }
+
+    public int nodeCount() {
+        return adjacency.nodeCount();
+    }
+
+    // A, B, ..., Z, AA, AB, ... like spreadsheet columns, so generated names never run out
+    static String generatedLabel(int index) {
+        StringBuilder label = new StringBuilder();
+        for (int n = index + 1; n > 0; n = (n - 1) / 26) {
+            label.append((char) ('A' + (n - 1) % 26));
+        }
+        return label.reverse().toString();
+    }
+
+    // frozen CSR copy of the current version for bulk consumers; safe from any thread
+    public CsrGraph compact() {
+        return CsrGraph.of(version().view());
+    }
+
+/*  Hop-shortest path from src to dst, or null when dst cannot be reached.
+    The listener sees every visit and enqueue of the search.
+ */
+    public PathResult bfsPath(Node src, Node dst, SearchListener listener) {
+        return search(SearchMode.BFS, src, dst, listener);
+    }
+
+/*  Runs the search selected by mode and returns the path, or null when dst cannot be reached.
+    The BFS modes return a hop-shortest path, DIJKSTRA and ROUTING_TABLE the path with the
+    lowest total weight. The search runs on the current version, so it is safe from any thread.
+ */
+    public PathResult search(SearchMode mode, Node src, Node dst, SearchListener listener) {
+        GraphVersion version = version();
+        return search(searches.get(), version, mode, version.idOf(src), version.idOf(dst), listener);
+    }
+
+    // the same on a version the caller pinned; null as well when src or dst is not in it (any more)
+    public PathResult search(GraphVersion version, SearchMode mode, Node src, Node dst, SearchListener listener) {
+        return search(version, mode, version.idOf(src), version.idOf(dst), listener);
+    }
+
+    // by ids taken from the version, which stay valid there even after the nodes are deleted
+    public PathResult search(GraphVersion version, SearchMode mode, int s, int d, SearchListener listener) {
+        Searches state = borrowSearches();
+        try {
+            return search(state, version, mode, s, d, listener);
+        } finally {
+            idleSearches.offer(state);
+        }
+    }
+
+/*  Every node within maxHops of one of the sources (everything they can reach when maxHops < 0),
+    sources included, as ascending node ids of the version. Ids not in the version are ignored.
+    The array is as big as the answer, so small neighbourhoods of big graphs stay cheap.
+ */
+    public int[] reachable(GraphVersion version, int[] sources, int maxHops) {
+        Searches state = borrowSearches();
+        try {
+            state.reachability.run(version.view(), version.reverseView(), liveIds(version, sources), maxHops, -1);
+            return state.reachability.reachedNodes();
+        } finally {
+            idleSearches.offer(state);
+        }
+    }
+
+    // hop-shortest path to d from whichever of the sources is nearest, null when none of them reaches it
+    public PathResult nearestSource(GraphVersion version, int[] sources, int d) {
+        if (!version.isLive(d)) return null;
+        Searches state = borrowSearches();
+        try {
+            ReachabilitySearch reachability = state.reachability;
+            reachability.run(version.view(), version.reverseView(), liveIds(version, sources), -1, d);
+            if (!reachability.isReached(d)) return null;
+            return version.toPathResult(reachability.path(d), reachability.pathEdges(d));
+        } finally {
+            idleSearches.offer(state);
+        }
+    }
+
+    private Searches borrowSearches() {
+        Searches state = idleSearches.poll();
+        return state != null ? state : new Searches();
+    }
+
+    private static int[] liveIds(GraphVersion version, int[] ids) {
+        int count = 0;
+        int[] live = new int[ids.length];
+        for (int id : ids) {
+            if (version.isLive(id)) live[count++] = id;
+        }
+        return count == ids.length ? ids : Arrays.copyOf(live, count);
+    }
+
+    private PathResult search(Searches state, GraphVersion version, SearchMode mode, int s, int d, SearchListener listener) {
+        if (!version.isLive(s) || !version.isLive(d)) return null;
+        GraphView out = version.view(), in = version.reverseView();
+        switch (mode) {
+            case DIRECTION_OPTIMIZING:
+                if (!state.directionOptimizingBfs.run(out, in, s, d, listener)) return null;
+                return version.toPathResult(state.directionOptimizingBfs.path(d), state.directionOptimizingBfs.pathEdges(d));
+            case PARALLEL:
+                if (!state.parallelBfs.run(out, s, d, listener)) return null;
+                return version.toPathResult(state.parallelBfs.path(d), state.parallelBfs.pathEdges(d));
+            case BIDIRECTIONAL:
+                if (!state.bidirectionalBfs.run(out, in, s, d, listener)) return null;
+                return version.toPathResult(state.bidirectionalBfs.path(), state.bidirectionalBfs.pathEdges());
+            case ROUTING_TABLE:
+                RoutingTables.Route route = routingTables().route(s, d);
+                // the tables follow the live graph: once it is ahead of this version, a route may be
+                // missing, gone or no longer the cheapest here, so the version is searched instead
+                if (route == null || version != version() || !version.isPath(route.nodes, route.edges)) {
+                    return search(state, version, SearchMode.DIJKSTRA, s, d, listener);
+                }
+                if (listener != null) {
+                    for (int v : route.nodes) listener.visit(v);
+                }
+                return version.toPathResult(route.nodes, route.edges);
+            case DIJKSTRA:
+                if (!state.dijkstra.run(out, s, d, listener)) return null;
+                return version.toPathResult(state.dijkstra.path(d), state.dijkstra.pathEdges(d));
+            default:
+                if (!state.bfs.run(out, s, d, listener)) return null;
+                return version.toPathResult(state.bfs.path(d), state.bfs.pathEdges(d));
+        }
+    }
+
+    // one line describing how this thread's last search(mode, src, dst, listener) went, or null if there is nothing to add
+    public String searchSummary(SearchMode mode) {
+        Searches state = searches.get();
+        DirectionOptimizingBfs directionOptimizingBfs = state.directionOptimizingBfs;
+        BidirectionalBfs bidirectionalBfs = state.bidirectionalBfs;
+        DijkstraSearch dijkstra = state.dijkstra;
+        ParallelBfs parallelBfs = state.parallelBfs;
+        if (mode == SearchMode.DIRECTION_OPTIMIZING) {
+            return "Edges checked: " + directionOptimizingBfs.edgesChecked()
+                    + " (top-down levels: " + directionOptimizingBfs.topDownLevels()
+                    + ", bottom-up levels: " + directionOptimizingBfs.bottomUpLevels() + ")";
+        }
+        if (mode == SearchMode.BIDIRECTIONAL) {
+            return "Nodes explored: " + bidirectionalBfs.exploredForward() + " from the source, "
+                    + bidirectionalBfs.exploredBackward() + " from the destination";
+        }
+        if (mode == SearchMode.ROUTING_TABLE) {
+            return "Routing tables cached: " + routingTables().cachedTables()
+                    + ", dropped by topology changes: " + routingTables().invalidations();
+        }
+        if (mode == SearchMode.DIJKSTRA) {
+            return "Nodes settled: " + dijkstra.settledCount();
+        }
+        if (mode == SearchMode.PARALLEL) {
+            return "Levels: " + parallelBfs.levels() + ", largest frontier: " + parallelBfs.largestFrontier()
+                    + ", workers: " + parallelBfs.parallelism();
+        }
+        return null;
+    }
+
+    PathResult toPathResult(int[] nodeIds, int[] edgeIds) {
+        return version().toPathResult(nodeIds, edgeIds);
+    }
+}
@@ -0,0 +1,324 @@
+/*This class saves the topology to a versioned binary file and opens such files by memory-mapping
+  them. Opening does no parsing pass: searches run directly on the mapped arrays through
+  MappedCsrGraph, and node names are looked up in a hash table that is part of the file.
+
+  Layout, little-endian:
+    header: int magic "BFSG", int version, int flags (1 = directed, 2 = has positions),
+            int nodeCount n, int edgeCount m, int sectionCount,
+            then one long per section: its byte position in the file
+    sections, each 8-byte aligned, in this order:
+      OUT_OFFSETS   n + 1 ints   the out-edges of v are the slots OUT_OFFSETS[v] .. OUT_OFFSETS[v + 1] - 1
+      OUT_TARGETS   m ints
+      OUT_WEIGHTS   m ints
+      IN_OFFSETS    n + 1 ints   the same edges grouped by their target
+      IN_SOURCES    m ints
+      IN_WEIGHTS    m ints
+      IN_EDGES      m ints       the out slot of every in slot
+      X, Y          n ints each, empty without positions
+      LABEL_OFFSETS n + 1 ints   the name of v is LABEL_BYTES[LABEL_OFFSETS[v] .. LABEL_OFFSETS[v + 1]) in UTF-8
+      LABEL_BYTES
+      LABEL_TABLE   power of two ints: open addressing by normalized name, -1 when empty
+  Edge ids are out slots. Files of a newer version are rejected; a later version may append
+  sections after these without breaking older readers.
+ */
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.function.IntFunction;
+
+public class GraphSnapshot {
+    static final int MAGIC = 'B' | 'F' << 8 | 'S' << 16 | 'G' << 24;
+    static final int VERSION = 1;
+    static final int DIRECTED = 1, POSITIONS = 2;
+    private static final int OUT_OFFSETS = 0, OUT_TARGETS = 1, OUT_WEIGHTS = 2, IN_OFFSETS = 3, IN_SOURCES = 4,
+            IN_WEIGHTS = 5, IN_EDGES = 6, X = 7, Y = 8, LABEL_OFFSETS = 9, LABEL_BYTES = 10, LABEL_TABLE = 11;
+    private static final int SECTIONS = 12;
+    private static final int HEADER_SIZE = 24 + 8 * SECTIONS;
+
+    private final int nodeCount, edgeCount;
+    private final boolean directed;
+    private final MappedCsrGraph out, in;
+    private final MappedCsrGraph.Ints x, y, labelOffsets, labelTable;
+    private final ByteBuffer labelBytes;
+    private GraphView both;
+
+    private GraphSnapshot(int nodeCount, int edgeCount, boolean directed, MappedCsrGraph out, MappedCsrGraph in,
+                          MappedCsrGraph.Ints x, MappedCsrGraph.Ints y, MappedCsrGraph.Ints labelOffsets,
+                          ByteBuffer labelBytes, MappedCsrGraph.Ints labelTable) {
+        this.nodeCount = nodeCount;
+        this.edgeCount = edgeCount;
+        this.directed = directed;
+        this.out = out;
+        this.in = in;
+        this.x = x;
+        this.y = y;
+        this.labelOffsets = labelOffsets;
+        this.labelBytes = labelBytes;
+        this.labelTable = labelTable;
+    }
+
+    public int nodeCount() {
+        return nodeCount;
+    }
+
+    public int edgeCount() {
+        return edgeCount;
+    }
+
+    public boolean isDirected() {
+        return directed;
+    }
+
+    public boolean hasPositions() {
+        return x.length > 0;
+    }
+
+    public int x(int v) {
+        return x.get(v);
+    }
+
+    public int y(int v) {
+        return y.get(v);
+    }
+
+    public String label(int v) {
+        int from = labelOffsets.get(v), to = labelOffsets.get(v + 1);
+        byte[] bytes = new byte[to - from];
+        labelBytes.get(from, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // id of the node with this name (ignoring case, like LabelIndex), or -1
+    public int nodeId(String name) {
+        String key = LabelIndex.normalize(name);
+        int mask = (int) labelTable.length - 1;
+        for (int i = hash(key) & mask; ; i = (i + 1) & mask) {
+            int v = labelTable.get(i);
+            if (v < 0) return -1;
+            if (LabelIndex.normalize(label(v)).equals(key)) return v;
+        }
+    }
+
+    // the stored direction
+    public GraphView view() {
+        return view(directed);
+    }
+
+    public GraphView reverseView() {
+        return reverseView(directed);
+    }
+
+    public synchronized GraphView view(boolean directed) {
+        if (directed) return out;
+        if (both == null) both = MappedCsrGraph.bothDirections(out, in);
+        return both;
+    }
+
+    public synchronized GraphView reverseView(boolean directed) {
+        return directed ? in : view(false);
+    }
+
+    // at most half full
+    private static int tableSize(int n) {
+        return Integer.highestOneBit(Math.max(1, n) * 2 - 1) << 1;
+    }
+
+    private static int hash(String key) {
+        return key.hashCode() * 0x9E3779B9;
+    }
+
+    // true when the file starts like a snapshot, so callers can tell it from a text edge list
+    public static boolean isSnapshot(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer magic = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+            while (magic.hasRemaining() && channel.read(magic) >= 0) {
+                // fill the magic number
+            }
+            return !magic.hasRemaining() && magic.getInt(0) == MAGIC;
+        }
+    }
+
+    public static GraphSnapshot open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // fill the header
+            }
+            header.flip();
+            if (header.remaining() < 24 || header.getInt() != MAGIC) throw new IOException("Not a graph snapshot: " + path);
+            int version = header.getInt();
+            if (version > VERSION) throw new IOException("Snapshot version " + version + " is newer than this program (" + VERSION + ")");
+            int flags = header.getInt();
+            int n = header.getInt(), m = header.getInt(), sections = header.getInt();
+            if (sections < SECTIONS || header.remaining() < 8 * SECTIONS) throw new IOException("Damaged snapshot header: " + path);
+            long[] position = new long[SECTIONS];
+            for (int s = 0; s < SECTIONS; s++) position[s] = header.getLong();
+
+            int positions = (flags & POSITIONS) != 0 ? n : 0;
+            MappedCsrGraph.Ints labelOffsets = ints(channel, size, position[LABEL_OFFSETS], n + 1L);
+            int labelLength = labelOffsets.get(n);
+            if (position[LABEL_BYTES] + labelLength > size) throw new IOException("Truncated snapshot: " + path);
+            ByteBuffer labelBytes = channel.map(FileChannel.MapMode.READ_ONLY, position[LABEL_BYTES], labelLength);
+            MappedCsrGraph.Ints labelTable = ints(channel, size, position[LABEL_TABLE], tableSize(n));
+
+            MappedCsrGraph out = new MappedCsrGraph(n, ints(channel, size, position[OUT_OFFSETS], n + 1L),
+                    ints(channel, size, position[OUT_TARGETS], m), ints(channel, size, position[OUT_WEIGHTS], m), null);
+            MappedCsrGraph in = new MappedCsrGraph(n, ints(channel, size, position[IN_OFFSETS], n + 1L),
+                    ints(channel, size, position[IN_SOURCES], m), ints(channel, size, position[IN_WEIGHTS], m),
+                    ints(channel, size, position[IN_EDGES], m));
+            return new GraphSnapshot(n, m, (flags & DIRECTED) != 0, out, in,
+                    ints(channel, size, position[X], positions), ints(channel, size, position[Y], positions),
+                    labelOffsets, labelBytes, labelTable);
+        }
+    }
+
+    private static MappedCsrGraph.Ints ints(FileChannel channel, long size, long position, long length) throws IOException {
+        if (position + length * 4 > size) throw new IOException("Truncated snapshot");
+        return new MappedCsrGraph.Ints(channel, position, length);
+    }
+
+    // saves the live part of the graph; node and edge ids are renumbered densely in id order
+    public static void write(Path path, GraphEngine graph) throws IOException {
+        DynamicAdjacency adjacency = graph.adjacency();
+        int capacity = graph.nodeCapacity();
+        int[] dense = new int[capacity];
+        int n = 0;
+        for (int v = 0; v < capacity; v++) dense[v] = adjacency.isLive(v) ? n++ : -1;
+
+        int m = adjacency.edgeCount();
+        int[] offsets = new int[n + 1];
+        int[] targets = new int[m];
+        int[] weights = new int[m];
+        String[] labels = new String[n];
+        int[] x = new int[n], y = new int[n];
+        int slot = 0;
+        for (int v = 0; v < capacity; v++) {
+            if (dense[v] < 0) continue;
+            Node node = graph.node(v);
+            labels[dense[v]] = node.name;
+            x[dense[v]] = node.x;
+            y[dense[v]] = node.y;
+            for (int i = 0; i < adjacency.outDegree(v); i++) {
+                int e = adjacency.outEdge(v, i);
+                targets[slot] = dense[adjacency.to(e)];
+                weights[slot] = adjacency.weight(e);
+                slot++;
+            }
+            offsets[dense[v] + 1] = slot;
+        }
+        int[] slots = new int[m];
+        Arrays.setAll(slots, i -> i);
+        write(path, new CsrGraph(n, offsets, targets, weights, slots), v -> labels[v], x, y, graph.isDirected());
+    }
+
+/*  out must number its edges by slot (edgeIds[i] == i). x and y may be null when there are no
+    positions.
+ */
+    static void write(Path path, CsrGraph out, IntFunction<String> label, int[] x, int[] y, boolean directed) throws IOException {
+        int n = out.nodeCount, m = out.edgeCount();
+        CsrGraph in = out.transpose();
+
+        int[] labelOffsets = new int[n + 1];
+        ByteArrayOutputStream labelBytes = new ByteArrayOutputStream();
+        int[] table = new int[tableSize(n)];
+        Arrays.fill(table, -1);
+        int mask = table.length - 1;
+        for (int v = 0; v < n; v++) {
+            String name = label.apply(v);
+            labelBytes.writeBytes(name.getBytes(StandardCharsets.UTF_8));
+            labelOffsets[v + 1] = labelBytes.size();
+            int i = hash(LabelIndex.normalize(name)) & mask;
+            while (table[i] >= 0) i = (i + 1) & mask;
+            table[i] = v;
+        }
+        int positions = x != null ? n : 0;
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            Output output = new Output(channel, HEADER_SIZE);
+            long[] position = new long[SECTIONS];
+            position[OUT_OFFSETS] = output.ints(out.offsets, n + 1);
+            position[OUT_TARGETS] = output.ints(out.targets, m);
+            position[OUT_WEIGHTS] = output.ints(out.weights, m);
+            position[IN_OFFSETS] = output.ints(in.offsets, n + 1);
+            position[IN_SOURCES] = output.ints(in.targets, m);
+            position[IN_WEIGHTS] = output.ints(in.weights, m);
+            position[IN_EDGES] = output.ints(in.edgeIds, m);
+            position[X] = output.ints(x, positions);
+            position[Y] = output.ints(y, positions);
+            position[LABEL_OFFSETS] = output.ints(labelOffsets, n + 1);
+            position[LABEL_BYTES] = output.bytes(labelBytes.toByteArray());
+            position[LABEL_TABLE] = output.ints(table, table.length);
+            output.drain();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).putInt((directed ? DIRECTED : 0) | (positions > 0 ? POSITIONS : 0));
+            header.putInt(n).putInt(m).putInt(SECTIONS);
+            for (long p : position) header.putLong(p);
+            header.flip();
+            channel.write(header, 0);
+        }
+    }
+
+    // buffered little-endian writes that keep every section 8-byte aligned
+    private static final class Output {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+        private long position;
+
+        Output(FileChannel channel, long start) throws IOException {
+            this.channel = channel;
+            this.position = start;
+            channel.position(start);
+        }
+
+        // returns where the section starts
+        long ints(int[] values, int count) throws IOException {
+            long start = position;
+            for (int i = 0; i < count; ) {
+                if (buffer.remaining() < 4) drain();
+                int k = Math.min(count - i, buffer.remaining() / 4);
+                buffer.asIntBuffer().put(values, i, k);
+                buffer.position(buffer.position() + k * 4);
+                i += k;
+                position += k * 4L;
+            }
+            align();
+            return start;
+        }
+
+        long bytes(byte[] values) throws IOException {
+            long start = position;
+            for (int i = 0; i < values.length; ) {
+                if (!buffer.hasRemaining()) drain();
+                int k = Math.min(values.length - i, buffer.remaining());
+                buffer.put(values, i, k);
+                i += k;
+                position += k;
+            }
+            align();
+            return start;
+        }
+
+        private void align() throws IOException {
+            while (position % 8 != 0) {
+                if (!buffer.hasRemaining()) drain();
+                buffer.put((byte) 0);
+                position++;
+            }
+        }
+
+        void drain() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) channel.write(buffer);
+            buffer.clear();
+        }
+    }
+}
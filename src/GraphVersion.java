@@ -0,0 +1,105 @@
+/*This class is one published state of the topology: the adjacency, the Node and Edge objects by
+  id and the direction mode. It never changes, so any number of threads can search it without
+  locks while the user keeps editing; GraphEngine.version() returns the newest one. Versions
+  share every page nobody edited with each other and with the live graph, so publishing one
+  costs O(1) plus the pages the edits since the last one copied.
+  Node positions are not part of a version, only the canvas reads them.
+ */
+import java.util.ArrayList;
+import java.util.List;
+
+public class GraphVersion {
+    private final long number;
+    private final boolean directed;
+    private final DynamicAdjacency.Version adjacency;
+    private final VersionedArray<Node> nodes;
+    private final VersionedArray<Edge> edges;
+
+    GraphVersion(long number, boolean directed, DynamicAdjacency.Version adjacency, VersionedArray<Node> nodes, VersionedArray<Edge> edges) {
+        this.number = number;
+        this.directed = directed;
+        this.adjacency = adjacency;
+        this.nodes = nodes;
+        this.edges = edges;
+    }
+
+    // grows with every published change
+    public long number() {
+        return number;
+    }
+
+    public boolean isDirected() {
+        return directed;
+    }
+
+    public GraphView view() {
+        return adjacency.view(directed);
+    }
+
+    public GraphView reverseView() {
+        return adjacency.reverseView(directed);
+    }
+
+    public int nodeCapacity() {
+        return adjacency.nodeCapacity();
+    }
+
+    public int nodeCount() {
+        return adjacency.nodeCount();
+    }
+
+    public int edgeCount() {
+        return adjacency.edgeCount();
+    }
+
+    public boolean isLive(int id) {
+        return adjacency.isLive(id);
+    }
+
+    // null for ids that are not in use in this version
+    public Node node(int id) {
+        return id >= 0 && adjacency.isLive(id) ? nodes.get(id) : null;
+    }
+
+    public Edge edge(int id) {
+        return id >= 0 && id < edges.capacity() ? edges.get(id) : null;
+    }
+
+    // the node's id in this version, or -1 when it was added later or removed before
+    public int idOf(Node node) {
+        int id = node.id;
+        return node(id) == node ? id : -1;
+    }
+
+    // true when every edge joins the nodes around it in the path, in this version
+    boolean isPath(int[] nodeIds, int[] edgeIds) {
+        for (int k = 0; k < edgeIds.length; k++) {
+            Edge e = edge(edgeIds[k]);
+            if (e == null) return false;
+            int from = idOf(e.from), to = idOf(e.to);
+            boolean forward = from == nodeIds[k] && to == nodeIds[k + 1];
+            boolean backward = !directed && to == nodeIds[k] && from == nodeIds[k + 1];
+            if (!forward && !backward) return false;
+        }
+        return true;
+    }
+
+    // null when an id is not in this version, e.g. a route found on a newer one
+    PathResult toPathResult(int[] nodeIds, int[] edgeIds) {
+        List<Node> pathNodes = new ArrayList<>(nodeIds.length);
+        for (int id : nodeIds) {
+            Node n = node(id);
+            if (n == null) return null;
+            pathNodes.add(n);
+        }
+        List<Edge> pathEdges = new ArrayList<>(edgeIds.length);
+        long cost = 0;
+        for (int id : edgeIds) {
+            Edge e = edge(id);
+            if (e == null) return null;
+            pathEdges.add(e);
+            cost += e.weight;
+        }
+        return new PathResult(pathNodes, pathEdges, cost);
+    }
+}
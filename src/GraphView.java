@@ -0,0 +1,13 @@
+// Read-only adjacency seen by the search classes: node ids are 0..nodeCapacity()-1, neighbours are indexed 0..degree(v)-1.
+public interface GraphView {
+    int nodeCapacity();
+
+    int degree(int v);
+
+    int neighbor(int v, int i);
+
+    int weight(int v, int i);
+
+    // id of the edge behind neighbour i of v, so a path can be mapped back to Edge objects
+    int edgeId(int v, int i);
+}
@@ -0,0 +1,59 @@
+/*This class is what EdgeListImporter builds from a file: the edges as CSR arrays in the direction
+  they were written, plus the node positions when a coordinates file was given.
+  Node ids are dense, 0..nodeCount()-1, in increasing order of the ids used in the file; edge ids
+  are the order of the edge lines. The views the searches need are derived on first use.
+ */
+import java.util.Arrays;
+
+public class ImportedGraph {
+    static final int NO_POSITION = Integer.MIN_VALUE;
+
+    final CsrGraph out;       // one slot per edge line, in the row of its first node
+    final long[] fileIds;     // id used in the file of every node, ascending
+    final int[] x, y;         // null without a coordinates file; NO_POSITION for nodes it does not list
+    final boolean weighted;   // false when no line had a third column, then every weight is 1
+    final int skippedLines;   // headers, malformed lines, weights below 1 and self-loops
+    private CsrGraph in, both;
+
+    ImportedGraph(CsrGraph out, long[] fileIds, int[] x, int[] y, boolean weighted, int skippedLines) {
+        this.out = out;
+        this.fileIds = fileIds;
+        this.x = x;
+        this.y = y;
+        this.weighted = weighted;
+        this.skippedLines = skippedLines;
+    }
+
+    public int nodeCount() {
+        return out.nodeCapacity();
+    }
+
+    public int edgeCount() {
+        return out.edgeCount();
+    }
+
+    public boolean hasPosition(int v) {
+        return x != null && x[v] != NO_POSITION;
+    }
+
+    // dense id of a node named by its id in the file, or -1
+    public int nodeId(long fileId) {
+        int i = Arrays.binarySearch(fileIds, fileId);
+        return i < 0 ? -1 : i;
+    }
+
+    public synchronized GraphView view(boolean directed) {
+        return directed ? out : symmetric();
+    }
+
+    public synchronized GraphView reverseView(boolean directed) {
+        if (!directed) return symmetric();
+        if (in == null) in = out.transpose();
+        return in;
+    }
+
+    private CsrGraph symmetric() {
+        if (both == null) both = out.symmetric();
+        return both;
+    }
+}
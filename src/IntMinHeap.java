@@ -0,0 +1,102 @@
+/*This class is an indexed binary min-heap of int ids keyed by long priorities, kept in primitive
+  arrays so nothing is boxed. pos[] remembers where every id sits, which makes decreaseKey O(log n).
+ */
+import java.util.Arrays;
+
+public class IntMinHeap {
+    private int[] heap = new int[0];
+    private long[] key = new long[0];
+    // position of an id in heap, or -1 when it is not queued
+    private int[] pos = new int[0];
+    private int size = 0;
+
+    // empties the heap and makes room for ids 0..n-1
+    public void reset(int n) {
+        if (pos.length < n) {
+            int capacity = Math.max(n, pos.length * 2);
+            heap = new int[capacity];
+            key = new long[capacity];
+            pos = new int[capacity];
+            Arrays.fill(pos, -1);
+        } else {
+            for (int i = 0; i < size; i++) pos[heap[i]] = -1;
+        }
+        size = 0;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean contains(int id) {
+        return pos[id] >= 0;
+    }
+
+    public long minKey() {
+        return key[heap[0]];
+    }
+
+    // inserts id, or lowers its key if it is already queued with a larger one
+    public void push(int id, long k) {
+        if (pos[id] < 0) {
+            heap[size] = id;
+            pos[id] = size;
+            key[id] = k;
+            siftUp(size++);
+        } else if (k < key[id]) {
+            key[id] = k;
+            siftUp(pos[id]);
+        }
+    }
+
+    public int pop() {
+        int top = heap[0];
+        pos[top] = -1;
+        if (--size > 0) {
+            heap[0] = heap[size];
+            pos[heap[0]] = 0;
+            siftDown(0);
+        }
+        return top;
+    }
+
+    private void siftUp(int i) {
+        int id = heap[i];
+        long k = key[id];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            int p = heap[parent];
+            if (key[p] <= k) break;
+            heap[i] = p;
+            pos[p] = i;
+            i = parent;
+        }
+        heap[i] = id;
+        pos[id] = i;
+    }
+
+    private void siftDown(int i) {
+        int id = heap[i];
+        long k = key[id];
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            int c = heap[child];
+            int right = child + 1;
+            if (right < size && key[heap[right]] < key[c]) {
+                child = right;
+                c = heap[child];
+            }
+            if (k <= key[c]) break;
+            heap[i] = c;
+            pos[c] = i;
+            i = child;
+        }
+        heap[i] = id;
+        pos[id] = i;
+    }
+}
@@ -0,0 +1,85 @@
+/*This class maps node labels to node ids with open addressing over plain arrays (no Integer boxing).
+  Labels are upper-cased once when they are stored or looked up, so lookups are case-insensitive.
+ */
+import java.util.Arrays;
+import java.util.Locale;
+
+public class LabelIndex {
+    private static final String DELETED = new String("<deleted>");
+
+    private String[] keys = new String[64];
+    private int[] ids = new int[64];
+    private int size = 0;
+    private int used = 0; // live entries plus tombstones
+
+    static String normalize(String label) {
+        return label.trim().toUpperCase(Locale.ROOT);
+    }
+
+    // returns false (and changes nothing) when the label is already taken
+    public boolean put(String label, int id) {
+        String key = normalize(label);
+        if (find(key) >= 0) return false;
+        if ((used + 1) * 2 > keys.length) rehash(size * 4 > keys.length ? keys.length * 2 : keys.length);
+        int i = slot(key);
+        while (keys[i] != null && keys[i] != DELETED) i = (i + 1) & (keys.length - 1);
+        if (keys[i] == null) used++;
+        keys[i] = key;
+        ids[i] = id;
+        size++;
+        return true;
+    }
+
+    // id for the label, or -1
+    public int get(String label) {
+        int i = find(normalize(label));
+        return i < 0 ? -1 : ids[i];
+    }
+
+    public void remove(String label) {
+        int i = find(normalize(label));
+        if (i >= 0) {
+            keys[i] = DELETED;
+            size--;
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(keys, null);
+        size = 0;
+        used = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private int find(String key) {
+        int mask = keys.length - 1;
+        for (int i = slot(key); keys[i] != null; i = (i + 1) & mask) {
+            if (keys[i] != DELETED && keys[i].equals(key)) return i;
+        }
+        return -1;
+    }
+
+    private int slot(String key) {
+        int h = key.hashCode() * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & (keys.length - 1);
+    }
+
+    private void rehash(int capacity) {
+        String[] oldKeys = keys;
+        int[] oldIds = ids;
+        keys = new String[capacity];
+        ids = new int[capacity];
+        used = size;
+        for (int j = 0; j < oldKeys.length; j++) {
+            String key = oldKeys[j];
+            if (key == null || key == DELETED) continue;
+            int i = slot(key);
+            while (keys[i] != null) i = (i + 1) & (capacity - 1);
+            keys[i] = key;
+            ids[i] = oldIds[j];
+        }
+    }
+}
@@ -0,0 +1,56 @@
+/*This class counts latencies in buckets of about 3% width: values below 64 have a bucket each,
+  larger ones are bucketed by their top 6 bits. Fixed size, so millions of samples cost no memory.
+  The batch query runner records nanoseconds in it, the packet simulator microseconds.
+ */
+import java.util.Arrays;
+
+public class LatencyHistogram {
+    private final long[] counts = new long[64 * 32];
+    private long total, max;
+
+    void record(long value) {
+        counts[bucket(Math.max(0, value))]++;
+        total++;
+        max = Math.max(max, value);
+    }
+
+    void add(LatencyHistogram other) {
+        for (int i = 0; i < counts.length; i++) counts[i] += other.counts[i];
+        total += other.total;
+        max = Math.max(max, other.max);
+    }
+
+    void reset() {
+        Arrays.fill(counts, 0);
+        total = 0;
+        max = 0;
+    }
+
+    long max() {
+        return max;
+    }
+
+    // the upper end of the bucket that holds the given percentile
+    long percentile(double percent) {
+        long rank = (long) Math.ceil(total * percent / 100);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= Math.max(rank, 1)) return Math.min(max, upperBound(i));
+        }
+        return max;
+    }
+
+    private static int bucket(long v) {
+        if (v < 64) return (int) v;
+        int shift = 63 - Long.numberOfLeadingZeros(v) - 5;
+        return shift * 32 + (int) (v >>> shift);
+    }
+
+    private static long upperBound(int bucket) {
+        if (bucket < 64) return bucket;
+        int shift = bucket / 32 - 1;
+        long top = bucket % 32 + 32;
+        return ((top + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,160 @@
+/*This class emulates a link-state protocol (OSPF-style) in the same synchronous rounds as
+  DistanceVectorEmulator. Every router floods one advertisement (LSA) listing its links: it sends
+  it over all its links, and a router that gets it for the first time passes it on over every link
+  but the ones it came in on; copies that arrive later are dropped. Once the LSAs are in, every
+  router runs SPF (Dijkstra) over the whole map.
+
+  Floods of different LSAs never interact, so each core takes whole originators, and the SPF runs
+  are split the same way. LSAs travel both ways over a link even when the graph is directed.
+  When a link fails, the routers whose links changed flood a new LSA and every router it reaches
+  runs SPF again. Routes never count to infinity here, which is the point of the comparison.
+  A router whose shortest-path tree did not use the failed link gets the same routes from its
+  new SPF, so only the others are computed again (it still counts as an SPF run).
+ */
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+public class LinkStateEmulator {
+    private final CsrGraph out;
+    private final CsrGraph control;     // the links LSAs are flooded over
+    private final int n;
+    private ConvergenceReport initial, afterFailure;
+
+    public LinkStateEmulator(GraphView g, boolean directed) {
+        out = CsrGraph.of(g);
+        control = directed ? out.symmetric() : out;
+        n = out.nodeCapacity();
+    }
+
+    // what one core keeps while it floods LSAs and runs SPF
+    private final class Worker {
+        final DijkstraSearch spf = new DijkstraSearch();
+        final int[] level = new int[n], parents = new int[n], queue = new int[n];
+        final int[] seen = new int[n];
+        int stamp = 0;
+        long messages;
+        int rounds;
+
+        // floods the LSA of origin over links; routers it reached get reached[r] = true when asked
+        void flood(int origin, CsrGraph links, boolean[] reached) {
+            stamp++;
+            int head = 0, tail = 0;
+            seen[origin] = stamp;
+            level[origin] = 0;
+            parents[origin] = 0;
+            queue[tail++] = origin;
+            while (head < tail) {
+                int r = queue[head++];
+                if (reached != null) reached[r] = true;
+                // r sends in round level + 1 over every link it did not get the LSA from
+                int sent = links.degree(r) - parents[r];
+                if (sent > 0) {
+                    messages += sent;
+                    rounds = Math.max(rounds, level[r] + 1);
+                }
+                for (int slot = links.offsets[r], end = links.offsets[r + 1]; slot < end; slot++) {
+                    int next = links.targets[slot];
+                    if (seen[next] != stamp) {
+                        seen[next] = stamp;
+                        level[next] = level[r] + 1;
+                        parents[next] = 1;
+                        queue[tail++] = next;
+                    } else if (level[next] == level[r] + 1) {
+                        parents[next]++;
+                    }
+                }
+            }
+        }
+
+        // routes of r: every other router its SPF reaches
+        int routes(int r, CsrGraph g) {
+            spf.run(g, r, -1, null);
+            return spf.settledCount() - 1;
+        }
+
+        // whether the tree of the last SPF goes over edge
+        boolean treeUses(int edge) {
+            for (int v = 0; v < n; v++) {
+                if (spf.isReached(v) && spf.parentEdgeOf(v) == edge) return true;
+            }
+            return false;
+        }
+    }
+
+/*  Converges from empty maps, then, when failedEdge >= 0, fails that link (both directions when
+    the view is undirected) and converges again. Uses every core.
+ */
+    public void run(int failedEdge) {
+        List<Worker> workers = new ArrayList<>();
+        ThreadLocal<Worker> local = ThreadLocal.withInitial(() -> {
+            Worker w = new Worker();
+            synchronized (workers) {
+                workers.add(w);
+            }
+            return w;
+        });
+
+        long start = System.nanoTime();
+        IntStream.range(0, n).parallel().forEach(origin -> local.get().flood(origin, control, null));
+        int[] routesBefore = new int[n];
+        boolean[] usesFailed = new boolean[n];
+        IntStream.range(0, n).parallel().forEach(r -> {
+            Worker w = local.get();
+            routesBefore[r] = w.routes(r, out);
+            usesFailed[r] = failedEdge >= 0 && w.treeUses(failedEdge);
+        });
+        long nanos = System.nanoTime() - start;
+        initial = report("link state", workers, n, 0, nanos);
+        afterFailure = null;
+        if (failedEdge < 0) return;
+
+        // the routers whose own links changed: the tail of the link, and its head when the link is two-way
+        List<Integer> origins = new ArrayList<>();
+        for (int v = 0; v < n; v++) {
+            for (int slot = out.offsets[v]; slot < out.offsets[v + 1]; slot++) {
+                if (out.edgeIds[slot] == failedEdge) {
+                    origins.add(v);
+                    break;
+                }
+            }
+        }
+        for (Worker w : workers) {
+            w.messages = 0;
+            w.rounds = 0;
+        }
+        start = System.nanoTime();
+        CsrGraph outAfter = out.without(failedEdge);
+        CsrGraph controlAfter = control == out ? outAfter : control.without(failedEdge);
+        boolean[] reached = new boolean[n];
+        Worker flooder = local.get();
+        for (int origin : origins) flooder.flood(origin, controlAfter, reached);
+        int spfRuns = 0;
+        for (int r = 0; r < n; r++) {
+            if (reached[r]) spfRuns++;
+        }
+        int[] changed = IntStream.range(0, n).filter(r -> reached[r] && usesFailed[r]).toArray();
+        long lost = IntStream.of(changed).parallel().mapToLong(r -> routesBefore[r] - local.get().routes(r, outAfter)).sum();
+        nanos = System.nanoTime() - start;
+        afterFailure = report("link state after the link failed", workers, spfRuns, lost, nanos);
+    }
+
+    private ConvergenceReport report(String name, List<Worker> workers, long spfRuns, long lost, long nanos) {
+        long messages = 0;
+        int rounds = 0;
+        for (Worker w : workers) {
+            messages += w.messages;
+            rounds = Math.max(rounds, w.rounds);
+        }
+        return new ConvergenceReport(name, rounds, messages, spfRuns, lost, 0, 0, nanos);
+    }
+
+    public ConvergenceReport initial() {
+        return initial;
+    }
+
+    // null when run() did not fail a link
+    public ConvergenceReport afterFailure() {
+        return afterFailure;
+    }
+}
@@ -0,0 +1,93 @@
+/*This class is a CSR graph whose arrays stay in a memory-mapped snapshot file instead of the heap,
+  so it can serve graphs larger than the heap and costs nothing to load: the operating system
+  pages the parts a search touches in and out. See GraphSnapshot for the file layout.
+ */
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+
+public class MappedCsrGraph implements GraphView {
+    private final int nodeCount;
+    private final Ints offsets, targets, weights;
+    private final Ints edgeIds; // null when the edge id is the slot itself
+
+    MappedCsrGraph(int nodeCount, Ints offsets, Ints targets, Ints weights, Ints edgeIds) {
+        this.nodeCount = nodeCount;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+        this.edgeIds = edgeIds;
+    }
+
+    public int nodeCapacity() {
+        return nodeCount;
+    }
+
+    public int degree(int v) {
+        return offsets.get(v + 1) - offsets.get(v);
+    }
+
+    public int neighbor(int v, int i) {
+        return targets.get(offsets.get(v) + i);
+    }
+
+    public int weight(int v, int i) {
+        return weights.get(offsets.get(v) + i);
+    }
+
+    public int edgeId(int v, int i) {
+        long slot = offsets.get(v) + i;
+        return edgeIds == null ? (int) slot : edgeIds.get(slot);
+    }
+
+    // out-edges then in-edges of every node, the undirected view over a pair of mapped graphs
+    static GraphView bothDirections(MappedCsrGraph out, MappedCsrGraph in) {
+        return new GraphView() {
+            public int nodeCapacity() {
+                return out.nodeCount;
+            }
+
+            public int degree(int v) {
+                return out.degree(v) + in.degree(v);
+            }
+
+            public int neighbor(int v, int i) {
+                int d = out.degree(v);
+                return i < d ? out.neighbor(v, i) : in.neighbor(v, i - d);
+            }
+
+            public int weight(int v, int i) {
+                int d = out.degree(v);
+                return i < d ? out.weight(v, i) : in.weight(v, i - d);
+            }
+
+            public int edgeId(int v, int i) {
+                int d = out.degree(v);
+                return i < d ? out.edgeId(v, i) : in.edgeId(v, i - d);
+            }
+        };
+    }
+
+    // little-endian ints mapped from a file, in pieces of 1 GB since one mapping cannot pass 2 GB
+    static final class Ints {
+        private static final int SHIFT = 28;
+        private static final long MASK = (1L << SHIFT) - 1;
+        private final IntBuffer[] segments;
+        final long length;
+
+        Ints(FileChannel channel, long position, long length) throws IOException {
+            this.length = length;
+            segments = new IntBuffer[(int) ((length + MASK) >>> SHIFT)];
+            for (int s = 0; s < segments.length; s++) {
+                long count = Math.min(1L << SHIFT, length - ((long) s << SHIFT));
+                segments[s] = channel.map(FileChannel.MapMode.READ_ONLY, position + ((long) s << SHIFT) * 4, count * 4)
+                        .order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+            }
+        }
+
+        int get(long i) {
+            return segments[(int) (i >>> SHIFT)].get((int) (i & MASK));
+        }
+    }
+}
@@ -1,22 +1,85 @@
 // This class displays the log of the BFS algorithm, this includes path finding, information, and node visit.
+/* Messages can be posted from any thread. They are queued and added in one batch per pass of the
+   event dispatch thread, with a single revalidate, repaint and scroll for the whole batch.
+   At most MAX_LINES lines are kept; the oldest are dropped, and only the spill file (when set)
+   keeps the full history. The file is written by one background thread, fed each batch in order,
+   so a flood of messages never waits for the disk on the event dispatch thread.
+   Every line is measured once when it is added, so painting only walks the bubbles inside the
+   clip and draws their visible lines.
+ */
 
 import java.awt.*;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
 import javax.swing.*;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 // 8. console where messages are displayed while routing
 public class MessageConsole extends JPanel {
-    private final List<String> messages = new CopyOnWriteArrayList<>();
+    static final int MAX_LINES = 5000;
     private static final Color DEFAULT_BORDER_COLOR = new Color(14, 81, 119);
     private static final Color PATH_FOUND_BORDER_COLOR = new Color(42, 75, 218);
     private static final Color PAPER_BORDER_COLOR = new Color(139, 69, 19);
     private static final Color PAPER_PATH_FOUND_BORDER_COLOR = new Color(101, 67, 33);
+    private static final Color SHADOW_COLOR = new Color(0, 0, 0, 50);
+    private static final BasicStroke BORDER_STROKE = new BasicStroke(4);
     private static final int ARC_SIZE = 20;
     private static final int MARGIN = 10;
     private static final int PADDING = 10;
     private boolean isPaperView = false;
 
+    // one bubble on screen; similar messages that follow each other are merged into it as extra lines
+    private static final class Entry {
+        String[] lines = new String[4];
+        int first = 0, end = 0; // the kept lines are lines[first, end)
+        int width = 0;          // widest line ever added, measured once
+        int top;                // y of the bubble, below the dropped-lines note
+        boolean pathFound;
+
+        int lineCount() {
+            return end - first;
+        }
+
+        void add(String line, int lineWidth) {
+            if (end == lines.length) lines = Arrays.copyOf(lines, end * 2);
+            lines[end++] = line;
+            width = Math.max(width, lineWidth);
+        }
+    }
+
+    // posted and not flushed yet, guarded by lock
+    private final Object lock = new Object();
+    private List<String> pending = new ArrayList<>();
+    private boolean flushScheduled = false;
+    private boolean clearRequested = false;
+
+    // ring of bubbles, oldest first; only touched on the event dispatch thread
+    private Entry[] entries = new Entry[64];
+    private int head = 0, count = 0;
+    private int lineTotal = 0;
+    private long droppedLines = 0;
+    private int contentWidth = 0, contentHeight = MARGIN;
+    private int lineHeight;
+
+    // the spill file is opened, written and closed only on this thread, in the order of the calls
+    private final ExecutorService spillWriter = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "console-log");
+        t.setDaemon(true);
+        return t;
+    });
+    private BufferedWriter spill;
+    private volatile boolean spilling = false;
+    private boolean closeHookAdded = false;
+
     public MessageConsole() {
         setLayout(new BoxLayout(this, BoxLayout.Y_AXIS));
         setBackground(new Color(0, 188, 212));
@@ -27,36 +90,173 @@ public class MessageConsole extends JPanel {
         setBackground(paperView ? new Color(210, 180, 140) : new Color(0, 188, 212));
         repaint();
     }
-// 8. This function is used to add the message in the panel
-    public void insertMessage(String message) {
-        SwingUtilities.invokeLater(() -> {
-            if (messages.isEmpty() || !isSimilarMessage(messages.get(messages.size() - 1), message)) {
-                messages.add(message);
-            } else {
-                int lastIndex = messages.size() - 1;
-                messages.set(lastIndex, messages.get(lastIndex) + "\n" + message);
+
+    // every message from now on is also appended to this file, including the ones dropped from the screen.
+    // A file set before is closed; the last one is closed when the application exits.
+    public synchronized void setSpillFile(Path path) {
+        spilling = true;
+        spillWriter.execute(() -> {
+            closeSpillWriter();
+            try {
+                spill = Files.newBufferedWriter(path);
+            } catch (IOException e) {
+                System.err.println("Error: Could not open log file " + path + ": " + e.getMessage());
             }
-            revalidate();
-            repaint();
-
-            SwingUtilities.invokeLater(() -> {
-                JScrollPane scrollPane = (JScrollPane) SwingUtilities.getAncestorOfClass(JScrollPane.class, this);
-                if (scrollPane != null) {
-                    JScrollBar vertical = scrollPane.getVerticalScrollBar();
-                    vertical.setValue(vertical.getMaximum());
-                }
-            });
         });
+        if (!closeHookAdded) {
+            closeHookAdded = true;
+            Runtime.getRuntime().addShutdownHook(new Thread(this::closeSpillFile, "console-log-close"));
+        }
+    }
+
+    // writes what was queued, closes the file and waits (a little) for that to happen
+    public void closeSpillFile() {
+        spilling = false;
+        try {
+            spillWriter.submit(this::closeSpillWriter).get(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException | RuntimeException e) {
+            System.err.println("Error: Could not close the log file: " + e);
+        }
+    }
+
+    private void closeSpillWriter() {
+        if (spill == null) return;
+        try {
+            spill.close();
+        } catch (IOException e) {
+            System.err.println("Error: Could not close the log file: " + e.getMessage());
+        }
+        spill = null;
+    }
+// 8. This function is used to add the message in the panel
+    public void insertMessage(String message) {
+        synchronized (lock) {
+            pending.add(message);
+            if (flushScheduled) return;
+            flushScheduled = true;
+        }
+        SwingUtilities.invokeLater(this::flush);
     }
 
     public void removeMessages() {
+        synchronized (lock) {
+            pending.clear();
+            clearRequested = true;
+            if (flushScheduled) return;
+            flushScheduled = true;
+        }
+        SwingUtilities.invokeLater(this::flush);
+    }
+
+    private void flush() {
+        List<String> batch;
+        boolean clear;
+        synchronized (lock) {
+            batch = pending;
+            pending = new ArrayList<>();
+            clear = clearRequested;
+            clearRequested = false;
+            flushScheduled = false;
+        }
+        if (clear) {
+            Arrays.fill(entries, null);
+            head = 0;
+            count = 0;
+            lineTotal = 0;
+            droppedLines = 0;
+            contentWidth = 0;
+            contentHeight = MARGIN;
+        }
+
+        FontMetrics fm = getFontMetrics(getFont());
+        lineHeight = fm.getHeight() + PADDING;
+        for (String message : batch) append(message, fm);
+        if (lineTotal > MAX_LINES) trim();
+        if (spilling && !batch.isEmpty()) spillWriter.execute(() -> writeSpill(batch));
+
+        revalidate();
+        repaint();
+        if (batch.isEmpty()) return;
         SwingUtilities.invokeLater(() -> {
-            messages.clear();
-            revalidate();
-            repaint();
+            JScrollPane scrollPane = (JScrollPane) SwingUtilities.getAncestorOfClass(JScrollPane.class, this);
+            if (scrollPane != null) {
+                JScrollBar vertical = scrollPane.getVerticalScrollBar();
+                vertical.setValue(vertical.getMaximum());
+            }
         });
     }
 
+    private Entry entry(int i) {
+        return entries[(head + i) & (entries.length - 1)];
+    }
+
+    private void append(String message, FontMetrics fm) {
+        Entry last = count == 0 ? null : entry(count - 1);
+        if (last == null || !isSimilarMessage(last.lines[last.first], message)) {
+            if (count == entries.length) {
+                Entry[] grown = new Entry[entries.length * 2];
+                for (int i = 0; i < count; i++) grown[i] = entry(i);
+                entries = grown;
+                head = 0;
+            }
+            last = new Entry();
+            last.top = contentHeight;
+            last.pathFound = message.startsWith("Best path found:");
+            entries[(head + count++) & (entries.length - 1)] = last;
+            contentHeight += PADDING + MARGIN;
+        }
+        for (String line : message.split("\n")) {
+            last.add(line, fm.stringWidth(line));
+            lineTotal++;
+            contentHeight += lineHeight;
+        }
+        contentWidth = Math.max(contentWidth, last.width + 60);
+    }
+
+    // drops whole bubbles from the front, and the first lines of the oldest one if it alone is too long
+    private void trim() {
+        while (lineTotal > MAX_LINES) {
+            Entry oldest = entry(0);
+            int excess = lineTotal - MAX_LINES;
+            int drop = Math.min(excess, oldest.lineCount());
+            if (drop == oldest.lineCount()) {
+                entries[head] = null;
+                head = (head + 1) & (entries.length - 1);
+                count--;
+            } else {
+                Arrays.fill(oldest.lines, oldest.first, oldest.first + drop, null);
+                oldest.first += drop;
+            }
+            lineTotal -= drop;
+            droppedLines += drop;
+        }
+        contentWidth = 0;
+        contentHeight = MARGIN;
+        for (int i = 0; i < count; i++) {
+            Entry e = entry(i);
+            e.top = contentHeight;
+            contentHeight += e.lineCount() * lineHeight + PADDING + MARGIN;
+            contentWidth = Math.max(contentWidth, e.width + 60);
+        }
+    }
+
+    // runs on the spill thread; flushing there keeps the file current without blocking the panel
+    private void writeSpill(List<String> batch) {
+        if (spill == null) return;
+        try {
+            for (String message : batch) {
+                spill.write(message);
+                spill.newLine();
+            }
+            spill.flush();
+        } catch (IOException e) {
+            System.err.println("Error: Could not write the log file: " + e.getMessage());
+            closeSpillWriter();
+        }
+    }
+
     private boolean isSimilarMessage(String msg1, String msg2) {
         String[] prefixes = {"Visiting:", "Enqueueing:"};
         for (String prefix : prefixes) {
@@ -67,73 +267,76 @@ public class MessageConsole extends JPanel {
         return false;
     }
 
+    // height of the note shown above the bubbles once lines have been dropped
+    private int noteHeight() {
+        return droppedLines > 0 ? lineHeight : 0;
+    }
+
     @Override
     protected void paintComponent(Graphics g) {
         super.paintComponent(g);
+        if (count == 0) return;
         Graphics2D g2 = (Graphics2D) g;
         g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
         g2.setFont(getFont());
 
-        int y = MARGIN;
-        FontMetrics fm = g2.getFontMetrics();
-        int lineHeight = fm.getHeight() + PADDING;
-
-        for (String message : messages) {
-            String[] lines = message.split("\n");
-            int maxWidth = 0;
-            for (String line : lines) {
-                maxWidth = Math.max(maxWidth, fm.stringWidth(line));
-            }
-            int width = maxWidth + 40;
-            int height = (lines.length * lineHeight) + PADDING;
-
-            Color borderColor = message.startsWith("Best path found:") ?
-                    (isPaperView ? PAPER_PATH_FOUND_BORDER_COLOR : PATH_FOUND_BORDER_COLOR) :
-                    (isPaperView ? PAPER_BORDER_COLOR : DEFAULT_BORDER_COLOR);
-            GradientPaint gradient = new GradientPaint(
-                    MARGIN, y, borderColor,
-                    MARGIN + width, y + height, Color.BLACK, true
-            );
-            g2.setPaint(gradient);
-            g2.setStroke(new BasicStroke(4));
-            g2.drawRoundRect(MARGIN - 2, y - 2, width + 4, height + 4, ARC_SIZE + 4, ARC_SIZE + 4);
-
-            g2.setColor(new Color(0, 0, 0, 50));
-            g2.fillRoundRect(MARGIN + 2, y + 2, width, height, ARC_SIZE, ARC_SIZE);
-
-            g2.setColor(new Color(255, 255, 255));
-            g2.fillRoundRect(MARGIN, y, width, height, ARC_SIZE, ARC_SIZE);
-
-            // Message text
+        Rectangle clip = g2.getClipBounds();
+        if (clip == null) clip = new Rectangle(0, 0, getWidth(), getHeight());
+        int note = noteHeight();
+        if (note > 0 && clip.y < MARGIN + note) {
             g2.setColor(Color.BLACK);
-            for (int i = 0; i < lines.length; i++) {
-                g2.drawString(lines[i], MARGIN + 20, y + (i + 1) * lineHeight - 5);
-            }
+            g2.drawString("(" + droppedLines + " older lines not shown)", MARGIN + 20, MARGIN + note - PADDING);
+        }
 
-            y += height + MARGIN;
+        // last bubble starting above the clip, found by binary search on the tops
+        int lo = 0, hi = count - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (entry(mid).top + note <= clip.y) lo = mid; else hi = mid - 1;
+        }
+        for (int i = lo; i < count; i++) {
+            Entry e = entry(i);
+            int y = e.top + note;
+            if (y > clip.y + clip.height) break;
+            paintEntry(g2, e, y, clip);
         }
     }
 
-    @Override
-    public Dimension getPreferredSize() {
-        FontMetrics fm = getFontMetrics(getFont());
-        int maxWidth = 0;
-        int totalHeight = MARGIN;
-
-        for (String message : messages) {
-            String[] lines = message.split("\n");
-            int messageWidth = 0;
-            for (String line : lines) {
-                messageWidth = Math.max(messageWidth, fm.stringWidth(line));
-            }
-            maxWidth = Math.max(maxWidth, messageWidth + 60);
-            totalHeight += (lines.length * (fm.getHeight() + PADDING)) + PADDING + MARGIN;
+    private void paintEntry(Graphics2D g2, Entry e, int y, Rectangle clip) {
+        int width = e.width + 40;
+        int height = (e.lineCount() * lineHeight) + PADDING;
+
+        Color borderColor = e.pathFound ?
+                (isPaperView ? PAPER_PATH_FOUND_BORDER_COLOR : PATH_FOUND_BORDER_COLOR) :
+                (isPaperView ? PAPER_BORDER_COLOR : DEFAULT_BORDER_COLOR);
+        GradientPaint gradient = new GradientPaint(
+                MARGIN, y, borderColor,
+                MARGIN + width, y + height, Color.BLACK, true
+        );
+        g2.setPaint(gradient);
+        g2.setStroke(BORDER_STROKE);
+        g2.drawRoundRect(MARGIN - 2, y - 2, width + 4, height + 4, ARC_SIZE + 4, ARC_SIZE + 4);
+
+        g2.setColor(SHADOW_COLOR);
+        g2.fillRoundRect(MARGIN + 2, y + 2, width, height, ARC_SIZE, ARC_SIZE);
+
+        g2.setColor(Color.WHITE);
+        g2.fillRoundRect(MARGIN, y, width, height, ARC_SIZE, ARC_SIZE);
+
+        // Message text, only the lines inside the clip
+        g2.setColor(Color.BLACK);
+        int from = Math.max(0, (clip.y - y) / lineHeight - 1);
+        int to = Math.min(e.lineCount(), (clip.y + clip.height - y) / lineHeight + 1);
+        for (int i = from; i < to; i++) {
+            g2.drawString(e.lines[e.first + i], MARGIN + 20, y + (i + 1) * lineHeight - 5);
         }
+    }
 
+    @Override
+    public Dimension getPreferredSize() {
         // Ensure minimum width and height
-        maxWidth = Math.max(maxWidth, 300);
-        totalHeight = Math.max(totalHeight, 100);
-
+        int maxWidth = Math.max(contentWidth, 300);
+        int totalHeight = Math.max(contentHeight + noteHeight(), 100);
         return new Dimension(maxWidth, totalHeight);
     }
 }
\ No newline at end of file
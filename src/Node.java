@@ -4,6 +4,7 @@ import java.awt.*;
 public class Node {
     String name;
     int x, y, r = 20;
+    int id = -1; // index used by GraphEngine's int arrays
     Node(String name, int x, int y) {
         this.name = name;
         this.x = x;
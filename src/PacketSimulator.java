@@ -0,0 +1,409 @@
+/*This class is a discrete-event simulation of packets crossing the network. Every edge is a link
+  in each direction it can be used in, with the edge weight as its latency in milliseconds, a
+  bandwidth in packets per millisecond and a FIFO queue of a few packets; a packet that finds the
+  queue full is dropped. A flow sends packets from one node to another as a Poisson stream at a
+  given rate, along its lowest-latency route (Dijkstra, fixed for the whole run).
+
+  A packet is transmitted by one link at a time: it waits in the queue, is sent in 1/bandwidth ms,
+  then arrives at the next node after the latency and joins the queue of its next link. So there
+  are three kinds of events: a flow emits a packet, a link finishes sending, a packet arrives.
+
+  Nothing is allocated per event or packet. Time is a long in microseconds, events are a 4-ary
+  heap of (time, int) in two arrays with the kind in the low bits of the int (half as deep as a
+  binary heap, and the four children are next to each other), packets are slots in int/long arrays
+  recycled through a free list, and the queues are rings in one shared array.
+  The links of the routes are numbered when flows are added, so only links in use cost memory.
+ */
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+public class PacketSimulator {
+    private static final int EMIT = 0, SENT = 1, ARRIVE = 2;
+
+    private final GraphView graph;
+    private final double bandwidth;
+    private final int queueSize;
+    private final DijkstraSearch dijkstra = new DijkstraSearch();
+    // per edge settings that differ from the defaults, by edge id
+    private final Map<Integer, Double> bandwidthOf = new HashMap<>();
+    private final Map<Integer, Integer> queueSizeOf = new HashMap<>();
+    // link of every direction of an edge in use: key 2 * edge + (1 when it runs to a lower node id)
+    private final Map<Integer, Integer> linkOf = new HashMap<>();
+
+    // flows, and their routes as link numbers, one after another in routeLinks
+    private int flowCount = 0;
+    private int[] flowSrc = new int[16], flowDst = new int[16];
+    private double[] flowRate = new double[16];
+    private int[] routeStart = new int[16], routeLength = new int[16];
+    private int[] routeLinks = new int[64];
+    private int routeLinkCount = 0;
+    private long[] flowDelivered = new long[16], flowDropped = new long[16];
+
+    // links
+    private int linkCount = 0;
+    private int[] linkEdge = new int[16], linkFrom = new int[16], linkTo = new int[16];
+    private long[] linkLatency = new long[16];   // us
+    private long[] linkSendTime;                 // us per packet
+    private int[] queueStart, queueCapacity, queueHead, queueCount;
+    private int[] queued = new int[0];
+    private int[] sending;                       // packet on the wire, -1 when the link is idle
+    private long[] busyTime, linkSent, linkDropped, queueDelay;
+    private int[] maxQueue;
+
+    // packets
+    private int[] packetFlow = new int[1024], packetHop = new int[1024];
+    private long[] packetCreated = new long[1024], packetQueued = new long[1024];
+    private int[] freePackets = new int[1024];
+    private int freeCount = 0, packetSlots = 0;
+
+    // events
+    private long[] eventTime = new long[1024];
+    private int[] eventCode = new int[1024];
+    private int eventCount = 0;
+
+    // results of the last run
+    private long end;
+    private long events, delivered, dropped;
+    private long latencySum;
+    private final LatencyHistogram latencies = new LatencyHistogram();
+    private SplittableRandom random;
+
+    // bandwidth in packets per ms and queue size in packets, for every link without its own setting
+    public PacketSimulator(GraphView graph, double bandwidth, int queueSize) {
+        if (bandwidth <= 0 || queueSize < 0) throw new IllegalArgumentException("Bandwidth must be positive and the queue size not negative.");
+        this.graph = graph;
+        this.bandwidth = bandwidth;
+        this.queueSize = queueSize;
+    }
+
+    // gives both directions of the edge their own bandwidth and queue size, from the next run on
+    public void setLink(int edge, double bandwidth, int queueSize) {
+        if (bandwidth <= 0 || queueSize < 0) throw new IllegalArgumentException("Bandwidth must be positive and the queue size not negative.");
+        bandwidthOf.put(edge, bandwidth);
+        queueSizeOf.put(edge, queueSize);
+    }
+
+    // a flow of rate packets per ms from src to dst; returns its number, or -1 when dst cannot be reached
+    public int addFlow(int src, int dst, double rate) {
+        if (rate <= 0 || src == dst || !dijkstra.run(graph, src, dst, null)) return -1;
+        int[] nodes = dijkstra.path(dst);
+        int[] edges = dijkstra.pathEdges(dst);
+        if (flowCount == flowSrc.length) growFlows();
+        if (routeLinkCount + edges.length > routeLinks.length) routeLinks = Arrays.copyOf(routeLinks, Math.max(2 * routeLinks.length, routeLinkCount + edges.length));
+        int f = flowCount++;
+        flowSrc[f] = src;
+        flowDst[f] = dst;
+        flowRate[f] = rate;
+        routeStart[f] = routeLinkCount;
+        routeLength[f] = edges.length;
+        for (int k = 0; k < edges.length; k++) routeLinks[routeLinkCount++] = link(nodes[k], nodes[k + 1], edges[k]);
+        return f;
+    }
+
+    private int link(int from, int to, int edge) {
+        int key = 2 * edge + (to < from ? 1 : 0);
+        Integer known = linkOf.get(key);
+        if (known != null) return known;
+        if (linkCount == linkEdge.length) {
+            int size = 2 * linkCount;
+            linkEdge = Arrays.copyOf(linkEdge, size);
+            linkFrom = Arrays.copyOf(linkFrom, size);
+            linkTo = Arrays.copyOf(linkTo, size);
+            linkLatency = Arrays.copyOf(linkLatency, size);
+        }
+        int k = linkCount++;
+        linkEdge[k] = edge;
+        linkFrom[k] = from;
+        linkTo[k] = to;
+        for (int i = 0, d = graph.degree(from); i < d; i++) {
+            if (graph.edgeId(from, i) == edge) linkLatency[k] = graph.weight(from, i) * 1000L;
+        }
+        linkOf.put(key, k);
+        return k;
+    }
+
+    private void growFlows() {
+        int size = 2 * flowSrc.length;
+        flowSrc = Arrays.copyOf(flowSrc, size);
+        flowDst = Arrays.copyOf(flowDst, size);
+        flowRate = Arrays.copyOf(flowRate, size);
+        routeStart = Arrays.copyOf(routeStart, size);
+        routeLength = Arrays.copyOf(routeLength, size);
+        flowDelivered = Arrays.copyOf(flowDelivered, size);
+        flowDropped = Arrays.copyOf(flowDropped, size);
+    }
+
+/*  Runs the flows from time 0 for the given number of ms and returns the number of events.
+    Packets still travelling at the end are counted as in flight. The same seed gives the same run.
+ */
+    public long run(double durationMs, long seed) {
+        end = Math.round(durationMs * 1000);
+        random = new SplittableRandom(seed);
+        resetLinks();
+        Arrays.fill(flowDelivered, 0, flowCount, 0);
+        Arrays.fill(flowDropped, 0, flowCount, 0);
+        freeCount = 0;
+        packetSlots = 0;
+        eventCount = 0;
+        events = delivered = dropped = latencySum = 0;
+        latencies.reset();
+        for (int f = 0; f < flowCount; f++) {
+            long first = gap(f);
+            if (first < end) push(first, f << 2 | EMIT);
+        }
+
+        while (eventCount > 0 && eventTime[0] <= end) {
+            long now = eventTime[0];
+            int code = pop();
+            events++;
+            int id = code >>> 2;
+            switch (code & 3) {
+                case EMIT: {
+                    int p = newPacket(id, now);
+                    enqueue(routeLinks[routeStart[id]], p, now);
+                    long next = now + gap(id);
+                    if (next < end) push(next, code);
+                    break;
+                }
+                case SENT: {
+                    int p = sending[id];
+                    push(now + linkLatency[id], p << 2 | ARRIVE);
+                    sending[id] = -1;
+                    if (queueCount[id] > 0) {
+                        int next = queued[queueStart[id] + queueHead[id]];
+                        queueHead[id] = (queueHead[id] + 1) % queueCapacity[id];
+                        queueCount[id]--;
+                        queueDelay[id] += now - packetQueued[next];
+                        send(id, next, now);
+                    }
+                    break;
+                }
+                default: {
+                    int f = packetFlow[id];
+                    int hop = ++packetHop[id];
+                    if (hop == routeLength[f]) {
+                        long latency = now - packetCreated[id];
+                        latencySum += latency;
+                        latencies.record(latency);
+                        delivered++;
+                        flowDelivered[f]++;
+                        freePackets[freeCount++] = id;
+                    } else {
+                        enqueue(routeLinks[routeStart[f] + hop], id, now);
+                    }
+                    break;
+                }
+            }
+        }
+        return events;
+    }
+
+    // exponential gaps make each flow a Poisson stream; at least 1 us so time always moves on
+    private long gap(int f) {
+        return Math.max(1, Math.round(-Math.log(1 - random.nextDouble()) * 1000 / flowRate[f]));
+    }
+
+    private void resetLinks() {
+        int n = linkCount;
+        linkSendTime = new long[n];
+        queueStart = new int[n];
+        queueCapacity = new int[n];
+        queueHead = new int[n];
+        queueCount = new int[n];
+        sending = new int[n];
+        busyTime = new long[n];
+        linkSent = new long[n];
+        linkDropped = new long[n];
+        queueDelay = new long[n];
+        maxQueue = new int[n];
+        Arrays.fill(sending, -1);
+        int total = 0;
+        for (int k = 0; k < n; k++) {
+            double b = bandwidthOf.getOrDefault(linkEdge[k], bandwidth);
+            linkSendTime[k] = Math.max(1, Math.round(1000 / b));
+            queueCapacity[k] = queueSizeOf.getOrDefault(linkEdge[k], queueSize);
+            queueStart[k] = total;
+            total += queueCapacity[k];
+        }
+        if (queued.length < total) queued = new int[total];
+    }
+
+    private void enqueue(int k, int p, long now) {
+        if (sending[k] < 0) {
+            send(k, p, now);
+        } else if (queueCount[k] < queueCapacity[k]) {
+            queued[queueStart[k] + (queueHead[k] + queueCount[k]) % queueCapacity[k]] = p;
+            queueCount[k]++;
+            maxQueue[k] = Math.max(maxQueue[k], queueCount[k]);
+            packetQueued[p] = now;
+        } else {
+            linkDropped[k]++;
+            dropped++;
+            flowDropped[packetFlow[p]]++;
+            freePackets[freeCount++] = p;
+        }
+    }
+
+    private void send(int k, int p, long now) {
+        sending[k] = p;
+        linkSent[k]++;
+        busyTime[k] += Math.min(linkSendTime[k], end - now);
+        push(now + linkSendTime[k], k << 2 | SENT);
+    }
+
+    private int newPacket(int f, long now) {
+        int p;
+        if (freeCount > 0) {
+            p = freePackets[--freeCount];
+        } else {
+            if (packetSlots == packetFlow.length) {
+                int size = 2 * packetSlots;
+                packetFlow = Arrays.copyOf(packetFlow, size);
+                packetHop = Arrays.copyOf(packetHop, size);
+                packetCreated = Arrays.copyOf(packetCreated, size);
+                packetQueued = Arrays.copyOf(packetQueued, size);
+                freePackets = Arrays.copyOf(freePackets, size);
+            }
+            p = packetSlots++;
+        }
+        packetFlow[p] = f;
+        packetHop[p] = 0;
+        packetCreated[p] = now;
+        return p;
+    }
+
+    private void push(long time, int code) {
+        if (eventCount == eventTime.length) {
+            eventTime = Arrays.copyOf(eventTime, 2 * eventCount);
+            eventCode = Arrays.copyOf(eventCode, 2 * eventCount);
+        }
+        int i = eventCount++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 2;
+            if (eventTime[parent] <= time) break;
+            eventTime[i] = eventTime[parent];
+            eventCode[i] = eventCode[parent];
+            i = parent;
+        }
+        eventTime[i] = time;
+        eventCode[i] = code;
+    }
+
+    // removes the earliest event and returns its code
+    private int pop() {
+        int top = eventCode[0];
+        int last = --eventCount;
+        long time = eventTime[last];
+        int code = eventCode[last];
+        int i = 0;
+        while (true) {
+            int first = 4 * i + 1;
+            if (first >= last) break;
+            int child = first;
+            for (int c = first + 1, stop = Math.min(first + 4, last); c < stop; c++) {
+                if (eventTime[c] < eventTime[child]) child = c;
+            }
+            if (eventTime[child] >= time) break;
+            eventTime[i] = eventTime[child];
+            eventCode[i] = eventCode[child];
+            i = child;
+        }
+        eventTime[i] = time;
+        eventCode[i] = code;
+        return top;
+    }
+
+    public int flowCount() {
+        return flowCount;
+    }
+
+    public int flowSource(int f) {
+        return flowSrc[f];
+    }
+
+    public int flowDestination(int f) {
+        return flowDst[f];
+    }
+
+    public int flowHops(int f) {
+        return routeLength[f];
+    }
+
+    public long flowDelivered(int f) {
+        return flowDelivered[f];
+    }
+
+    public long flowDropped(int f) {
+        return flowDropped[f];
+    }
+
+    public long events() {
+        return events;
+    }
+
+    public long delivered() {
+        return delivered;
+    }
+
+    public long dropped() {
+        return dropped;
+    }
+
+    // packets still in queues or on links when the run ended
+    public long inFlight() {
+        return packetSlots - freeCount;
+    }
+
+    // end-to-end latency of the delivered packets, in ms
+    public double meanLatency() {
+        return delivered == 0 ? 0 : latencySum / 1000.0 / delivered;
+    }
+
+    public double latencyPercentile(double percent) {
+        return delivered == 0 ? 0 : latencies.percentile(percent) / 1000.0;
+    }
+
+    public double maxLatency() {
+        return latencies.max() / 1000.0;
+    }
+
+    public int linkCount() {
+        return linkCount;
+    }
+
+    public int linkEdge(int k) {
+        return linkEdge[k];
+    }
+
+    public int linkFrom(int k) {
+        return linkFrom[k];
+    }
+
+    public int linkTo(int k) {
+        return linkTo[k];
+    }
+
+    // share of the run the link spent sending, 0..1
+    public double utilization(int k) {
+        return end == 0 ? 0 : (double) busyTime[k] / end;
+    }
+
+    public long sent(int k) {
+        return linkSent[k];
+    }
+
+    public long drops(int k) {
+        return linkDropped[k];
+    }
+
+    public int maxQueue(int k) {
+        return maxQueue[k];
+    }
+
+    // mean time the packets sent by the link waited in its queue, in ms
+    public double meanQueueDelay(int k) {
+        return linkSent[k] == 0 ? 0 : queueDelay[k] / 1000.0 / linkSent[k];
+    }
+}
@@ -0,0 +1,185 @@
+/*This class runs a level-synchronous BFS where every frontier level is expanded in parallel on a
+  ForkJoinPool. Each task scans a slice of the frontier and collects the nodes it claims in its own
+  local buffer; claiming is an atomic compare-and-set on a per-node key, so no locks are taken.
+
+  Tie-breaking rule: the key of "u reached from frontier position p through adjacency index i"
+  is (p << 32 | i) and every unvisited u keeps the smallest key offered to it. So u's parent is
+  the earliest frontier node (in frontier order) with an edge to u, through its first such edge,
+  and the next frontier is sorted by that key. This is exactly the FIFO order of BfsSearch, so
+  both produce the same parent tree and the same visit/enqueue sequence.
+ */
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+public class ParallelBfs extends SearchTree {
+    private static final long UNCLAIMED = Long.MAX_VALUE;
+    // levels with a smaller frontier are expanded on the calling thread
+    private static final int SEQUENTIAL_THRESHOLD = 2048;
+    private static final int MIN_SLICE = 512;
+
+    private final ForkJoinPool pool;
+    private long[] visited = new long[0];
+    private AtomicLongArray claim = new AtomicLongArray(0);
+    private int[] frontier = new int[0];
+    private int[] next = new int[0];
+    private long[] keys = new long[0];
+
+    // statistics of the last run
+    private int levels;
+    private int largestFrontier;
+
+    public ParallelBfs() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public ParallelBfs(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    private void ensureCapacity(int n) {
+        if (ensureTree(n)) {
+            int size = parent.length;
+            claim = new AtomicLongArray(size);
+            for (int i = 0; i < size; i++) claim.set(i, UNCLAIMED);
+            frontier = new int[size];
+            next = new int[size];
+            keys = new long[size];
+        }
+        int words = (n + 63) >>> 6;
+        if (visited.length < words) {
+            visited = new long[words];
+        } else {
+            Arrays.fill(visited, 0, words, 0);
+        }
+    }
+
+    // Same contract as BfsSearch.run; the listener is always called from the calling thread.
+    public boolean run(GraphView g, int src, int dst, SearchListener listener) {
+        ensureCapacity(g.nodeCapacity());
+        levels = 0;
+        largestFrontier = 0;
+        frontier[0] = src;
+        int size = 1;
+        DirectionOptimizingBfs.set(visited, src);
+        parent[src] = -1;
+        parentEdge[src] = -1;
+
+        while (size > 0) {
+            if (listener == null && dst >= 0 && DirectionOptimizingBfs.get(visited, dst)) return true;
+            levels++;
+            largestFrontier = Math.max(largestFrontier, size);
+
+            int claimed = expand(g, size);
+            Arrays.parallelSort(keys, 0, claimed);
+            for (int k = 0; k < claimed; k++) {
+                int v = frontier[(int) (keys[k] >>> 32)];
+                int i = (int) keys[k];
+                int u = g.neighbor(v, i);
+                parent[u] = v;
+                parentEdge[u] = g.edgeId(v, i);
+                DirectionOptimizingBfs.set(visited, u);
+                claim.set(u, UNCLAIMED);
+                next[k] = u;
+            }
+
+            if (listener != null) {
+                for (int p = 0, k = 0; p < size; p++) {
+                    listener.visit(frontier[p]);
+                    if (frontier[p] == dst) return true;
+                    for (; k < claimed && (int) (keys[k] >>> 32) == p; k++) {
+                        listener.enqueue(next[k], frontier[p]);
+                    }
+                }
+            }
+
+            int[] swap = frontier;
+            frontier = next;
+            next = swap;
+            size = claimed;
+        }
+        return false;
+    }
+
+    // expands the current frontier and leaves the winning key of every claimed node in keys[0..count)
+    private int expand(GraphView g, int size) {
+        if (size < SEQUENTIAL_THRESHOLD) {
+            Slice slice = new Slice(g, 0, size);
+            slice.compute();
+            return collect(List.of(slice));
+        }
+        int sliceSize = Math.max(MIN_SLICE, size / (pool.getParallelism() * 4));
+        List<Slice> slices = new ArrayList<>();
+        for (int lo = 0; lo < size; lo += sliceSize) {
+            slices.add(new Slice(g, lo, Math.min(size, lo + sliceSize)));
+        }
+        pool.invoke(new RecursiveAction() {
+            protected void compute() {
+                invokeAll(slices);
+            }
+        });
+        return collect(slices);
+    }
+
+    private int collect(List<Slice> slices) {
+        int count = 0;
+        for (Slice s : slices) {
+            for (int j = 0; j < s.count; j++) keys[count++] = claim.get(s.local[j]);
+        }
+        return count;
+    }
+
+    private class Slice extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final GraphView g;
+        private final int lo, hi;
+        // nodes this slice claimed first; other slices may still lower their key afterwards
+        private int[] local = new int[64];
+        private int count = 0;
+
+        Slice(GraphView g, int lo, int hi) {
+            this.g = g;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected void compute() {
+            for (int p = lo; p < hi; p++) {
+                int v = frontier[p];
+                for (int i = 0, d = g.degree(v); i < d; i++) {
+                    int u = g.neighbor(v, i);
+                    if (DirectionOptimizingBfs.get(visited, u)) continue;
+                    long key = ((long) p << 32) | i;
+                    long current = claim.get(u);
+                    while (key < current) {
+                        if (claim.compareAndSet(u, current, key)) {
+                            if (current == UNCLAIMED) {
+                                if (count == local.length) local = Arrays.copyOf(local, count * 2);
+                                local[count++] = u;
+                            }
+                            break;
+                        }
+                        current = claim.get(u);
+                    }
+                }
+            }
+        }
+    }
+
+    public int levels() {
+        return levels;
+    }
+
+    public int largestFrontier() {
+        return largestFrontier;
+    }
+
+    public int parallelism() {
+        return pool.getParallelism();
+    }
+}
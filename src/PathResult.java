@@ -0,0 +1,24 @@
+// This class carries the outcome of a source to destination search: the nodes, the edges and the total weight.
+import java.util.List;
+
+public class PathResult {
+    final List<Node> nodes;
+    final List<Edge> edges;
+    final long cost;
+
+    PathResult(List<Node> nodes, List<Edge> edges, long cost) {
+        this.nodes = nodes;
+        this.edges = edges;
+        this.cost = cost;
+    }
+
+    int hops() {
+        return edges.size();
+    }
+
+    String describe() {
+        StringBuilder msg = new StringBuilder();
+        for (Node n : nodes) msg.append(n.name).append(" -> ");
+        return msg.substring(0, msg.length() - 4);
+    }
+}
@@ -0,0 +1,67 @@
+/*This class runs many source/destination queries at the same time. Every query gets its own
+  thread: a virtual thread when the JVM has them (Java 21 and later), otherwise a task on a
+  fixed pool with one thread per core. Queries read a GraphVersion, so they never wait for the
+  editing thread or for each other, and they borrow pooled search state from the GraphEngine.
+  A query never blocks, so at most one query per carrier thread is in flight and the pool of
+  search state stays at about one per core.
+ */
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class QueryScheduler {
+    private final GraphEngine graph;
+    private final ExecutorService executor;
+    private final boolean virtualThreads;
+    private final AtomicInteger numbers = new AtomicInteger();
+
+    public QueryScheduler(GraphEngine graph) {
+        this.graph = graph;
+        ExecutorService virtual = virtualThreadExecutor();
+        virtualThreads = virtual != null;
+        executor = virtual != null ? virtual : Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), r -> {
+            Thread t = new Thread(r, "query");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    // the project targets Java 17, so the Java 21 factory is looked up instead of called
+    private static ExecutorService virtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    public boolean usesVirtualThreads() {
+        return virtualThreads;
+    }
+
+    // one query on the given version; the future fails only if the search itself throws
+    public CompletableFuture<RouteQuery> submit(GraphVersion version, SearchMode mode, Node src, Node dst) {
+        int number = numbers.incrementAndGet();
+        int s = version.idOf(src), d = version.idOf(dst);
+        return CompletableFuture.supplyAsync(() -> {
+            long start = System.nanoTime();
+            PathResult result = graph.search(version, mode, s, d, null);
+            return new RouteQuery(number, mode, src, dst, version.number(), result, (System.nanoTime() - start) / 1000);
+        }, executor);
+    }
+
+    // every pair on the same version, so the answers can be compared with each other
+    public List<CompletableFuture<RouteQuery>> submitAll(SearchMode mode, List<Node[]> pairs) {
+        GraphVersion version = graph.version();
+        List<CompletableFuture<RouteQuery>> queries = new ArrayList<>(pairs.size());
+        for (Node[] pair : pairs) queries.add(submit(version, mode, pair[0], pair[1]));
+        return queries;
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,243 @@
+/*This class runs a BFS from several sources at once and stops after a number of hops, which
+  answers "which nodes are within k hops of these" (k-hop neighbourhood, blast radius), "what can
+  these reach at all" (no limit) and "which source is nearest to this node".
+
+  Frontier, next level and visited set are bitsets. Every bitset also keeps the list of words it
+  has set bits in, so clearing and scanning them costs the size of the neighbourhood, not the
+  size of the graph: a 3-hop query on a million nodes touches only the words it reaches. Dense
+  levels are expanded bottom-up like in DirectionOptimizingBfs, when the frontier's edges exceed
+  1/ALPHA of the edges into unvisited nodes (the most a bottom-up step can check). ALPHA is lower
+  than there because unreached nodes of sparse graphs check all their edges in that step.
+  The parent tree leads every reached node back to its nearest source; among sources at the same
+  distance any one may be reported.
+ */
+import java.util.Arrays;
+import java.util.BitSet;
+
+public class ReachabilitySearch extends SearchTree {
+    private static final int ALPHA = 2;
+    // smaller frontiers are expanded top-down without counting edges
+    private static final int BETA = 24;
+
+    private long[] frontier = new long[0];
+    private long[] next = new long[0];
+    private long[] visited = new long[0];
+    private int[] frontierWords = new int[0];
+    private int[] nextWords = new int[0];
+    private int[] visitedWords = new int[0];
+    private int frontierWordCount, nextWordCount, visitedWordCount;
+    private int[] hops = new int[0];
+    private int[] source = new int[0];
+    private int words;
+    private long unvisitedEdges; // in-edges of unvisited nodes, -1 until a frontier gets big enough to need it
+
+    // statistics of the last run
+    private int reached;
+    private int levels;
+    private int bottomUpLevels;
+    private long edgesChecked;
+
+/*  Expands from all sources together for at most maxHops levels (no limit when maxHops < 0) and
+    returns the number of nodes reached, sources included. When dst >= 0 it stops as soon as dst
+    is reached. in is the reverse of out (equal to out for undirected graphs), or null to expand
+    top-down only. Ids that are not live nodes must not be passed as sources.
+ */
+    public int run(GraphView out, GraphView in, int[] sources, int maxHops, int dst) {
+        int n = out.nodeCapacity();
+        ensureCapacity(n);
+        clear(visited, visitedWords, visitedWordCount);
+        clear(frontier, frontierWords, frontierWordCount);
+        visitedWordCount = 0;
+        frontierWordCount = 0;
+        reached = 0;
+        levels = 0;
+        bottomUpLevels = 0;
+        edgesChecked = 0;
+        unvisitedEdges = -1;
+
+        for (int s : sources) {
+            if (DirectionOptimizingBfs.get(visited, s)) continue;
+            int w = s >>> 6;
+            if (frontier[w] == 0) frontierWords[frontierWordCount++] = w;
+            frontier[w] |= 1L << s;
+            if (visited[w] == 0) visitedWords[visitedWordCount++] = w;
+            visited[w] |= 1L << s;
+            parent[s] = -1;
+            parentEdge[s] = -1;
+            hops[s] = 0;
+            source[s] = s;
+            reached++;
+        }
+        int frontierSize = reached;
+        if (dst >= 0 && dst < n && DirectionOptimizingBfs.get(visited, dst)) return reached;
+
+        while (frontierSize > 0 && (maxHops < 0 || levels < maxHops)) {
+            levels++;
+            nextWordCount = 0;
+            if (in != null && frontierSize > n / BETA && preferBottomUp(out, in, n)) {
+                bottomUpStep(in, n);
+                bottomUpLevels++;
+            } else {
+                topDownStep(out);
+            }
+            clear(frontier, frontierWords, frontierWordCount);
+            long[] swapBits = frontier;
+            frontier = next;
+            next = swapBits;
+            int[] swapWords = frontierWords;
+            frontierWords = nextWords;
+            nextWords = swapWords;
+            frontierWordCount = nextWordCount;
+            frontierSize = 0;
+            for (int k = 0; k < frontierWordCount; k++) frontierSize += Long.bitCount(frontier[frontierWords[k]]);
+            if (unvisitedEdges >= 0) unvisitedEdges -= edgesOfFrontier(in);
+            reached += frontierSize;
+            if (dst >= 0 && dst < n && DirectionOptimizingBfs.get(visited, dst)) break;
+        }
+        return reached;
+    }
+
+    // the unvisited edges are counted once, O(n), which a frontier this big already costs; later
+    // levels take their frontier's edges off
+    private boolean preferBottomUp(GraphView out, GraphView in, int n) {
+        if (unvisitedEdges < 0) {
+            unvisitedEdges = 0;
+            for (int w = 0; w < words; w++) {
+                long unvisited = ~visited[w];
+                if (w == words - 1 && (n & 63) != 0) unvisited &= (1L << (n & 63)) - 1;
+                for (long bits = unvisited; bits != 0; bits &= bits - 1) {
+                    unvisitedEdges += in.degree((w << 6) | Long.numberOfTrailingZeros(bits));
+                }
+            }
+        }
+        return edgesOfFrontier(out) > unvisitedEdges / ALPHA;
+    }
+
+    private long edgesOfFrontier(GraphView g) {
+        long edges = 0;
+        for (int k = 0; k < frontierWordCount; k++) {
+            int w = frontierWords[k];
+            for (long bits = frontier[w]; bits != 0; bits &= bits - 1) edges += g.degree((w << 6) | Long.numberOfTrailingZeros(bits));
+        }
+        return edges;
+    }
+
+    private void topDownStep(GraphView out) {
+        int level = levels;
+        for (int k = 0; k < frontierWordCount; k++) {
+            int w = frontierWords[k];
+            for (long bits = frontier[w]; bits != 0; bits &= bits - 1) {
+                int v = (w << 6) | Long.numberOfTrailingZeros(bits);
+                for (int i = 0, d = out.degree(v); i < d; i++) {
+                    edgesChecked++;
+                    int u = out.neighbor(v, i);
+                    if (!DirectionOptimizingBfs.get(visited, u)) claim(u, v, out.edgeId(v, i), level);
+                }
+            }
+        }
+    }
+
+    // every unvisited node stops scanning its in-edges at the first parent found in the frontier
+    private void bottomUpStep(GraphView in, int n) {
+        int level = levels;
+        for (int w = 0; w < words; w++) {
+            long unvisited = ~visited[w];
+            if (w == words - 1 && (n & 63) != 0) unvisited &= (1L << (n & 63)) - 1;
+            for (long bits = unvisited; bits != 0; bits &= bits - 1) {
+                int u = (w << 6) | Long.numberOfTrailingZeros(bits);
+                for (int i = 0, d = in.degree(u); i < d; i++) {
+                    edgesChecked++;
+                    int v = in.neighbor(u, i);
+                    if (DirectionOptimizingBfs.get(frontier, v)) {
+                        claim(u, v, in.edgeId(u, i), level);
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    private void claim(int u, int v, int edge, int level) {
+        int w = u >>> 6;
+        if (next[w] == 0) nextWords[nextWordCount++] = w;
+        next[w] |= 1L << u;
+        if (visited[w] == 0) visitedWords[visitedWordCount++] = w;
+        visited[w] |= 1L << u;
+        parent[u] = v;
+        parentEdge[u] = edge;
+        hops[u] = level;
+        source[u] = source[v];
+    }
+
+    private static void clear(long[] bits, int[] usedWords, int count) {
+        for (int k = 0; k < count; k++) bits[usedWords[k]] = 0;
+    }
+
+    private void ensureCapacity(int n) {
+        ensureTree(n);
+        if (hops.length < parent.length) {
+            hops = new int[parent.length];
+            source = new int[parent.length];
+        }
+        words = (n + 63) >>> 6;
+        if (visited.length < words) {
+            int size = Math.max(words, visited.length * 2);
+            frontier = new long[size];
+            next = new long[size];
+            visited = new long[size];
+            frontierWords = new int[size];
+            nextWords = new int[size];
+            visitedWords = new int[size];
+            frontierWordCount = 0;
+            visitedWordCount = 0;
+        }
+    }
+
+    public boolean isReached(int v) {
+        return v >= 0 && v < words << 6 && DirectionOptimizingBfs.get(visited, v);
+    }
+
+    // hops from the nearest source, -1 when v was not reached
+    public int hopsTo(int v) {
+        return isReached(v) ? hops[v] : -1;
+    }
+
+    // the source v was reached from, -1 when v was not reached
+    public int nearestSource(int v) {
+        return isReached(v) ? source[v] : -1;
+    }
+
+    // copies of the reached set, as a BitSet of node ids and as ascending ids
+    public BitSet reachedSet() {
+        long[] copy = new long[words];
+        for (int k = 0; k < visitedWordCount; k++) copy[visitedWords[k]] = visited[visitedWords[k]];
+        return BitSet.valueOf(copy);
+    }
+
+    public int[] reachedNodes() {
+        int[] used = Arrays.copyOf(visitedWords, visitedWordCount);
+        Arrays.sort(used);
+        int[] nodes = new int[reached];
+        int count = 0;
+        for (int w : used) {
+            for (long bits = visited[w]; bits != 0; bits &= bits - 1) nodes[count++] = (w << 6) | Long.numberOfTrailingZeros(bits);
+        }
+        return nodes;
+    }
+
+    public int reachedCount() {
+        return reached;
+    }
+
+    public int levels() {
+        return levels;
+    }
+
+    public int bottomUpLevels() {
+        return bottomUpLevels;
+    }
+
+    public long edgesChecked() {
+        return edgesChecked;
+    }
+}
@@ -0,0 +1,29 @@
+// This class is one finished query of the QueryScheduler: what was asked, on which version, and the answer.
+public class RouteQuery {
+    final int number;
+    final SearchMode mode;
+    final Node src, dst;
+    final long version;
+    final PathResult result; // null when dst cannot be reached
+    final long micros;
+
+    RouteQuery(int number, SearchMode mode, Node src, Node dst, long version, PathResult result, long micros) {
+        this.number = number;
+        this.mode = mode;
+        this.src = src;
+        this.dst = dst;
+        this.version = version;
+        this.result = result;
+        this.micros = micros;
+    }
+
+    boolean isFound() {
+        return result != null;
+    }
+
+    // the path's weight for the lowest-cost modes and its hop count for the BFS modes, -1 without a path
+    long length() {
+        if (result == null) return -1;
+        return mode == SearchMode.DIJKSTRA || mode == SearchMode.ROUTING_TABLE ? result.cost : result.hops();
+    }
+}
@@ -0,0 +1,263 @@
+/*This class keeps FIB-like next-hop tables so repeated source/destination lookups are a walk
+  along the route instead of a new search. Tables are stored per destination: table(t).nextHop[v]
+  is the neighbour router v forwards to for destination t, i.e. the entry for t in v's FIB.
+  A table is the shortest-cost tree into t (Dijkstra over the reverse view, so it is correct in
+  directed mode too). Tables are built on demand or for all destinations in parallel, cached, and
+  dropped only when a change to the topology can alter them. They are built on the current
+  GraphVersion, so lookups from other threads never read the graph while it is being edited.
+  buildAll() works outside the lock so edits and lookups go on meanwhile; the edits reported while
+  it runs are checked against its tables before they are published, like against cached ones.
+ */
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+public class RoutingTables implements TopologyListener {
+    private static final long UNREACHABLE = Long.MAX_VALUE;
+    private static final int TABLE_BYTES_PER_NODE = 16;
+    // what an edit was, as {kind, edge, from, to, weight, directed}
+    private static final int EDGE_ADDED = 0, EDGE_REMOVED = 1, NODE_REMOVED = 2, RESET = 3;
+
+    static final class Table {
+        final int[] nextHop;   // -1 when there is no route, v itself for the destination
+        final int[] nextEdge;
+        final long[] dist;     // cost from v to the destination, UNREACHABLE when there is no route
+
+        Table(int n) {
+            nextHop = new int[n];
+            nextEdge = new int[n];
+            dist = new long[n];
+        }
+
+        long distance(int v) {
+            return v < dist.length ? dist[v] : UNREACHABLE;
+        }
+
+        // true when the tree uses edge e on its way from v
+        boolean uses(int v, int e) {
+            return v < nextEdge.length && nextEdge[v] == e;
+        }
+    }
+
+    private final GraphEngine graph;
+    private final ThreadLocal<DijkstraSearch> searches = ThreadLocal.withInitial(DijkstraSearch::new);
+    private Table[] byDestination = new Table[0];
+    private int cached = 0;
+    private long invalidations = 0;
+    // edits reported while some buildAll() is running, from the index it started at
+    private final List<int[]> editsDuringBuild = new ArrayList<>();
+    private int builds = 0;
+
+    public RoutingTables(GraphEngine graph) {
+        this.graph = graph;
+        graph.addTopologyListener(this);
+    }
+
+    // a route read out of the tables: nodes.length - 1 edges, the edge from nodes[i] being edges[i]
+    public static final class Route {
+        public final int[] nodes, edges;
+
+        Route(int[] nodes, int[] edges) {
+            this.nodes = nodes;
+            this.edges = edges;
+        }
+    }
+
+/*  Route from src to dst by walking the next-hop entries, O(path length) once dst's table exists.
+    Returns null when there is none.
+ */
+    public synchronized Route route(int src, int dst) {
+        Table t = table(dst);
+        if (t.distance(src) == UNREACHABLE) return null;
+        int length = 1;
+        for (int v = src; v != dst; v = t.nextHop[v]) length++;
+        int[] nodes = new int[length];
+        int[] edges = new int[length - 1];
+        int i = 0;
+        for (int v = src; ; v = t.nextHop[v]) {
+            nodes[i] = v;
+            if (v == dst) break;
+            edges[i++] = t.nextEdge[v];
+        }
+        return new Route(nodes, edges);
+    }
+
+    public synchronized long cost(int src, int dst) {
+        long d = table(dst).distance(src);
+        return d == UNREACHABLE ? -1 : d;
+    }
+
+    public synchronized boolean isCached(int dst) {
+        return dst < byDestination.length && byDestination[dst] != null;
+    }
+
+/*  Builds the tables of every live destination that is not cached yet, one destination per task,
+    and returns how many it published. A table takes 16 bytes per node, so when all of them would
+    need more than half the heap nothing is built and -1 is returned; lookups still build the
+    tables they need one by one.
+ */
+    public int buildAll() {
+        GraphVersion version;
+        int[] missing;
+        int firstEdit;
+        synchronized (this) {
+            // edits whose listener already ran are in this version, later ones are logged
+            version = graph.version();
+            int capacity = version.nodeCapacity();
+            ensureCapacity(capacity);
+            missing = IntStream.range(0, capacity)
+                    .filter(t -> version.isLive(t) && byDestination[t] == null)
+                    .toArray();
+            if ((long) missing.length * capacity * TABLE_BYTES_PER_NODE > Runtime.getRuntime().maxMemory() / 2) return -1;
+            firstEdit = editsDuringBuild.size();
+            builds++;
+        }
+        Table[] built = new Table[missing.length];
+        try {
+            GraphView reverse = CsrGraph.of(version.reverseView());
+            ForkJoinPool.commonPool().submit(() ->
+                    IntStream.range(0, missing.length).parallel()
+                            .forEach(i -> built[i] = build(reverse, missing[i]))).join();
+        } catch (RuntimeException | Error e) {
+            synchronized (this) {
+                if (--builds == 0) editsDuringBuild.clear();
+            }
+            throw e;
+        }
+        synchronized (this) {
+            builds--;
+            int published = 0;
+            ensureCapacity(version.nodeCapacity());
+            for (int i = 0; i < missing.length; i++) {
+                int t = missing[i];
+                // a lookup may have built it meanwhile, or an edit made it stale
+                if (built[i] == null || byDestination[t] != null || staleAfter(built[i], t, firstEdit)) continue;
+                byDestination[t] = built[i];
+                published++;
+            }
+            cached += published;
+            if (builds == 0) editsDuringBuild.clear();
+            return published;
+        }
+    }
+
+    private boolean staleAfter(Table table, int dst, int firstEdit) {
+        for (int k = firstEdit; k < editsDuringBuild.size(); k++) {
+            if (alters(editsDuringBuild.get(k), table, dst)) return true;
+        }
+        return false;
+    }
+
+    // whether the edit can change the table of dst
+    private static boolean alters(int[] edit, Table table, int dst) {
+        int edge = edit[1], from = edit[2], to = edit[3], weight = edit[4];
+        switch (edit[0]) {
+            case EDGE_ADDED:
+                // a new edge matters only if it gives one of its endpoints a cheaper route
+                return improves(table, from, to, weight) || (edit[5] == 0 && improves(table, to, from, weight));
+            case EDGE_REMOVED:
+                // a removed edge matters only if the table routes over it
+                return table.uses(from, edge) || table.uses(to, edge);
+            case NODE_REMOVED:
+                return from == dst;
+            default:
+                return true;
+        }
+    }
+
+    // drops the cached tables the edit can change, and logs it for the builds that are running
+    private void changed(int[] edit) {
+        if (builds > 0) editsDuringBuild.add(edit);
+        for (int t = 0; t < byDestination.length; t++) {
+            Table table = byDestination[t];
+            if (table != null && alters(edit, table, t)) drop(t);
+        }
+    }
+
+    public synchronized int cachedTables() {
+        return cached;
+    }
+
+    public synchronized long invalidations() {
+        return invalidations;
+    }
+
+    private Table table(int dst) {
+        ensureCapacity(dst + 1);
+        if (byDestination[dst] == null) {
+            byDestination[dst] = build(graph.version().reverseView(), dst);
+            cached++;
+        }
+        return byDestination[dst];
+    }
+
+    private Table build(GraphView reverse, int dst) {
+        int n = reverse.nodeCapacity();
+        DijkstraSearch search = searches.get();
+        search.run(reverse, dst, -1, null);
+        Table t = new Table(n);
+        for (int v = 0; v < n; v++) {
+            if (search.isReached(v)) {
+                t.dist[v] = search.distanceTo(v);
+                // the parent in the reverse tree is the first hop of v's route
+                t.nextHop[v] = v == dst ? v : search.parentOf(v);
+                t.nextEdge[v] = v == dst ? -1 : search.parentEdgeOf(v);
+            } else {
+                t.dist[v] = UNREACHABLE;
+                t.nextHop[v] = -1;
+                t.nextEdge[v] = -1;
+            }
+        }
+        return t;
+    }
+
+    private void ensureCapacity(int n) {
+        if (byDestination.length < n) {
+            byDestination = Arrays.copyOf(byDestination, Math.max(n, byDestination.length * 2));
+        }
+    }
+
+    private void drop(int dst) {
+        if (byDestination[dst] != null) {
+            byDestination[dst] = null;
+            cached--;
+            invalidations++;
+        }
+    }
+
+    @Override
+    public synchronized void nodeAdded(int node) {
+        // a new node has no edges yet, so no route changes until one is added
+    }
+
+    @Override
+    public synchronized void nodeRemoved(int node) {
+        if (builds > 0) editsDuringBuild.add(new int[]{NODE_REMOVED, -1, node, node, 0, 0});
+        if (node < byDestination.length) drop(node);
+    }
+
+    @Override
+    public synchronized void edgeAdded(int edge, int from, int to, int weight) {
+        changed(new int[]{EDGE_ADDED, edge, from, to, weight, graph.isDirected() ? 1 : 0});
+    }
+
+    private static boolean improves(Table table, int from, int to, int weight) {
+        long via = table.distance(to);
+        return via != UNREACHABLE && via + weight < table.distance(from);
+    }
+
+    @Override
+    public synchronized void edgeRemoved(int edge, int from, int to, int weight) {
+        changed(new int[]{EDGE_REMOVED, edge, from, to, weight, 0});
+    }
+
+    @Override
+    public synchronized void topologyReset() {
+        if (builds > 0) editsDuringBuild.add(new int[]{RESET, -1, -1, -1, 0, 0});
+        invalidations += cached;
+        Arrays.fill(byDestination, null);
+        cached = 0;
+    }
+}
@@ -0,0 +1,15 @@
+// Callback used by the search classes to report progress (node ids) to whoever is drawing or logging it.
+public interface SearchListener {
+    void visit(int node);
+
+    void enqueue(int node, int parent);
+
+    // the backward half of a bidirectional search, growing from the destination
+    default void visitBackward(int node) {
+        visit(node);
+    }
+
+    default void enqueueBackward(int node, int parent) {
+        enqueue(node, parent);
+    }
+}
@@ -0,0 +1,21 @@
+// The kinds of search the "Start BFS" button can run; toString() is the label shown in the combo box.
+// The BFS modes minimise the hop count; DIJKSTRA and ROUTING_TABLE minimise the sum of edge weights.
+public enum SearchMode {
+    BFS("BFS"),
+    DIRECTION_OPTIMIZING("Direction-optimizing BFS"),
+    PARALLEL("Parallel BFS"),
+    BIDIRECTIONAL("Bidirectional BFS"),
+    DIJKSTRA("Lowest cost (Dijkstra)"),
+    ROUTING_TABLE("Routing table lookup");
+
+    private final String label;
+
+    SearchMode(String label) {
+        this.label = label;
+    }
+
+    @Override
+    public String toString() {
+        return label;
+    }
+}
@@ -0,0 +1,74 @@
+/*This class records what a search reported to its listener so it can be replayed later, at any
+  speed, without running the search again. Each event is packed in one long:
+  kind (2 bits) | node (31 bits) | parent or next hop (31 bits).
+ */
+import java.util.Arrays;
+
+public class SearchTrace implements SearchListener {
+    static final int VISIT = 0, ENQUEUE = 1, VISIT_BACKWARD = 2, ENQUEUE_BACKWARD = 3;
+    private static final long MASK = 0x7fffffffL;
+
+    private long[] events = new long[256];
+    private int size = 0;
+
+    private void add(int kind, int node, int other) {
+        if (size == events.length) events = Arrays.copyOf(events, size * 2);
+        events[size++] = (long) kind << 62 | (node & MASK) << 31 | (other & MASK);
+    }
+
+    public void visit(int node) {
+        add(VISIT, node, 0);
+    }
+
+    public void enqueue(int node, int parent) {
+        add(ENQUEUE, node, parent);
+    }
+
+    public void visitBackward(int node) {
+        add(VISIT_BACKWARD, node, 0);
+    }
+
+    public void enqueueBackward(int node, int next) {
+        add(ENQUEUE_BACKWARD, node, next);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int kind(int i) {
+        return (int) (events[i] >>> 62);
+    }
+
+    public int node(int i) {
+        return (int) (events[i] >>> 31 & MASK);
+    }
+
+    public int other(int i) {
+        return (int) (events[i] & MASK);
+    }
+
+    public boolean isVisit(int i) {
+        int kind = kind(i);
+        return kind == VISIT || kind == VISIT_BACKWARD;
+    }
+
+    // sends the events [from, to) to the listener in the order they were recorded
+    public void replay(int from, int to, SearchListener listener) {
+        for (int i = from; i < to; i++) {
+            switch (kind(i)) {
+                case VISIT:
+                    listener.visit(node(i));
+                    break;
+                case ENQUEUE:
+                    listener.enqueue(node(i), other(i));
+                    break;
+                case VISIT_BACKWARD:
+                    listener.visitBackward(node(i));
+                    break;
+                default:
+                    listener.enqueueBackward(node(i), other(i));
+            }
+        }
+    }
+}
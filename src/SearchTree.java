@@ -0,0 +1,40 @@
+// Base class of the searches that leave a parent tree behind: keeps the parent arrays and walks paths out of them.
+public abstract class SearchTree {
+    protected int[] parent = new int[0];
+    protected int[] parentEdge = new int[0];
+
+    // grows the parent arrays, returns true when they had to be reallocated
+    protected boolean ensureTree(int n) {
+        if (parent.length >= n) return false;
+        int size = Math.max(n, parent.length * 2);
+        parent = new int[size];
+        parentEdge = new int[size];
+        return true;
+    }
+
+    public int parentOf(int v) {
+        return parent[v];
+    }
+
+    public int parentEdgeOf(int v) {
+        return parentEdge[v];
+    }
+
+    // node ids from the source to dst, following the parent links of the last run
+    public int[] path(int dst) {
+        int length = 0;
+        for (int v = dst; v != -1; v = parent[v]) length++;
+        int[] path = new int[length];
+        for (int v = dst; v != -1; v = parent[v]) path[--length] = v;
+        return path;
+    }
+
+    // edge ids along the same path, path(dst).length - 1 entries
+    public int[] pathEdges(int dst) {
+        int length = 0;
+        for (int v = dst; parent[v] != -1; v = parent[v]) length++;
+        int[] path = new int[length];
+        for (int v = dst; parent[v] != -1; v = parent[v]) path[--length] = parentEdge[v];
+        return path;
+    }
+}
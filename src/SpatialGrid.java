@@ -0,0 +1,200 @@
+/*This class is a uniform grid over node positions, used for hit-testing clicks and for finding the
+  nodes inside a rectangle (the visible part of the canvas). Cells are kept in an open-addressing
+  table keyed by the packed cell coordinates, so the canvas can be scrolled or dragged anywhere.
+  Every node remembers its cell and its slot in it, so insert, remove and move are O(1). A cell is
+  deleted when its last node leaves, so dragging a node across the map does not grow the table.
+ */
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+public class SpatialGrid {
+    static final int CELL_SIZE = 64;
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    // cell table
+    private long[] keys = new long[64];
+    private int[][] members = new int[64][];
+    private int[] memberCount = new int[64];
+    private int usedCells = 0;
+
+    // per node
+    private int[] cellOf = new int[16];
+    private int[] slotOf = new int[16];
+    private int[] xs = new int[16];
+    private int[] ys = new int[16];
+
+    public SpatialGrid() {
+        Arrays.fill(keys, EMPTY);
+        Arrays.fill(cellOf, -1);
+    }
+
+    public void insert(int id, int x, int y) {
+        if (id >= cellOf.length) {
+            int size = Math.max(id + 1, cellOf.length * 2);
+            int old = cellOf.length;
+            cellOf = Arrays.copyOf(cellOf, size);
+            slotOf = Arrays.copyOf(slotOf, size);
+            xs = Arrays.copyOf(xs, size);
+            ys = Arrays.copyOf(ys, size);
+            Arrays.fill(cellOf, old, size, -1);
+        }
+        xs[id] = x;
+        ys[id] = y;
+        int cell = cell(key(x, y), true);
+        if (memberCount[cell] == members[cell].length) {
+            members[cell] = Arrays.copyOf(members[cell], memberCount[cell] * 2);
+        }
+        cellOf[id] = cell;
+        slotOf[id] = memberCount[cell];
+        members[cell][memberCount[cell]++] = id;
+    }
+
+    public void remove(int id) {
+        int cell = cellOf[id];
+        if (cell < 0) return;
+        int slot = slotOf[id];
+        int moved = members[cell][--memberCount[cell]];
+        members[cell][slot] = moved;
+        slotOf[moved] = slot;
+        cellOf[id] = -1;
+        if (memberCount[cell] == 0) deleteCell(cell);
+    }
+
+    // only touches the cell table when the node crosses into another cell
+    public void move(int id, int x, int y) {
+        if (cellOf[id] >= 0 && keys[cellOf[id]] == key(x, y)) {
+            xs[id] = x;
+            ys[id] = y;
+            return;
+        }
+        remove(id);
+        insert(id, x, y);
+    }
+
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        Arrays.fill(memberCount, 0);
+        Arrays.fill(cellOf, -1);
+        usedCells = 0;
+    }
+
+    // the node whose centre is closest to (x, y) among those within radius of it, or -1
+    public int nearest(int x, int y, int radius) {
+        int best = -1;
+        long bestDistance = (long) radius * radius;
+        int cx0 = Math.floorDiv(x - radius, CELL_SIZE), cx1 = Math.floorDiv(x + radius, CELL_SIZE);
+        int cy0 = Math.floorDiv(y - radius, CELL_SIZE), cy1 = Math.floorDiv(y + radius, CELL_SIZE);
+        for (int cx = cx0; cx <= cx1; cx++) {
+            for (int cy = cy0; cy <= cy1; cy++) {
+                int cell = cell(pack(cx, cy), false);
+                if (cell < 0) continue;
+                for (int i = 0; i < memberCount[cell]; i++) {
+                    int id = members[cell][i];
+                    long dx = xs[id] - x, dy = ys[id] - y;
+                    long d = dx * dx + dy * dy;
+                    if (d <= bestDistance) {
+                        bestDistance = d;
+                        best = id;
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    // reports every node whose centre lies inside the rectangle, padded by margin on all sides
+    public void query(int x, int y, int width, int height, int margin, IntConsumer out) {
+        int left = x - margin, top = y - margin, right = x + width + margin, bottom = y + height + margin;
+        int cx0 = Math.floorDiv(left, CELL_SIZE), cx1 = Math.floorDiv(right, CELL_SIZE);
+        int cy0 = Math.floorDiv(top, CELL_SIZE), cy1 = Math.floorDiv(bottom, CELL_SIZE);
+        // a huge rectangle has more cells than the table, then scanning the table is cheaper
+        if ((long) (cx1 - cx0 + 1) * (cy1 - cy0 + 1) > keys.length) {
+            for (int cell = 0; cell < keys.length; cell++) {
+                if (keys[cell] != EMPTY) report(cell, left, top, right, bottom, out);
+            }
+            return;
+        }
+        for (int cx = cx0; cx <= cx1; cx++) {
+            for (int cy = cy0; cy <= cy1; cy++) {
+                int cell = cell(pack(cx, cy), false);
+                if (cell >= 0) report(cell, left, top, right, bottom, out);
+            }
+        }
+    }
+
+    private void report(int cell, int left, int top, int right, int bottom, IntConsumer out) {
+        for (int i = 0; i < memberCount[cell]; i++) {
+            int id = members[cell][i];
+            if (xs[id] >= left && xs[id] <= right && ys[id] >= top && ys[id] <= bottom) out.accept(id);
+        }
+    }
+
+    private static long key(int x, int y) {
+        return pack(Math.floorDiv(x, CELL_SIZE), Math.floorDiv(y, CELL_SIZE));
+    }
+
+    private static long pack(int cx, int cy) {
+        return ((long) cx << 32) | (cy & 0xffffffffL);
+    }
+
+    private int home(long key) {
+        return (int) (key ^ (key >>> 29) ^ (key >>> 47)) * 0x9E3779B9 & (keys.length - 1);
+    }
+
+    // slot of the cell in the table, creating it when asked to; -1 when absent
+    private int cell(long key, boolean create) {
+        int mask = keys.length - 1;
+        int i = home(key);
+        while (keys[i] != EMPTY) {
+            if (keys[i] == key) return i;
+            i = (i + 1) & mask;
+        }
+        if (!create) return -1;
+        if ((usedCells + 1) * 2 > keys.length) {
+            rehash();
+            return cell(key, true);
+        }
+        keys[i] = key;
+        members[i] = new int[4];
+        memberCount[i] = 0;
+        usedCells++;
+        return i;
+    }
+
+    // backward-shift deletion: later cells of the probe run move up into the hole, so lookups
+    // never need tombstones. Moved cells tell their nodes where they are now.
+    private void deleteCell(int hole) {
+        int mask = keys.length - 1;
+        for (int i = (hole + 1) & mask; keys[i] != EMPTY; i = (i + 1) & mask) {
+            // the cell at i may move to the hole when its home slot is not between the hole and i
+            if (((i - home(keys[i])) & mask) < ((i - hole) & mask)) continue;
+            keys[hole] = keys[i];
+            members[hole] = members[i];
+            memberCount[hole] = memberCount[i];
+            for (int k = 0; k < memberCount[hole]; k++) cellOf[members[hole][k]] = hole;
+            hole = i;
+        }
+        keys[hole] = EMPTY;
+        members[hole] = null;
+        memberCount[hole] = 0;
+        usedCells--;
+    }
+
+    private void rehash() {
+        long[] oldKeys = keys;
+        int[][] oldMembers = members;
+        int[] oldCounts = memberCount;
+        keys = new long[oldKeys.length * 2];
+        members = new int[keys.length][];
+        memberCount = new int[keys.length];
+        Arrays.fill(keys, EMPTY);
+        usedCells = 0;
+        for (int old = 0; old < oldKeys.length; old++) {
+            if (oldKeys[old] == EMPTY) continue;
+            int cell = cell(oldKeys[old], true);
+            members[cell] = oldMembers[old];
+            memberCount[cell] = oldCounts[old];
+            for (int i = 0; i < memberCount[cell]; i++) cellOf[members[cell][i]] = cell;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+/*This class finds the strongly connected components of a directed view with Tarjan's algorithm,
+  written with an explicit stack so deep graphs do not overflow the thread's stack. Components are
+  numbered in the order Tarjan completes them, which is a reverse topological order: an edge from
+  component a to a different component b always has a > b. So a path from u to v needs
+  component(u) >= component(v), which rules out half of the pairs without a search.
+ */
+import java.util.Arrays;
+
+public class StrongComponents {
+    private final int[] component;
+    private final int count;
+
+    public StrongComponents(GraphView g) {
+        int n = g.nodeCapacity();
+        component = new int[n];
+        Arrays.fill(component, -1);
+        int[] index = new int[n];
+        int[] low = new int[n];
+        Arrays.fill(index, -1);
+        int[] stack = new int[n];       // Tarjan's stack of nodes without a component yet
+        int[] callNode = new int[n];    // the recursion: node and the next neighbour to look at
+        int[] callNext = new int[n];
+        int stackSize = 0, nextIndex = 0, components = 0;
+
+        for (int root = 0; root < n; root++) {
+            if (index[root] >= 0) continue;
+            int depth = 0;
+            callNode[0] = root;
+            callNext[0] = 0;
+            index[root] = low[root] = nextIndex++;
+            stack[stackSize++] = root;
+            while (depth >= 0) {
+                int v = callNode[depth];
+                int i = callNext[depth];
+                if (i < g.degree(v)) {
+                    callNext[depth] = i + 1;
+                    int u = g.neighbor(v, i);
+                    if (index[u] < 0) {
+                        index[u] = low[u] = nextIndex++;
+                        stack[stackSize++] = u;
+                        depth++;
+                        callNode[depth] = u;
+                        callNext[depth] = 0;
+                    } else if (component[u] < 0) {
+                        low[v] = Math.min(low[v], index[u]);
+                    }
+                    continue;
+                }
+                if (low[v] == index[v]) {
+                    int u;
+                    do {
+                        u = stack[--stackSize];
+                        component[u] = components;
+                    } while (u != v);
+                    components++;
+                }
+                depth--;
+                if (depth >= 0) {
+                    int parent = callNode[depth];
+                    low[parent] = Math.min(low[parent], low[v]);
+                }
+            }
+        }
+        count = components;
+    }
+
+    // nodes without edges (and unused ids) are components of their own
+    public int component(int v) {
+        return v < component.length ? component[v] : -1;
+    }
+
+    public int count() {
+        return count;
+    }
+}
@@ -0,0 +1,15 @@
+// Notified by GraphEngine after every change to the topology, so caches built on top of it can update or drop what changed.
+public interface TopologyListener {
+    void nodeAdded(int node);
+
+    // called after the node's edges have been reported through edgeRemoved
+    void nodeRemoved(int node);
+
+    void edgeAdded(int edge, int from, int to, int weight);
+
+    // the edge id is already free again when this is called, so the endpoints are passed along
+    void edgeRemoved(int edge, int from, int to, int weight);
+
+    // directed/undirected toggle or reset: everything derived from the old topology is stale
+    void topologyReset();
+}
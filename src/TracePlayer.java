@@ -0,0 +1,124 @@
+/*This class animates a recorded SearchTrace with a javax.swing.Timer, so the search itself runs at
+  full speed and every change to the painted state happens on the event dispatch thread.
+  One step is everything up to and including the next visit: the enqueues of the node visited
+  before it, then the visit. Speed is in steps per second; when a timer tick is longer than a step,
+  several steps are played per tick.
+ */
+import javax.swing.Timer;
+
+public class TracePlayer {
+    private static final int MIN_DELAY = 20; // about 50 frames per second
+
+    private final Timer timer;
+    private SearchTrace trace;
+    private SearchListener listener;
+    private SearchListener quietListener;
+    private Runnable onFinished;
+    private int position = 0;
+    private double stepsPerSecond = 3;
+    private double owed = 0;
+    private boolean paused = false;
+
+    public TracePlayer() {
+        timer = new Timer(MIN_DELAY, e -> tick());
+        timer.setCoalesce(true);
+    }
+
+/*  Starts playing trace into listener. Skipping to the end sends the remaining events to
+    quietListener instead, which should only update state. onFinished runs once the last event has
+    been played, but not when the replay is stopped.
+ */
+    public void start(SearchTrace trace, SearchListener listener, SearchListener quietListener, Runnable onFinished) {
+        stop();
+        this.trace = trace;
+        this.listener = listener;
+        this.quietListener = quietListener;
+        this.onFinished = onFinished;
+        position = 0;
+        owed = 0;
+        if (!paused) {
+            updateDelay();
+            timer.start();
+        }
+        if (trace.size() == 0) finish();
+    }
+
+    public void stop() {
+        timer.stop();
+        trace = null;
+        onFinished = null;
+    }
+
+    public boolean isActive() {
+        return trace != null;
+    }
+
+    public boolean isPaused() {
+        return paused;
+    }
+
+    // pausing also holds back a replay started later, until resumed
+    public void setPaused(boolean paused) {
+        this.paused = paused;
+        if (paused) {
+            timer.stop();
+        } else if (trace != null) {
+            updateDelay();
+            timer.start();
+        }
+    }
+
+    public void setSpeed(double stepsPerSecond) {
+        this.stepsPerSecond = stepsPerSecond;
+        if (timer.isRunning()) updateDelay();
+    }
+
+    // plays one step, pausing first when the replay is running
+    public void step() {
+        if (trace == null) return;
+        setPaused(true);
+        playStep();
+        if (position == trace.size()) finish();
+    }
+
+    public void skipToEnd() {
+        if (trace == null) return;
+        trace.replay(position, trace.size(), quietListener);
+        position = trace.size();
+        finish();
+    }
+
+    public int remaining() {
+        return trace == null ? 0 : trace.size() - position;
+    }
+
+    private void updateDelay() {
+        int delay = (int) Math.max(MIN_DELAY, 1000 / stepsPerSecond);
+        timer.setDelay(delay);
+        timer.setInitialDelay(delay);
+    }
+
+    private void tick() {
+        if (trace == null) return;
+        owed += stepsPerSecond * timer.getDelay() / 1000.0;
+        while (owed >= 1 && position < trace.size()) {
+            playStep();
+            owed--;
+        }
+        if (position == trace.size()) finish();
+    }
+
+    private void playStep() {
+        int end = position;
+        while (end < trace.size() && !trace.isVisit(end)) end++;
+        if (end < trace.size()) end++;
+        trace.replay(position, end, listener);
+        position = end;
+    }
+
+    private void finish() {
+        Runnable done = onFinished;
+        stop();
+        if (done != null) done.run();
+    }
+}
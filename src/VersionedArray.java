@@ -0,0 +1,79 @@
+/*This class is a growable array of references that can be frozen in O(1). The elements live in
+  pages of PAGE entries; a frozen copy shares every page with the array it came from, and that
+  array copies a page (and, once per freeze, the page directory) before its first write to it.
+  So an edit after a freeze costs one page copy instead of a copy of the whole array, and every
+  frozen copy keeps seeing exactly what was there when it was made.
+ */
+import java.util.Arrays;
+
+public class VersionedArray<T> {
+    static final int SHIFT = 10;
+    static final int PAGE = 1 << SHIFT;
+    private static final int MASK = PAGE - 1;
+
+    private Object[][] pages;
+    private int[] pageGeneration;   // the generation that owns each page; older pages are shared
+    private int directoryGeneration;
+    private int generation = 1;
+    private final boolean frozen;
+
+    public VersionedArray() {
+        pages = new Object[0][];
+        pageGeneration = new int[0];
+        frozen = false;
+    }
+
+    private VersionedArray(Object[][] pages) {
+        this.pages = pages;
+        frozen = true;
+    }
+
+    // writes bump the generation of the writer only, so frozen copies can compare against it
+    int generation() {
+        return generation;
+    }
+
+    // room for indices below pages * PAGE; null past the last write
+    public int capacity() {
+        return pages.length << SHIFT;
+    }
+
+    @SuppressWarnings("unchecked")
+    public T get(int i) {
+        return (T) pages[i >>> SHIFT][i & MASK];
+    }
+
+    public void set(int i, T value) {
+        if (frozen) throw new UnsupportedOperationException("frozen");
+        int p = i >>> SHIFT;
+        if (p >= pages.length) grow(p + 1);
+        if (pageGeneration[p] != generation) {
+            if (directoryGeneration != generation) {
+                pages = pages.clone();
+                directoryGeneration = generation;
+            }
+            pages[p] = pages[p].clone();
+            pageGeneration[p] = generation;
+        }
+        pages[p][i & MASK] = value;
+    }
+
+    // an unchangeable copy of the current contents; later writes here copy what they touch first
+    public VersionedArray<T> freeze() {
+        if (frozen) return this;
+        generation++;
+        return new VersionedArray<>(pages);
+    }
+
+    private void grow(int pageCount) {
+        int size = Math.max(pageCount, pages.length * 2);
+        int old = pages.length;
+        pages = Arrays.copyOf(pages, size);
+        pageGeneration = Arrays.copyOf(pageGeneration, size);
+        for (int p = old; p < size; p++) {
+            pages[p] = new Object[PAGE];
+            pageGeneration[p] = generation;
+        }
+        directoryGeneration = generation;
+    }
+}